@@ -0,0 +1,80 @@
+package com.example.config;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.service.AppImageService;
+
+/**
+ * アプリ画像を apps.image(base64 の TEXT カラム)から画像ストアに移行する
+ *
+ * 起動を待たせないよう別スレッドで、未移行のアプリをID順に1件ずつ移行する。
+ * 移行済みのアプリは image_key を設定して image を空文字にする。
+ * 移行中に画面から画像が更新された場合は、そちらを優先して上書きしない。
+ * data URL として読めない画像は移行せずにそのまま残す。
+ */
+@Component
+public class AppImageMigration {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AppImageService appImageService;
+
+	@Value("${app-image.migrate-on-startup:true}")
+	private boolean migrateOnStartup;
+
+	@Value("${app-image.migration-batch-size:100}")
+	private int batchSize;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!migrateOnStartup) {
+			return;
+		}
+		Thread thread = new Thread(this::migrate, "app-image-migration");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void migrate() {
+		long lastId = 0;
+		while (true) {
+			// IDだけを取得し、画像は1件ずつ読み込んでメモリ使用量を抑える
+			List<Long> ids = jdbcTemplate.queryForList(
+					"SELECT id FROM apps WHERE id > ? AND image_key IS NULL AND image <> '' ORDER BY id LIMIT ?",
+					Long.class, lastId, batchSize);
+			if (ids.isEmpty()) {
+				return;
+			}
+			for (Long id : ids) {
+				lastId = id;
+				this.migrateOne(id);
+			}
+		}
+	}
+
+	private void migrateOne(Long id) {
+		try {
+			List<String> images = jdbcTemplate.queryForList(
+					"SELECT image FROM apps WHERE id = ? AND image_key IS NULL", String.class, id);
+			if (images.isEmpty() || images.get(0).isEmpty()) {
+				return;
+			}
+			String key = appImageService.storeDataUrl(images.get(0));
+			jdbcTemplate.update("UPDATE apps SET image_key = ?, image = '' WHERE id = ? AND image_key IS NULL",
+					key, id);
+		} catch (IllegalArgumentException | IOException | DataAccessException e) {
+			e.printStackTrace();
+		}
+	}
+}
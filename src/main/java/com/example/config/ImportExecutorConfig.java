@@ -0,0 +1,26 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImportExecutorConfig {
+
+	// ファイル取込ジョブ用のスレッドプール
+	// キューが溢れた場合は TaskRejectedException となり、呼び出し元で受付不可として扱う
+	@Bean
+	ThreadPoolTaskExecutor importTaskExecutor(
+			@Value("${import.executor.pool-size:2}") int poolSize,
+			@Value("${import.executor.queue-capacity:20}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("file-import-");
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(60);
+		return executor;
+	}
+}
@@ -0,0 +1,31 @@
+package com.example.config;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.service.FileImportJobService;
+
+/**
+ * 前回の起動中に終わらなかったファイル取込を取込失敗にする
+ *
+ * 取込ジョブはメモリ上のスレッドプールで実行するため、再起動すると取込中のまま残り、
+ * 画面のステータス確認(import-status.js)が終わらなくなる。
+ * 起動後に受け付けたジョブを対象にしないよう、このコンポーネントの作成時刻より前に開始したものだけを更新する。
+ */
+@Component
+public class ImportJobRecovery {
+
+	@Autowired
+	private FileImportJobService fileImportJobService;
+
+	private final LocalDateTime startedAt = LocalDateTime.now();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void recover() {
+		fileImportJobService.failInterrupted(startedAt);
+	}
+}
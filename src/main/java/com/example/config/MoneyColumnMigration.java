@@ -0,0 +1,75 @@
+package com.example.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.utils.Money;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 金額カラムを DOUBLE から DECIMAL に移行する
+ *
+ * ddl-auto=update は既存カラムの型を変更しないため、既存DBでは起動時に
+ * information_schema を確認して DOUBLE のまま残っているカラムだけを ALTER する。
+ * 新規DBではエンティティの定義どおり DECIMAL で作成されるため何もしない。
+ *
+ * ALTER はテーブルを作り直してメタデータロックを取るため、リクエストを受け付ける前に実行する。
+ * EntityManagerFactory がこのコンポーネントに依存するようにし、JPA(と ddl-auto)の初期化、
+ * Webサーバーの起動より先に移行を終える。
+ */
+@Component
+public class MoneyColumnMigration {
+
+	// 移行対象の金額カラム(テーブル名 -> カラム名)
+	private static final Map<String, List<String>> MONEY_COLUMNS = Map.of(
+			"orders", List.of("total", "tax", "discount", "shipping", "grand_total", "paid"),
+			"order_products", List.of("price", "discount"),
+			"order_payments", List.of("paid"));
+
+	private static final String DECIMAL_TYPE = "DECIMAL(15," + Money.SCALE + ")";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${money.migrate-columns-on-startup:true}")
+	private boolean migrateOnStartup;
+
+	@PostConstruct
+	public void migrate() {
+		if (!migrateOnStartup) {
+			return;
+		}
+		MONEY_COLUMNS.forEach((table, columns) -> {
+			List<String> doubleColumns = jdbcTemplate.queryForList(
+					"SELECT COLUMN_NAME FROM information_schema.COLUMNS"
+							+ " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND DATA_TYPE IN ('double', 'float')",
+					String.class, table);
+			List<String> targets = columns.stream().filter(doubleColumns::contains).toList();
+			if (targets.isEmpty()) {
+				return;
+			}
+			// 1テーブル1回の ALTER でまとめて変換する(値は小数第2位で丸められる)
+			String modify = String.join(", ",
+					targets.stream().map(c -> "MODIFY COLUMN " + c + " " + DECIMAL_TYPE + " NOT NULL").toList());
+			jdbcTemplate.execute("ALTER TABLE " + table + " " + modify);
+		});
+	}
+
+	/**
+	 * EntityManagerFactory の作成前に MoneyColumnMigration を作成(移行)させる
+	 */
+	@Component
+	static class EntityManagerFactoryDependsOnMoneyColumnMigration extends EntityManagerFactoryDependsOnPostProcessor {
+
+		EntityManagerFactoryDependsOnMoneyColumnMigration() {
+			super(MoneyColumnMigration.class);
+		}
+	}
+}
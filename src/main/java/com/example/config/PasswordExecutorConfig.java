@@ -0,0 +1,40 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class PasswordExecutorConfig {
+
+	// パスワードの照合・ハッシュ化用のスレッドプール
+	// ハッシュの計算は CPU を多く使うため、ログインが集中しても同時に計算する数をスレッド数までに抑える
+	// キューが溢れた場合は TaskRejectedException となり、呼び出し元でログイン失敗として扱う
+	// 照合を待つリクエストのスレッド(Tomcat のスレッド)は pool-size + queue-capacity 件まで、1件あたり password.verify-timeout までとなる
+	// 既定値(2 + 8 件、2秒)では bcrypt(1回 100ms 程度)の待ち行列は 0.5 秒程度で捌け、画面のリクエスト用のスレッドを占有しない
+	@Bean
+	ThreadPoolTaskExecutor passwordTaskExecutor(
+			@Value("${password.executor.pool-size:2}") int poolSize,
+			@Value("${password.executor.queue-capacity:8}") int queueCapacity,
+			MeterRegistry meterRegistry) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("password-");
+		executor.setDaemon(true);
+
+		// 待ち行列の長さと実行中の数を /actuator/metrics で確認できるようにする
+		Gauge.builder("password.executor.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+				.description("照合・ハッシュ化を待っている件数")
+				.register(meterRegistry);
+		Gauge.builder("password.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+				.description("照合・ハッシュ化を実行中の件数")
+				.register(meterRegistry);
+		return executor;
+	}
+}
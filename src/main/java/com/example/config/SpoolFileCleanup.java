@@ -0,0 +1,37 @@
+package com.example.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.example.service.OrderDeliveryService;
+import com.example.service.OrderPaymentService;
+
+/**
+ * 保持期間を過ぎた退避ファイルを定期的に削除する
+ *
+ * 退避ファイルはローカルディスクに残るため、起動直後と一定間隔(import.spool-cleanup-interval)で削除する。
+ */
+@Configuration
+@EnableScheduling
+public class SpoolFileCleanup {
+
+	@Autowired
+	private OrderDeliveryService orderDeliveryService;
+
+	@Autowired
+	private OrderPaymentService orderPaymentService;
+
+	@Scheduled(fixedDelayString = "${import.spool-cleanup-interval:PT1H}")
+	public void cleanup() {
+		try {
+			orderDeliveryService.deleteExpiredSpoolFiles();
+			orderPaymentService.deleteExpiredResultFiles();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
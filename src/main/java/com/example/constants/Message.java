@@ -10,4 +10,12 @@ public final class Message {
 	public static final String MSG_VALIDATE_ERROR = "入力が不正です";
 	public static final String MSG_ERROR = "エラー";
 	public static final String MSG_SUCESS_PAYMENT_INSERT = "支払い情報を更新しました";
+	public static final String MSG_SUCESS_IMPORT = "取込完了 (読込: %d件 / 登録: %d件 / エラー: %d件)";
+	public static final String MSG_SUCESS_IMPORT_ACCEPTED = "取込を受け付けました";
+	public static final String MSG_SUCESS_BALANCE_VERIFY = "取引先残高にずれはありません";
+	public static final String MSG_ERROR_BALANCE_DRIFT = "取引先残高がずれています (取引先ID: %s)";
+	public static final String MSG_SUCESS_BALANCE_REBUILD = "取引先残高を再構築しました (%d件)";
+	public static final String MSG_SUCESS_SHIPPING_UPDATE = "出荷情報を更新しました (成功: %d件 / エラー: %d件)";
+	public static final String MSG_SUCESS_CATEGORY_PRODUCT_RELINK = "カテゴリーと商品の紐付設定更新を完了しました。(追加: %d件 / 削除: %d件)";
+	public static final String MSG_ERROR_CATEGORY_PRODUCT_RELINK = "カテゴリーと商品の紐付設定更新に失敗しました。";
 }
@@ -1,6 +1,8 @@
 package com.example.constants;
 
+import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public final class TaxType {
@@ -20,21 +22,41 @@ public final class TaxType {
 
 	private TaxType() {}
 
+	/**
+	 * 税区分(不変・全体で共有する)
+	 */
 	public final static class Tax {
-		public Integer id;
-		public Integer rate;
-		public Boolean taxIncluded;
-		public String rounding;
+		public final Integer id;
+		public final Integer rate;
+		public final Boolean taxIncluded;
+		public final String rounding;
+		public final RoundingMode roundingMode;
 
-		public Tax(Integer id, Integer rate, Boolean taxIncluded, String rounding) {
+		private Tax(Integer id, Integer rate, Boolean taxIncluded, String rounding) {
 			this.id = id;
 			this.rate = rate;
 			this.taxIncluded = taxIncluded;
 			this.rounding = rounding;
+			this.roundingMode = roundingMode(rounding);
 		}
 	}
 
-	public static List<Tax> get() {
+	/**
+	 * 全税区分(ID順)
+	 */
+	private static final List<Tax> TAXES;
+
+	/**
+	 * IDで引くための表(添字 = ID - 1)
+	 */
+	private static final Tax[] TAXES_BY_ID;
+
+	/**
+	 * 税率・税込み・端数処理で引くための表(添字 = packKey の値)
+	 */
+	private static final Tax[] TAXES_BY_KEY = new Tax[1 << 7];
+
+	static {
 		List<Tax> taxes = new ArrayList<>();
 		int[] rates = { RATE_0, RATE_8, RATE_10 };
 		boolean[] taxIncludeds = { false, true };
@@ -42,30 +64,61 @@ public final class TaxType {
 		for (int rate : rates) {
 			for (boolean taxIncluded : taxIncludeds) {
 				for (String rounding : roundings) {
-					taxes.add(new Tax(taxes.size() + 1, rate, taxIncluded, rounding));
+					Tax tax = new Tax(taxes.size() + 1, rate, taxIncluded, rounding);
+					taxes.add(tax);
+					TAXES_BY_KEY[packKey(rate, taxIncluded, rounding)] = tax;
 				}
 			}
 		}
-		return taxes;
+		TAXES = Collections.unmodifiableList(taxes);
+		TAXES_BY_ID = taxes.toArray(new Tax[0]);
+	}
+
+	public static List<Tax> get() {
+		return TAXES;
 	}
 
 	public static Tax get(Integer id) {
-		List<Tax> taxes = get();
-		for (Tax tax : taxes) {
-			if (tax.id.equals(id)) {
-				return tax;
-			}
+		if (id == null || id < 1 || id > TAXES_BY_ID.length) {
+			return null;
 		}
-		return null;
+		return TAXES_BY_ID[id - 1];
 	}
 
 	public static Tax get(Integer rate, Boolean taxIncluded, String rounding) {
-		List<Tax> taxes = get();
-		for (Tax tax : taxes) {
-			if (tax.rate.equals(rate) && tax.taxIncluded.equals(taxIncluded) && tax.rounding.equals(rounding)) {
-				return tax;
-			}
+		if (rate == null || taxIncluded == null || rounding == null) {
+			return null;
+		}
+		int key = packKey(rate, taxIncluded, rounding);
+		return key < 0 ? null : TAXES_BY_KEY[key];
+	}
+
+	/**
+	 * 端数処理を金額計算の丸めモードに変換する
+	 */
+	public static RoundingMode roundingMode(String rounding) {
+		return switch (rounding) {
+		case FLOOR -> RoundingMode.FLOOR;
+		case ROUND -> RoundingMode.HALF_UP;
+		case CEIL -> RoundingMode.CEILING;
+		default -> throw new IllegalArgumentException("Invalid rounding value: " + rounding);
+		};
+	}
+
+	/**
+	 * 税率(0〜15)・税込み・端数処理を1つの整数にまとめる
+	 * 対象外の値の場合は-1
+	 */
+	private static int packKey(int rate, boolean taxIncluded, String rounding) {
+		int roundingIndex = switch (rounding) {
+		case FLOOR -> 0;
+		case ROUND -> 1;
+		case CEIL -> 2;
+		default -> -1;
+		};
+		if (rate < 0 || rate > 15 || roundingIndex < 0) {
+			return -1;
 		}
-		return null;
+		return rate << 3 | (taxIncluded ? 1 << 2 : 0) | roundingIndex;
 	}
 }
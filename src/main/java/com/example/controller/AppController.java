@@ -1,10 +1,25 @@
 package com.example.controller;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.Optional;
 
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,24 +31,46 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.example.constants.Message;
+import com.example.entity.AppListRow;
+import com.example.entity.ListPage;
 import com.example.model.App;
+import com.example.service.AppImageService;
 import com.example.service.AppService;
 import com.example.utils.CheckUtil;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @Controller
 @RequestMapping("/apps")
 public class AppController {
 
+	// 画像ストアの画像をブラウザにキャッシュさせる期間
+	private static final Duration IMAGE_MAX_AGE = Duration.ofDays(365);
+
+	// Tomcat の sendfile 用のリクエスト属性
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
 	@Autowired
 	private AppService appService;
 
+	@Autowired
+	private AppImageService appImageService;
+
 	@GetMapping
-	public String index(Model model) {
-		List<App> all = appService.findAll();
-		model.addAttribute("listApp", all);
+	public String index(Model model, Pageable pageable) {
+		Page<AppListRow> page = appService.findListRows(pageable);
+		model.addAttribute("listApp", page.getContent());
+		model.addAttribute("page", ListPage.of(page));
 		return "app/index";
 	}
 
@@ -46,6 +83,75 @@ public class AppController {
 		return "app/show";
 	}
 
+	/**
+	 * 画像ストアに移行前の画像を返す(data URL をデコードして返す)
+	 * 移行済みの場合は画像ストアのURLにリダイレクトする
+	 * 画像を変更するとキーが変わるため、リダイレクトはブラウザにキャッシュさせない(301 にしない)
+	 */
+	@GetMapping("/{id}/image")
+	public ResponseEntity<byte[]> image(@PathVariable("id") Long id) {
+		Optional<String> key = appService.findImageKey(id);
+		if (key.isPresent()) {
+			return ResponseEntity.status(HttpStatus.FOUND)
+					.cacheControl(CacheControl.noCache())
+					.location(ServletUriComponentsBuilder.fromCurrentContextPath()
+							.path("/apps/images/{key}").buildAndExpand(key.get()).toUri())
+					.build();
+		}
+		String image = appService.findImage(id).orElse(null);
+		try {
+			byte[] body = appImageService.decodeDataUrl(image);
+			MediaType type = MediaType.parseMediaType(image.substring("data:".length(), image.indexOf(";base64")));
+			return ResponseEntity.ok().contentType(type).body(body);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+	/**
+	 * 画像ストアの画像を返す
+	 * キーは内容のハッシュで内容が変わらないため、ブラウザに長期間キャッシュさせ、ETag で再検証にも応える。
+	 * Tomcat の sendfile が使える場合はファイルの送信を Tomcat に任せ(FileChannel.transferTo でソケットに直接送る)、
+	 * 使えない場合も FileChannel.transferTo でレスポンスに書き出す。
+	 *
+	 * @param key  画像ストアのキー
+	 * @param size 表示サイズ(100 または 200、未指定の場合は元画像)
+	 */
+	@GetMapping("/images/{key}")
+	public void storedImage(@PathVariable("key") String key, @RequestParam(name = "size", required = false) Integer size,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Path file = appImageService.resolve(key, size).orElse(null);
+		if (file == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		String etag = "\"" + file.getFileName() + "\"";
+		response.setHeader(HttpHeaders.ETAG, etag);
+		response.setHeader(HttpHeaders.CACHE_CONTROL,
+				CacheControl.maxAge(IMAGE_MAX_AGE).cachePrivate().immutable().getHeaderValue());
+		if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		long length = Files.size(file);
+		response.setContentType(MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+		response.setContentLengthLong(length);
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START, 0L);
+			request.setAttribute(SENDFILE_END, length);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < length) {
+				position += channel.transferTo(position, length - position, out);
+			}
+		}
+	}
+
 	@GetMapping(value = "/new")
 	public String create(Model model, @ModelAttribute App entity) {
 		model.addAttribute("app", entity);
@@ -54,6 +160,7 @@ public class AppController {
 
 	@PostMapping
 	public String create(@Validated @ModelAttribute App entity, BindingResult result,
+			@RequestParam(name = "imageFile", required = false) MultipartFile imageFile,
 			RedirectAttributes redirectAttributes) {
 		App app = null;
 		try {
@@ -64,7 +171,7 @@ public class AppController {
 				return "redirect:/apps";
 			}
 
-			app = appService.save(entity);
+			app = appService.save(entity, imageFile);
 			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_INSERT);
 			return "redirect:/apps/" + app.getId();
 		} catch (Exception e) {
@@ -89,6 +196,7 @@ public class AppController {
 
 	@PutMapping
 	public String update(@Validated @ModelAttribute App entity, BindingResult result,
+			@RequestParam(name = "imageFile", required = false) MultipartFile imageFile,
 			RedirectAttributes redirectAttributes) {
 		App app = null;
 		try {
@@ -99,7 +207,7 @@ public class AppController {
 				return "redirect:/apps";
 			}
 
-			app = appService.save(entity);
+			app = appService.save(entity, imageFile);
 			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_UPDATE);
 			return "redirect:/apps/" + app.getId();
 		} catch (Exception e) {
@@ -12,6 +12,8 @@ import java.util.stream.Collectors;
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -26,8 +28,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.HtmlUtils;
 
 import com.example.constants.Message;
+import com.example.entity.BulkStatusUpdateResult;
+import com.example.entity.BulkStatusUpdateResult.Outcome;
+import com.example.entity.ImportResult;
+import com.example.entity.ListPage;
 import com.example.enums.CampaignStatus;
 import com.example.enums.DiscountType;
 import com.example.form.CampaignForm;
@@ -43,6 +50,9 @@ import jakarta.servlet.http.HttpServletResponse;
 @RequestMapping("/campaigns")
 public class CampaignController {
 
+	// CSVインポートのエラーを画面に表示する最大件数
+	private static final int IMPORT_ERROR_DISPLAY_LIMIT = 100;
+
 	@Autowired
 	private CampaignService campaignService;
 
@@ -54,12 +64,14 @@ public class CampaignController {
 	 *
 	 * @param model
 	 * @param form
+	 * @param pageable
 	 * @return
 	 */
 	@GetMapping
-	public String index(Model model, @ModelAttribute("form") CampaignForm form) {
-		List<Campaign> all = campaignService.findAll();
-		model.addAttribute("campaignList", all);
+	public String index(Model model, @ModelAttribute("form") CampaignForm form, Pageable pageable) {
+		Page<Campaign> page = campaignService.findPage(pageable);
+		model.addAttribute("campaignList", page.getContent());
+		model.addAttribute("page", ListPage.of(page));
 		model.addAttribute("form", form);
 		this.setCommonData(model);
 		return "campaign/index";
@@ -192,7 +204,12 @@ public class CampaignController {
 			return "redirect:/campaigns";
 		}
 		try {
-			campaignService.importCSV(uploadFile);
+			ImportResult importResult = campaignService.importCSV(uploadFile);
+			redirectAttributes.addFlashAttribute("success", String.format(Message.MSG_SUCESS_IMPORT,
+					importResult.getReadCount(), importResult.getWriteCount(), importResult.getErrorCount()));
+			if (importResult.getErrorCount() > 0) {
+				redirectAttributes.addFlashAttribute("error", this.makeImportErrorMessage(importResult));
+			}
 		} catch (Throwable e) {
 			redirectAttributes.addFlashAttribute("error", e.getMessage());
 			e.printStackTrace();
@@ -244,8 +261,13 @@ public class CampaignController {
 			return "redirect:/campaigns";
 		}
 		try {
-			campaignService.bulkStatusUpdate(form.getCheckedIdList(), form.getNextStatus());
-			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_UPDATE);
+			BulkStatusUpdateResult updateResult = campaignService.bulkStatusUpdate(form.getCheckedIdList(),
+					form.getNextStatus());
+			redirectAttributes.addFlashAttribute("success",
+					Message.MSG_SUCESS_UPDATE + " (" + updateResult.count(Outcome.UPDATED) + "件)");
+			if (!updateResult.getFailures().isEmpty()) {
+				redirectAttributes.addFlashAttribute("error", this.makeBulkStatusUpdateErrorMessage(updateResult));
+			}
 			return "redirect:/campaigns";
 		} catch (Exception e) {
 			redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -264,6 +286,36 @@ public class CampaignController {
 		model.addAttribute("typeList", DiscountType.values());
 	}
 
+	/**
+	 * CSVインポートのエラーメッセージを作成する
+	 * 表示するのは先頭から IMPORT_ERROR_DISPLAY_LIMIT 件まで
+	 *
+	 * @param importResult
+	 * @return
+	 */
+	private String makeImportErrorMessage(ImportResult importResult) {
+		List<String> errors = importResult.getErrors();
+		String message = errors.stream().limit(IMPORT_ERROR_DISPLAY_LIMIT).map(HtmlUtils::htmlEscape)
+				.collect(Collectors.joining("<br/>"));
+		if (errors.size() > IMPORT_ERROR_DISPLAY_LIMIT) {
+			message += "<br/>他 " + (errors.size() - IMPORT_ERROR_DISPLAY_LIMIT) + "件";
+		}
+		return message;
+	}
+
+	/**
+	 * 一括ステータス更新で更新できなかった対象のエラーメッセージを作成する
+	 *
+	 * @param updateResult
+	 * @return
+	 */
+	private String makeBulkStatusUpdateErrorMessage(BulkStatusUpdateResult updateResult) {
+		return updateResult.getFailures().stream()
+				.map(item -> HtmlUtils.htmlEscape(item.getName() != null ? item.getName() : "ID: " + item.getId())
+						+ ": " + item.getOutcome().getMessage())
+				.collect(Collectors.joining("<br/>"));
+	}
+
 	/**
 	 * エラーメッセージを作成する
 	 *
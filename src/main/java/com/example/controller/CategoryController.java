@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.constants.Message;
+import com.example.entity.CategorySummary;
 import com.example.model.Category;
 import com.example.service.CategoryService;
 import com.example.model.Product;
@@ -38,7 +39,7 @@ public class CategoryController {
 
 	@GetMapping
 	public String index(Model model) {
-		List<Category> all = categoryService.findAllOrderByDisplayOrder();
+		List<CategorySummary> all = categoryService.findListRows();
 		model.addAttribute("listCategory", all);
 		return "category/index";
 	}
@@ -46,7 +47,7 @@ public class CategoryController {
 	@GetMapping("/{id}")
 	public String show(Model model, @PathVariable("id") Long id) {
 		if (id != null) {
-			Optional<Category> category = categoryService.findOne(id);
+			Optional<Category> category = categoryService.findOneWithProducts(id);
 			model.addAttribute("category", category.get());
 		}
 		return "category/show";
@@ -139,7 +140,7 @@ public class CategoryController {
 			@RequestParam(name = "q", required = false) String q) {
 		if (id != null) {
 			List<Product> listProduct = productService.findAll();
-			Optional<Category> category = categoryService.findOne(id);
+			Optional<CategorySummary> category = categoryService.findSummary(id);
 			model.addAttribute("category", category.get());
 			model.addAttribute("products", listProduct);
 
@@ -1,10 +1,11 @@
 package com.example.controller;
 
-import java.util.List;
 import java.util.Optional;
 
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,11 +17,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.constants.Message;
+import com.example.entity.KeysetPage;
+import com.example.entity.ListPage;
+import com.example.entity.TransactionAmountRow;
+import com.example.entity.TransactionAmountSummary;
 import com.example.model.Company;
-import com.example.model.TransactionAmount;
+import com.example.service.CompanyBalanceService;
 import com.example.service.CompanyService;
 import com.example.service.TransactionAmountService;
 
@@ -32,17 +38,24 @@ public class CompanyController {
 	private CompanyService companyService;
 	@Autowired
 	private TransactionAmountService transactionAmountService;
+	@Autowired
+	private CompanyBalanceService companyBalanceService;
 
 	/**
 	 * 取引先情報の一覧表示
 	 *
 	 * @param model
+	 * @param pageable
 	 * @return
 	 */
 	@GetMapping
-	public String index(Model model) {
-		List<Company> all = companyService.findAll();
-		model.addAttribute("listCompany", all);
+	public String index(Model model, Pageable pageable) {
+		Page<Company> page = companyService.findPage(pageable);
+		model.addAttribute("listCompany", page.getContent());
+		model.addAttribute("page", ListPage.of(page));
+		// 収支残高は残高テーブルから表示中の取引先ごとに1行で取得する
+		model.addAttribute("balances",
+				companyBalanceService.findByCompanyIds(page.getContent().stream().map(Company::getId).toList()));
 		return "company/index";
 	}
 
@@ -54,21 +67,22 @@ public class CompanyController {
 	 * @return
 	 */
 	@GetMapping("/{id}")
-	public String show(Model model, @PathVariable("id") Long id, RedirectAttributes redirectAttributes) {
+	public String show(Model model, @PathVariable("id") Long id,
+			@RequestParam(name = "after", required = false) Long after, RedirectAttributes redirectAttributes) {
 		try {
 			if (id != null) {
 				Optional<Company> company = companyService.findOne(id);
-				List<TransactionAmount> listTAmounts = transactionAmountService.findByCompany(company.get());
+				// 取引金額は1ページ分だけ取得する(after は前ページの最終行のID)
+				KeysetPage<TransactionAmountRow> page = transactionAmountService.findPageByCompany(id, after);
 				model.addAttribute("company", company.get());
-				model.addAttribute("listTAmount", listTAmounts);
-
-				// 収支合計を取得
-				Integer tAmountsSum = transactionAmountService.getSumTransactionalAmounts(company.get());
-				model.addAttribute("tAmountsSum", tAmountsSum);
+				model.addAttribute("listTAmount", page.getContent());
+				model.addAttribute("page", page);
+				model.addAttribute("after", after);
 
-				// 収支比率を取得
-				Integer tAmountsRatio = transactionAmountService.getRatioTransactionalAmounts(company.get());
-				model.addAttribute("tAmountsRatio", tAmountsRatio);
+				// 収支合計・収支比率を取得
+				TransactionAmountSummary summary = transactionAmountService.getSummary(company.get());
+				model.addAttribute("tAmountsSum", summary.getSumInThousands());
+				model.addAttribute("tAmountsRatio", summary.getRatio());
 			}
 			return "company/show";
 		} catch (Exception e) {
@@ -4,15 +4,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.example.entity.Endpoint;
 import com.example.security.UrlRecordingFilter.UrlRecording;
+import com.example.service.EndpointCatalogService;
 
 import jakarta.servlet.http.HttpSession;
 
@@ -20,18 +21,12 @@ import jakarta.servlet.http.HttpSession;
 @RequestMapping("/")
 public class IndexController {
 	@Autowired
-	RequestMappingHandlerMapping requestMappingHandlerMapping;
+	private EndpointCatalogService endpointCatalogService;
 
 	@GetMapping
 	public String index(Model model, HttpSession session) {
-		List<String> list = this.requestMappingHandlerMapping.getHandlerMethods()
-				.entrySet().stream()
-				.filter(endpoint -> endpoint.getValue().toString().contains("index"))
-				.map(e -> e.getKey().toString().replace("{GET [", "").replace("]}", ""))
-				// 第一階層のみとして/が複数ある場合は除外する
-				.filter(endpoint -> endpoint.indexOf("/", 1) == -1)
-				.sorted().collect(Collectors.toList());
-		model.addAttribute("endpoints", list);
+		// 起動時に作成済みの一覧を表示する
+		model.addAttribute("endpoints", endpointCatalogService.findIndexEndpoints());
 
 		var urlRecordingAttribute = session.getAttribute("urlRecording");
 		if (urlRecordingAttribute instanceof UrlRecording) {
@@ -44,4 +39,13 @@ public class IndexController {
 		return "index";
 	}
 
+	/**
+	 * すべてのエンドポイントの一覧(JSON)
+	 */
+	@GetMapping("endpoints")
+	@ResponseBody
+	public List<Endpoint> endpoints() {
+		return endpointCatalogService.findAll();
+	}
+
 }
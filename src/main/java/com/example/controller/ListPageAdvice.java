@@ -0,0 +1,25 @@
+package com.example.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+/**
+ * 一覧画面のページャー(layout/pagination)で選択できる1ページの件数を画面に渡す
+ * 件数の上限は spring.data.web.pageable.max-page-size に合わせる
+ */
+@ControllerAdvice
+public class ListPageAdvice {
+
+	private static final List<Integer> SIZE_OPTIONS = List.of(20, 50, 100, 200);
+
+	@Value("${spring.data.web.pageable.max-page-size:2000}")
+	private int maxPageSize;
+
+	@ModelAttribute("pageSizes")
+	public List<Integer> pageSizes() {
+		return SIZE_OPTIONS.stream().filter(size -> size <= maxPageSize).toList();
+	}
+}
@@ -1,10 +1,15 @@
 package com.example.controller;
 
-import java.util.List;
 import java.util.Optional;
 
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,31 +21,57 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.HtmlUtils;
 
 import com.example.constants.Message;
+import com.example.entity.KeysetPage;
+import com.example.entity.OrderListRow;
 import com.example.enums.OrderStatus;
 import com.example.enums.PaymentMethod;
 import com.example.enums.PaymentStatus;
 import com.example.form.OrderForm;
+import com.example.form.OrderSearchForm;
+import com.example.json.FileImport;
+import com.example.model.FileImportInfo;
 import com.example.model.Order;
+import com.example.service.OrderDeliveryService;
+import com.example.service.OrderPaymentService;
 import com.example.service.OrderService;
 import com.example.service.ProductService;
 
+import jakarta.servlet.http.HttpSession;
+
 @Controller
 @RequestMapping("/orders")
 public class OrderController {
 
+	// 出荷CSVの読込時に発行したトークン(読み込んだユーザーのセッションからだけ更新できるようにする)
+	private static final String SHIPPING_TOKEN_ATTRIBUTE = "shippingToken";
+
 	@Autowired
 	private OrderService orderService;
 
 	@Autowired
 	private ProductService productService;
 
+	@Autowired
+	private OrderPaymentService orderPaymentService;
+
+	@Autowired
+	private OrderDeliveryService orderDeliveryService;
+
 	@GetMapping
-	public String index(Model model) {
-		List<Order> all = orderService.findAll();
-		model.addAttribute("listOrder", all);
+	public String index(Model model, @ModelAttribute OrderSearchForm request) {
+		KeysetPage<OrderListRow> page = orderService.search(request);
+		model.addAttribute("request", request);
+		model.addAttribute("listOrder", page.getContent());
+		model.addAttribute("page", page);
+		model.addAttribute("paymentStatus", PaymentStatus.values());
+		model.addAttribute("orderStatus", OrderStatus.values());
 		return "order/index";
 	}
 
@@ -69,6 +100,9 @@ public class OrderController {
 			order = orderService.create(entity);
 			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_INSERT);
 			return "redirect:/orders/" + order.getId();
+		} catch (IllegalArgumentException e) {
+			redirectAttributes.addFlashAttribute("error", HtmlUtils.htmlEscape(e.getMessage()));
+			return "redirect:/orders/new";
 		} catch (Exception e) {
 			redirectAttributes.addFlashAttribute("error", Message.MSG_ERROR);
 			e.printStackTrace();
@@ -135,4 +169,155 @@ public class OrderController {
 			return "redirect:/orders";
 		}
 	}
+
+	/**
+	 * 支払いCSVインポート処理
+	 *
+	 * @param csvFile
+	 * @param redirectAttributes
+	 * @return
+	 */
+	@PostMapping("/payments/upload_csv")
+	public String uploadPaymentCSVFile(@RequestParam("csv_file") MultipartFile csvFile,
+			RedirectAttributes redirectAttributes) {
+		if (csvFile.isEmpty()) {
+			// ファイルが存在しない場合
+			redirectAttributes.addFlashAttribute("error", "ファイルを選択してください。");
+			return "redirect:/orders";
+		}
+		if (!"text/csv".equals(csvFile.getContentType())) {
+			// CSVファイル以外の場合
+			redirectAttributes.addFlashAttribute("error", "CSVファイルを選択してください。");
+			return "redirect:/orders";
+		}
+
+		try {
+			FileImportInfo imp = orderPaymentService.importCSV(csvFile);
+			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_IMPORT_ACCEPTED);
+			redirectAttributes.addFlashAttribute("importId", imp.getId());
+		} catch (Throwable t) {
+			redirectAttributes.addFlashAttribute("error", t.getMessage());
+			t.printStackTrace();
+		}
+		return "redirect:/orders";
+	}
+
+	/**
+	 * 支払いCSVインポートの進捗取得
+	 *
+	 * @param id CSV取込親テーブルID
+	 * @return
+	 */
+	@GetMapping("/payments/imports/{id}")
+	@ResponseBody
+	public ResponseEntity<FileImport.StatusResponse> paymentImportStatus(@PathVariable("id") Long id) {
+		return orderPaymentService.findImport(id)
+				.map(imp -> ResponseEntity.ok(new FileImport.StatusResponse(imp)))
+				.orElse(ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * 支払いCSVインポートの結果ファイルダウンロード
+	 *
+	 * @param id CSV取込親テーブルID
+	 * @return
+	 */
+	@GetMapping("/payments/imports/{id}/result")
+	public ResponseEntity<Resource> paymentImportResult(@PathVariable("id") Long id) {
+		return orderPaymentService.findResultFile(id)
+				.<ResponseEntity<Resource>>map(path -> ResponseEntity.ok()
+						.contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+						.header(HttpHeaders.CONTENT_DISPOSITION,
+								"attachment; filename=order_payments_result_" + id + ".csv")
+						.body(new FileSystemResource(path)))
+				.orElse(ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * 一括発送画面
+	 *
+	 * @return
+	 */
+	@GetMapping("/shipping")
+	public String shipping() {
+		return "order/shipping";
+	}
+
+	/**
+	 * 出荷CSVの読込処理
+	 *
+	 * @param model
+	 * @param file
+	 * @param session
+	 * @return
+	 */
+	@PostMapping("/shipping")
+	public String uploadShippingCSV(Model model, @RequestParam("file") MultipartFile file, HttpSession session) {
+		if (file.isEmpty()) {
+			// ファイルが存在しない場合
+			model.addAttribute("error", "ファイルを選択してください。");
+			return "order/shipping";
+		}
+
+		try {
+			OrderForm.OrderShippingData data = orderDeliveryService.parseCSV(file);
+			if (!data.getValidationErrors().isEmpty()) {
+				model.addAttribute("validationError", data.getValidationErrors());
+			} else {
+				session.setAttribute(SHIPPING_TOKEN_ATTRIBUTE, data.getToken());
+				model.addAttribute("orderShippingData", data);
+			}
+		} catch (Exception e) {
+			model.addAttribute("error", HtmlUtils.htmlEscape(e.getMessage() != null ? e.getMessage() : Message.MSG_ERROR));
+			e.printStackTrace();
+		}
+		return "order/shipping";
+	}
+
+	/**
+	 * 選択した行の出荷情報更新処理
+	 *
+	 * @param model
+	 * @param token        読込時に発行したトークン
+	 * @param selectedRows 選択した行の添字(カンマ区切り、全行の場合は all)
+	 * @param session
+	 * @return
+	 */
+	@PutMapping("/shipping")
+	public String updateShipping(Model model, @RequestParam(name = "token", required = false) String token,
+			@RequestParam(name = "selectedRows", required = false) String selectedRows, HttpSession session) {
+		try {
+			if (token == null || !token.equals(session.getAttribute(SHIPPING_TOKEN_ATTRIBUTE))) {
+				throw new IllegalArgumentException("CSVを読み込んでください。");
+			}
+			session.removeAttribute(SHIPPING_TOKEN_ATTRIBUTE);
+			OrderForm.OrderShippingData data = orderDeliveryService.updateShipping(token, selectedRows);
+			long success = data.getOrderShippingList().stream()
+					.filter(row -> OrderDeliveryService.UPLOAD_SUCCESS.equals(row.getUploadStatus())).count();
+			long error = data.getOrderShippingList().stream()
+					.filter(row -> OrderDeliveryService.UPLOAD_ERROR.equals(row.getUploadStatus())).count();
+			model.addAttribute("orderShippingData", data);
+			model.addAttribute("success", String.format(Message.MSG_SUCESS_SHIPPING_UPDATE, success, error));
+		} catch (IllegalArgumentException e) {
+			model.addAttribute("error", HtmlUtils.htmlEscape(e.getMessage()));
+		} catch (Exception e) {
+			model.addAttribute("error", Message.MSG_ERROR);
+			e.printStackTrace();
+		}
+		return "order/shipping";
+	}
+
+	/**
+	 * 出荷CSVのテンプレートダウンロード
+	 *
+	 * @return
+	 */
+	@PostMapping("/shipping/download")
+	public ResponseEntity<Resource> downloadShippingTemplate() {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=order_shipping_" + System.currentTimeMillis() + ".csv")
+				.body(new ClassPathResource("static/templates/order_shipping.csv"));
+	}
 }
@@ -1,10 +1,11 @@
 package com.example.controller;
 
-import java.util.List;
 import java.util.Optional;
 
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.constants.Message;
+import com.example.entity.ListPage;
 import com.example.model.Shop;
 import com.example.service.ShopService;
 
@@ -31,13 +33,15 @@ public class ShopController {
 	private ShopService shopService;
 
 	@GetMapping
-	public String index(Model model, @RequestParam(name = "name", required = false) Optional<String> name) {
+	public String index(Model model, @RequestParam(name = "name", required = false) Optional<String> name,
+			Pageable pageable) {
 		Shop probe = new Shop();
 		if (name.isPresent()) {
 			probe.setName(name.get());
 		}
-		List<Shop> shops = shopService.findAll(probe);
-		model.addAttribute("listShop", shops);
+		Page<Shop> page = shopService.findPage(probe, pageable);
+		model.addAttribute("listShop", page.getContent());
+		model.addAttribute("page", ListPage.of(page));
 		model.addAttribute("name", name.isPresent() ? name.get() : null);
 		return "shop/index";
 	}
@@ -116,7 +120,7 @@ public class ShopController {
 	public String delete(@PathVariable("id") Long id, RedirectAttributes redirectAttributes) {
 		try {
 			if (id != null) {
-				Optional<Shop> entity = shopService.findOne(id);
+				Optional<Shop> entity = shopService.findOneForUpdate(id);
 				shopService.delete(entity.get());
 				redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_DELETE);
 			}
@@ -20,10 +20,11 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.constants.Message;
 import com.example.constants.TaxType;
+import com.example.entity.CategorySummary;
+import com.example.entity.KeysetPage;
 import com.example.entity.ProductWithCategoryName;
 import com.example.form.ProductForm;
 import com.example.form.ProductSearchForm;
-import com.example.model.Category;
 import com.example.model.Product;
 import com.example.service.CategoryService;
 import com.example.service.ProductService;
@@ -41,9 +42,10 @@ public class ShopProductController {
 
 	@GetMapping
 	public String index(Model model, @PathVariable("shopId") Long shopId, @ModelAttribute ProductSearchForm request) {
-		List<ProductWithCategoryName> all = productService.search(shopId, request);
-		List<Category> categories = categoryService.findAll();
-		model.addAttribute("listProduct", all);
+		KeysetPage<ProductWithCategoryName> page = productService.search(shopId, request);
+		List<CategorySummary> categories = categoryService.findAllSummaries();
+		model.addAttribute("listProduct", page.getContent());
+		model.addAttribute("page", page);
 		model.addAttribute("categories", categories);
 		model.addAttribute("request", request);
 		model.addAttribute("shopId", shopId);
@@ -53,8 +55,8 @@ public class ShopProductController {
 	@GetMapping("/{id}")
 	public String show(Model model, @PathVariable("shopId") Long shopId, @PathVariable("id") Long id) {
 		if (id != null) {
-			Optional<Product> product = productService.findOne(id);
-			List<Category> categories = categoryService.findAll();
+			Optional<Product> product = productService.findOneWithCategoryProducts(id);
+			List<CategorySummary> categories = categoryService.findAllSummaries();
 			model.addAttribute("categories", categories);
 			model.addAttribute("product", product.get());
 			model.addAttribute("tax", TaxType.get(product.get().getTaxType()));
@@ -65,7 +67,7 @@ public class ShopProductController {
 
 	@GetMapping(value = "/new")
 	public String create(Model model, @PathVariable("shopId") Long shopId, @ModelAttribute ProductForm productForm) {
-		List<Category> categories = categoryService.findAll();
+		List<CategorySummary> categories = categoryService.findAllSummaries();
 		model.addAttribute("categories", categories);
 		model.addAttribute("productForm", productForm);
 		model.addAttribute("shopId", shopId);
@@ -77,7 +79,7 @@ public class ShopProductController {
 			BindingResult result, RedirectAttributes redirectAttributes) {
 		// バリデーションチェック
 		if (result.hasErrors()) {
-			List<Category> categories = categoryService.findAll();
+			List<CategorySummary> categories = categoryService.findAllSummaries();
 			model.addAttribute("categories", categories);
 			model.addAttribute("productForm", productForm);
 			model.addAttribute("shopId", shopId);
@@ -100,8 +102,8 @@ public class ShopProductController {
 	public String update(Model model, @PathVariable("shopId") Long shopId, @PathVariable("id") Long id) {
 		try {
 			if (id != null) {
-				Optional<Product> entity = productService.findOne(id);
-				List<Category> categories = categoryService.findAll();
+				Optional<Product> entity = productService.findOneWithCategoryProducts(id);
+				List<CategorySummary> categories = categoryService.findAllSummaries();
 				model.addAttribute("categories", categories);
 				model.addAttribute("productForm", new ProductForm(entity.get()));
 				model.addAttribute("shopId", shopId);
@@ -118,7 +120,7 @@ public class ShopProductController {
 		System.out.append(Message.MSG_ERROR, 0, 0);
 		// バリデーションチェック
 		if (result.hasErrors()) {
-			List<Category> categories = categoryService.findAll();
+			List<CategorySummary> categories = categoryService.findAllSummaries();
 			model.addAttribute("categories", categories);
 			model.addAttribute("productForm", productForm);
 			model.addAttribute("shopId", shopId);
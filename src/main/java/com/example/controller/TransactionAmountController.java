@@ -10,6 +10,7 @@ import java.util.Optional;
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -22,11 +23,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.constants.Message;
+import com.example.json.FileImport;
 import com.example.model.Company;
+import com.example.model.FileImportInfo;
 import com.example.model.TransactionAmount;
 import com.example.service.CompanyService;
 import com.example.service.TransactionAmountService;
@@ -208,7 +212,9 @@ public class TransactionAmountController {
 
 		// csvファイルのインポート処理
 		try {
-			transactionAmountService.importCSV(csvFile, companyId);
+			FileImportInfo imp = transactionAmountService.importCSV(csvFile, companyId);
+			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_IMPORT_ACCEPTED);
+			redirectAttributes.addFlashAttribute("importId", imp.getId());
 		} catch (Throwable t) {
 			redirectAttributes.addFlashAttribute("error", t.getMessage());
 			t.printStackTrace();
@@ -218,6 +224,22 @@ public class TransactionAmountController {
 		return redirectUrl;
 	}
 
+	/**
+	 * 取引金額CSVインポートの進捗取得
+	 *
+	 * @param companyId
+	 * @param id        CSV取込親テーブルID
+	 * @return
+	 */
+	@GetMapping("/{c_id}/imports/{id}")
+	@ResponseBody
+	public ResponseEntity<FileImport.StatusResponse> importStatus(@PathVariable("c_id") Long companyId,
+			@PathVariable("id") Long id) {
+		return transactionAmountService.findImport(id, companyId)
+				.map(imp -> ResponseEntity.ok(new FileImport.StatusResponse(imp)))
+				.orElse(ResponseEntity.notFound().build());
+	}
+
 	/**
 	 * CSVテンプレートダウンロード処理
 	 *
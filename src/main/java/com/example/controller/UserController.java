@@ -1,10 +1,11 @@
 package com.example.controller;
 
-import java.util.List;
 import java.util.Optional;
 
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.constants.Message;
+import com.example.entity.ListPage;
 import com.example.form.UserSearchForm;
 import com.example.model.User;
 import com.example.service.UserService;
@@ -32,11 +34,13 @@ public class UserController {
 	private UserService userService;
 
 	@GetMapping
-	public String index(Model model, @ModelAttribute UserSearchForm request, Authentication authentication) {
+	public String index(Model model, @ModelAttribute UserSearchForm request, Authentication authentication,
+			Pageable pageable) {
 		boolean isAdmin = userService.isAdmin(authentication);
-		List<User> listUser = userService.search(request, isAdmin);
+		Page<User> page = userService.search(request, isAdmin, pageable);
 		model.addAttribute("request", request);
-		model.addAttribute("listUser", listUser);
+		model.addAttribute("listUser", page.getContent());
+		model.addAttribute("page", ListPage.of(page));
 		return "user/index";
 	}
 
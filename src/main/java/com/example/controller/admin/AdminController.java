@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -13,12 +16,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.constants.Message;
+import com.example.service.CompanyBalanceService;
+
 import jakarta.servlet.http.HttpServletResponse;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
+	@Autowired
+	private CompanyBalanceService companyBalanceService;
+
 	@GetMapping
 	public String index(Model model, Authentication authentication) {
 		return "admin/index";
@@ -48,4 +57,35 @@ public class AdminController {
 		}
 		return null;
 	}
+
+	/**
+	 * 取引先残高の検証処理
+	 * 残高テーブルと取引金額の集計結果がずれている取引先を表示する
+	 *
+	 * @param redirectAttributes
+	 * @return
+	 */
+	@PostMapping("/companyBalances/verify")
+	public String verifyCompanyBalances(RedirectAttributes redirectAttributes) {
+		List<Long> drifted = companyBalanceService.verify();
+		if (drifted.isEmpty()) {
+			redirectAttributes.addFlashAttribute("success", Message.MSG_SUCESS_BALANCE_VERIFY);
+		} else {
+			redirectAttributes.addFlashAttribute("error", String.format(Message.MSG_ERROR_BALANCE_DRIFT, drifted));
+		}
+		return "redirect:/admin";
+	}
+
+	/**
+	 * 取引先残高の再構築処理
+	 *
+	 * @param redirectAttributes
+	 * @return
+	 */
+	@PostMapping("/companyBalances/rebuild")
+	public String rebuildCompanyBalances(RedirectAttributes redirectAttributes) {
+		int count = companyBalanceService.rebuild();
+		redirectAttributes.addFlashAttribute("success", String.format(Message.MSG_SUCESS_BALANCE_REBUILD, count));
+		return "redirect:/admin";
+	}
 }
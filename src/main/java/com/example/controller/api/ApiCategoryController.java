@@ -1,7 +1,9 @@
 package com.example.controller.api;
 
 import com.example.service.CategoryService;
-import com.example.model.Category;
+import com.example.constants.Message;
+import com.example.entity.CategorySummary;
+import com.example.entity.RelinkResult;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -24,25 +26,34 @@ public class ApiCategoryController {
 	private CategoryService categoryService;
 
 	@GetMapping("/all")
-	List<Category> findAll() {
-		return categoryService.findAll();
+	List<CategorySummary> findAll() {
+		return categoryService.findAllSummaries();
 	}
 
 	@GetMapping("/{id}")
-	Optional<Category> findOne(@PathVariable("id") Long id) {
-		Optional<Category> category = categoryService.findOne(id);
+	Optional<CategorySummary> findOne(@PathVariable("id") Long id) {
+		Optional<CategorySummary> category = categoryService.findSummary(id);
 		return category;
 	}
 
+	/**
+	 * カテゴリーに紐づく商品IDの一覧
+	 */
+	@GetMapping("/{id}/productIds")
+	List<Long> findProductIds(@PathVariable("id") Long id) {
+		return categoryService.findProductIds(id);
+	}
+
 	@PostMapping("/{id}/updateCategoryProduct")
-	public ResponseEntity<String> deleteInsertCategoryProduct(@PathVariable("id") Long categoryId,
+	public ResponseEntity<String> relinkProducts(@PathVariable("id") Long categoryId,
 			@RequestBody Map<String, List<Long>> request) {
 		List<Long> productIds = request.get("productIds");
-		boolean result = categoryService.deleteInsertCategoryProduct(categoryId, productIds);
-		if (result) {
-			return ResponseEntity.ok("カテゴリーと商品の紐付設定更新を完了しました。");
-		} else {
-			return ResponseEntity.badRequest().body("カテゴリーと商品の紐付設定更新に失敗しました。");
+		try {
+			RelinkResult result = categoryService.relinkProducts(categoryId, productIds);
+			return ResponseEntity.ok(String.format(Message.MSG_SUCESS_CATEGORY_PRODUCT_RELINK,
+					result.getAdded(), result.getRemoved()));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Message.MSG_ERROR_CATEGORY_PRODUCT_RELINK + e.getMessage());
 		}
 	}
 
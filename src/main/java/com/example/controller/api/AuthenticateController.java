@@ -1,13 +1,10 @@
 package com.example.controller.api;
 
-import java.time.OffsetDateTime;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.ErrorResponseException;
@@ -20,13 +17,9 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
-import com.auth0.jwt.exceptions.JWTVerificationException;
-import com.auth0.jwt.interfaces.DecodedJWT;
-import com.auth0.jwt.interfaces.JWTVerifier;
 import com.example.json.api.Authenticate;
 import com.example.model.User;
+import com.example.service.JwtTokenService;
 import com.example.service.UserService;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -34,12 +27,15 @@ import jakarta.servlet.http.HttpServletRequest;
 @RestController
 @RequestMapping("/api/authenticate")
 public class AuthenticateController {
-	@Value("${jwt.secret}")
-	private String secretKey;
-
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private JwtTokenService jwtTokenService;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
 	/**
 	 * requestBodyからemailでUserを検索 Userが存在しない場合はエラー Userが存在する場合はパスワードを比較
 	 * パスワードが一致しない場合はエラー パスワードが一致する場合はJWTを生成して返す
@@ -54,12 +50,15 @@ public class AuthenticateController {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found");
 		}
 		// Userが存在する場合はパスワードを比較
-		PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
 		if (!passwordEncoder.matches(requestBody.getPassword(), user.get().getPassword())) {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password is not correct");
 		}
+		// 既定の形式でハッシュ化されていない場合は、既定の形式に移行する
+		if (passwordEncoder.upgradeEncoding(user.get().getPassword())) {
+			userService.upgradePassword(user.get().getEmail(), passwordEncoder.encode(requestBody.getPassword()));
+		}
 		// パスワードが一致する場合はJWTを生成して返す
-		return new Authenticate.Response(generateToken(user.get()));
+		return new Authenticate.Response(jwtTokenService.generate(user.get()));
 	}
 
 	@GetMapping("/verifyToken")
@@ -67,38 +66,30 @@ public class AuthenticateController {
 		// AuthorizationヘッダーからBearerトークンを取得
 		String token = request.getHeader("Authorization").replace("Bearer ", "");
 		// JWTの検証
-		verifyToken(token);
+		jwtTokenService.verify(token);
 		return new Authenticate.VerifyTokenResponse("OK");
 	}
 
-	@ExceptionHandler(Exception.class)
-	public ErrorResponse handleException(Exception exception) {
-		return new ErrorResponseException(HttpStatus.BAD_REQUEST, exception);
-	}
-
 	/**
-	 * JWTの生成
+	 * AuthorizationヘッダーのBearerトークンを失効させる(以降のAPIの呼び出しは401になる)
 	 */
-	private String generateToken(User user) {
-		Algorithm alg = Algorithm.HMAC256(secretKey);
-		String token = JWT.create().withIssuer("HmacJwtProducer").withSubject(user.getName())
-				.withExpiresAt(OffsetDateTime.now().plusMinutes(60).toInstant()).withIssuedAt(OffsetDateTime.now().toInstant())
-				.withJWTId(UUID.randomUUID().toString()).withClaim("email", user.getEmail())
-				.withArrayClaim("groups", new String[] { "member", "admin" }).sign(alg);
-		return token;
+	@PostMapping("/revoke")
+	public Authenticate.VerifyTokenResponse revokeToken(HttpServletRequest request) {
+		String token = request.getHeader("Authorization").replace("Bearer ", "");
+		jwtTokenService.revoke(jwtTokenService.verify(token));
+		return new Authenticate.VerifyTokenResponse("OK");
 	}
 
 	/**
-	 * JWTの検証
+	 * パスワードの照合が混み合っている場合
 	 */
-	private DecodedJWT verifyToken(String token) {
-		Algorithm alg = Algorithm.HMAC256(secretKey);
-		JWTVerifier verifier = JWT.require(alg).withIssuer("HmacJwtProducer").acceptExpiresAt(5).build();
-		try {
-			return verifier.verify(token);
-		} catch (JWTVerificationException e) {
-			System.out.println("JWT verification failed..");
-			throw e;
-		}
+	@ExceptionHandler(AuthenticationServiceException.class)
+	public ErrorResponse handleAuthenticationServiceException(AuthenticationServiceException exception) {
+		return new ErrorResponseException(HttpStatus.SERVICE_UNAVAILABLE, exception);
+	}
+
+	@ExceptionHandler(Exception.class)
+	public ErrorResponse handleException(Exception exception) {
+		return new ErrorResponseException(HttpStatus.BAD_REQUEST, exception);
 	}
 }
@@ -0,0 +1,31 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * アプリ一覧の1行
+ * 移行前の画像(base64のTEXTカラム)は読み込まず、有無だけを持つ(画像は /apps/{id}/image で個別に取得する)
+ */
+@Getter
+@AllArgsConstructor
+public class AppListRow {
+
+	private final Long id;
+
+	private final String name;
+
+	private final String url;
+
+	private final String developer;
+
+	private final String description;
+
+	// 画像ストアのキー
+	private final String imageKey;
+
+	// 画像ストアに移行前の画像があるか
+	private final Boolean hasLegacyImage;
+
+	private final Boolean active;
+}
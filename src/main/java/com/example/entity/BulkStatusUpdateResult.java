@@ -0,0 +1,56 @@
+package com.example.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一括ステータス更新の結果
+ */
+@Getter
+public class BulkStatusUpdateResult {
+
+	/**
+	 * 更新結果の種別
+	 */
+	@Getter
+	@AllArgsConstructor
+	public enum Outcome {
+		UPDATED("更新しました"),
+		UNCHANGED("ステータスの変更がありません"),
+		INVALID_TRANSITION("現在のステータスからは変更できません"),
+		NOT_FOUND("対象が見つかりません");
+
+		private final String message;
+	}
+
+	/**
+	 * 対象ごとの更新結果
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class Item {
+		private final Long id;
+		private final String name;
+		private final Outcome outcome;
+	}
+
+	private final List<Item> items = new ArrayList<>();
+
+	public void add(Long id, String name, Outcome outcome) {
+		items.add(new Item(id, name, outcome));
+	}
+
+	public long count(Outcome outcome) {
+		return items.stream().filter(item -> item.getOutcome() == outcome).count();
+	}
+
+	/**
+	 * 更新できなかった対象
+	 */
+	public List<Item> getFailures() {
+		return items.stream().filter(item -> item.getOutcome() != Outcome.UPDATED).toList();
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Getter;
+
+/**
+ * カテゴリーの一覧・選択肢に使う項目と紐づく商品数
+ * 紐付けや商品のエンティティは読み込まない
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CategorySummary {
+
+	private final Long id;
+
+	private final String name;
+
+	private final String code;
+
+	private final Integer displayOrder;
+
+	// 紐づく商品数
+	private final long productCount;
+
+	// 説明(画面表示用の取得時のみ)
+	private final String description;
+
+	public CategorySummary(Long id, String name, String code, Integer displayOrder, Long productCount) {
+		this(id, name, code, displayOrder, productCount, null);
+	}
+
+	public CategorySummary(Long id, String name, String code, Integer displayOrder, Long productCount,
+			String description) {
+		this.id = id;
+		this.name = name;
+		this.code = code;
+		this.displayOrder = displayOrder;
+		this.productCount = productCount != null ? productCount : 0L;
+		this.description = description;
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 画面・APIのエンドポイント(トップページと /endpoints で使用)
+ */
+@Getter
+@AllArgsConstructor
+public class Endpoint {
+
+	private final String path;
+
+	// HTTPメソッド(メソッドの指定がないものは "*")
+	private final String method;
+
+	// 処理するコントローラーのメソッド(ShopController#index など)
+	private final String handler;
+}
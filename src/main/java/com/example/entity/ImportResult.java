@@ -0,0 +1,34 @@
+package com.example.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * CSV取込の結果
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportResult {
+
+	// 読込件数(ヘッダー行を除く)
+	private int readCount;
+
+	// 登録件数
+	private int writeCount;
+
+	// 行ごとのエラーメッセージ
+	private List<String> errors = new ArrayList<>();
+
+	public void addError(long line, String message) {
+		errors.add(line + "行目: " + message);
+	}
+
+	public int getErrorCount() {
+		return errors.size();
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.entity;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * キーセット(シーク)方式のページング結果
+ * 1件多く取得して次ページの有無を判定する
+ */
+@Getter
+public class KeysetPage<T> {
+
+	private final List<T> content;
+
+	private final boolean hasNext;
+
+	private KeysetPage(List<T> content, boolean hasNext) {
+		this.content = content;
+		this.hasNext = hasNext;
+	}
+
+	/**
+	 * ページ件数+1件で取得した結果からページを作成する
+	 *
+	 * @param fetched
+	 * @param size
+	 * @return KeysetPage
+	 */
+	public static <T> KeysetPage<T> of(List<T> fetched, int size) {
+		if (fetched.size() > size) {
+			return new KeysetPage<>(fetched.subList(0, size), true);
+		}
+		return new KeysetPage<>(fetched, false);
+	}
+
+	/**
+	 * ページの最終行(次ページのカーソル)
+	 */
+	public T getLast() {
+		return content.isEmpty() ? null : content.get(content.size() - 1);
+	}
+}
@@ -0,0 +1,138 @@
+package com.example.entity;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * 一覧画面のページング結果(ページ番号方式)
+ * 検索条件などのクエリパラメータを引き継いだページ・並び順・件数のリンクを作成できる(layout/pagination で使用)
+ */
+public class ListPage<T> {
+
+	// ページ番号のリンクを表示する数
+	private static final int WINDOW = 5;
+
+	private final Page<T> page;
+
+	private final String uri;
+
+	private ListPage(Page<T> page, String uri) {
+		this.page = page;
+		this.uri = uri;
+	}
+
+	/**
+	 * 現在のリクエストのURLを元にページを作成する
+	 *
+	 * @param page
+	 * @return ListPage
+	 */
+	public static <T> ListPage<T> of(Page<T> page) {
+		String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+				.scheme(null).host(null).port(null)
+				.build().toUriString();
+		return new ListPage<>(page, uri);
+	}
+
+	public List<T> getContent() {
+		return page.getContent();
+	}
+
+	// 0始まりのページ番号
+	public int getNumber() {
+		return page.getNumber();
+	}
+
+	public int getSize() {
+		return page.getSize();
+	}
+
+	public int getTotalPages() {
+		return page.getTotalPages();
+	}
+
+	public long getTotalElements() {
+		return page.getTotalElements();
+	}
+
+	public boolean isFirst() {
+		return page.isFirst();
+	}
+
+	public boolean isLast() {
+		return page.isLast();
+	}
+
+	/**
+	 * 表示中の行が全体の何件目からか(1始まり、0件の場合は0)
+	 */
+	public long getFrom() {
+		return page.getNumberOfElements() == 0 ? 0 : page.getPageable().getOffset() + 1;
+	}
+
+	public long getTo() {
+		return page.getNumberOfElements() == 0 ? 0 : page.getPageable().getOffset() + page.getNumberOfElements();
+	}
+
+	/**
+	 * 現在のページの前後にリンクを表示するページ番号(0始まり)
+	 */
+	public List<Integer> getPageNumbers() {
+		int total = page.getTotalPages();
+		int start = Math.max(0, Math.min(page.getNumber() - WINDOW / 2, total - WINDOW));
+		int end = Math.min(total, start + WINDOW);
+		return IntStream.range(start, end).boxed().toList();
+	}
+
+	/**
+	 * 指定したページへのURL
+	 */
+	public String url(int number) {
+		return UriComponentsBuilder.fromUriString(uri)
+				.replaceQueryParam("page", Math.max(0, number))
+				.build().toUriString();
+	}
+
+	/**
+	 * 1ページの件数を変更するURL(先頭ページに戻す)
+	 */
+	public String sizeUrl(int size) {
+		return UriComponentsBuilder.fromUriString(uri)
+				.replaceQueryParam("page")
+				.replaceQueryParam("size", size)
+				.build().toUriString();
+	}
+
+	/**
+	 * 指定した項目で並び替えるURL(同じ項目で昇順の場合は降順にする。先頭ページに戻す)
+	 */
+	public String sortUrl(String property) {
+		Sort.Direction direction = this.isSortedBy(property, Sort.Direction.ASC) ? Sort.Direction.DESC
+				: Sort.Direction.ASC;
+		return UriComponentsBuilder.fromUriString(uri)
+				.replaceQueryParam("page")
+				.replaceQueryParam("sort", property + "," + direction.name().toLowerCase())
+				.build().toUriString();
+	}
+
+	/**
+	 * 見出しに表示する並び順の矢印(指定した項目で並んでいない場合は空文字)
+	 */
+	public String sortMark(String property) {
+		Sort.Order order = page.getSort().getOrderFor(property);
+		if (order == null) {
+			return "";
+		}
+		return order.isAscending() ? "▲" : "▼";
+	}
+
+	private boolean isSortedBy(String property, Sort.Direction direction) {
+		Sort.Order order = page.getSort().getOrderFor(property);
+		return order != null && order.getDirection() == direction;
+	}
+}
@@ -0,0 +1,18 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 受注一覧に表示する受注商品(商品名・個数)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderListProduct {
+
+	private Long orderId;
+
+	private String name;
+
+	private Integer quantity;
+}
@@ -0,0 +1,100 @@
+package com.example.entity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.enums.OrderStatus;
+import com.example.enums.PaymentMethod;
+import com.example.enums.PaymentStatus;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 受注一覧の1行(一覧表示に必要な項目のみ)
+ */
+@Getter
+@Setter
+public class OrderListRow {
+
+	private Long id;
+
+	private Integer customerId;
+
+	private String status;
+
+	private BigDecimal total;
+
+	private BigDecimal tax;
+
+	private BigDecimal discount;
+
+	private BigDecimal shipping;
+
+	private BigDecimal grandTotal;
+
+	private BigDecimal paid;
+
+	private String paymentMethod;
+
+	private String paymentStatus;
+
+	private String note;
+
+	private Timestamp createAt;
+
+	private List<OrderListProduct> orderProducts = new ArrayList<>();
+
+	public OrderListRow(Long id, Integer customerId, String status, BigDecimal total, BigDecimal tax,
+			BigDecimal discount, BigDecimal shipping, BigDecimal grandTotal, BigDecimal paid, String paymentMethod, String paymentStatus, String note,
+			Timestamp createAt) {
+		this.setId(id);
+		this.setCustomerId(customerId);
+		this.setStatus(status);
+		this.setTotal(total);
+		this.setTax(tax);
+		this.setDiscount(discount);
+		this.setShipping(shipping);
+		this.setGrandTotal(grandTotal);
+		this.setPaid(paid);
+		this.setPaymentMethod(paymentMethod);
+		this.setPaymentStatus(paymentStatus);
+		this.setNote(note);
+		this.setCreateAt(createAt);
+	}
+
+	/**
+	 * 支払い方法名を取得する
+	 */
+	public String getPaymentMethodName() {
+		var value = PaymentMethod.getPaymentMethod(this.paymentMethod);
+		if (value != null) {
+			return value.getName();
+		}
+		return "";
+	}
+
+	/**
+	 * 支払いステータス名を取得する
+	 */
+	public String getPaymentStatusName() {
+		var value = PaymentStatus.getPaymentStatus(this.paymentStatus);
+		if (value != null) {
+			return value.getName();
+		}
+		return "";
+	}
+
+	/**
+	 * ステータスを取得する
+	 */
+	public String getStatusName() {
+		var value = OrderStatus.getOrderStatus(this.status);
+		if (value != null) {
+			return value.getName();
+		}
+		return "";
+	}
+}
@@ -0,0 +1,18 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 商品一覧に表示する商品のカテゴリー名
+ */
+@Getter
+@AllArgsConstructor
+public class ProductCategoryName {
+
+	private Long productId;
+
+	private Long categoryId;
+
+	private String name;
+}
@@ -1,5 +1,8 @@
 package com.example.entity;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -21,15 +24,22 @@ public class ProductWithCategoryName {
 
 	private Integer price;
 
-	private String categoryName;
+	// 紐づくカテゴリー名(カテゴリーID順)
+	private List<String> categoryNames = new ArrayList<>();
 
-	public ProductWithCategoryName(Long id, String code, String name, Integer weight, Integer height, Integer price, String categoryName) {
+	public ProductWithCategoryName(Long id, String code, String name, Integer weight, Integer height, Integer price) {
 		this.setId(id);
 		this.setCode(code);
 		this.setName(name);
 		this.setWeight(weight);
 		this.setHeight(height);
 		this.setPrice(price);
-		this.setCategoryName(categoryName);
+	}
+
+	/**
+	 * カテゴリー名をカンマ区切りで返す
+	 */
+	public String getCategoryName() {
+		return String.join(", ", categoryNames);
 	}
 }
@@ -0,0 +1,28 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 紐付けの差分更新の結果
+ */
+@Getter
+@AllArgsConstructor
+public class RelinkResult {
+
+	// 追加した紐付けの件数
+	private final int added;
+
+	// 削除した紐付けの件数
+	private final int removed;
+
+	// 変更がなかった紐付けの件数
+	private final int unchanged;
+
+	/**
+	 * 変更があったか
+	 */
+	public boolean isChanged() {
+		return added > 0 || removed > 0;
+	}
+}
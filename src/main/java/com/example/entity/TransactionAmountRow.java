@@ -0,0 +1,26 @@
+package com.example.entity;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 取引先詳細の取引金額一覧の1行(一覧表示に必要な項目のみ)
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionAmountRow {
+
+	private final Long id;
+
+	private final Boolean plusMinus;
+
+	private final Integer price;
+
+	private final Date dueDate;
+
+	private final Boolean hasPaid;
+
+	private final String memo;
+}
@@ -0,0 +1,54 @@
+package com.example.entity;
+
+import lombok.Getter;
+
+/**
+ * 取引先ごとの取引金額の集計結果
+ */
+@Getter
+public class TransactionAmountSummary {
+
+	private final Long companyId;
+
+	// 収入合計
+	private final long incomeSum;
+
+	// 支出合計
+	private final long expenseSum;
+
+	// 件数
+	private final long count;
+
+	public TransactionAmountSummary(Long companyId, Long incomeSum, Long expenseSum, Long count) {
+		this.companyId = companyId;
+		this.incomeSum = incomeSum != null ? incomeSum : 0L;
+		this.expenseSum = expenseSum != null ? expenseSum : 0L;
+		this.count = count != null ? count : 0L;
+	}
+
+	/**
+	 * 取引が1件もない場合の集計結果
+	 */
+	public static TransactionAmountSummary empty(Long companyId) {
+		return new TransactionAmountSummary(companyId, 0L, 0L, 0L);
+	}
+
+	/**
+	 * 収支合計を千円単位で返す(1000で割って四捨五入)
+	 */
+	public Integer getSumInThousands() {
+		return (int)Math.round((double)(incomeSum - expenseSum) / 1000);
+	}
+
+	/**
+	 * 収入と支出の合計に対する収入の比率を%で返す
+	 * 取引がない場合は0
+	 */
+	public Integer getRatio() {
+		long total = incomeSum + expenseSum;
+		if (total == 0) {
+			return 0;
+		}
+		return (int)Math.round((double)incomeSum * 100 / total);
+	}
+}
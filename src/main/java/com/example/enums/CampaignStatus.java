@@ -1,5 +1,11 @@
 package com.example.enums;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum CampaignStatus {
 	Pending(0, "保留"),
 	Eligible(1, "有効"),
@@ -10,11 +16,50 @@ public enum CampaignStatus {
 	private final int id;
 	private final String name;
 
+	/**
+	 * ステータス遷移表(遷移前 -> 遷移可能なステータス)
+	 */
+	private static final Map<CampaignStatus, Set<CampaignStatus>> TRANSITIONS = new EnumMap<>(CampaignStatus.class);
+
+	static {
+		TRANSITIONS.put(Pending, Collections.unmodifiableSet(EnumSet.of(Eligible, Paused, Removed)));
+		TRANSITIONS.put(Eligible, Collections.unmodifiableSet(EnumSet.of(Paused, Removed, Ended)));
+		TRANSITIONS.put(Paused, Collections.unmodifiableSet(EnumSet.of(Eligible, Removed, Ended)));
+		TRANSITIONS.put(Removed, Collections.unmodifiableSet(EnumSet.of(Pending)));
+		TRANSITIONS.put(Ended, Collections.unmodifiableSet(EnumSet.of(Removed)));
+	}
+
 	private CampaignStatus(int id, String name) {
 		this.id = id;
 		this.name = name;
 	}
 
+	/**
+	 * 指定したステータスへ遷移可能か
+	 *
+	 * @param next 遷移後ステータス
+	 * @return boolean
+	 */
+	public boolean canTransitionTo(CampaignStatus next) {
+		return TRANSITIONS.get(this).contains(next);
+	}
+
+	/**
+	 * 指定したステータスへ遷移可能な遷移前ステータスを返す
+	 *
+	 * @param next 遷移後ステータス
+	 * @return Set<CampaignStatus>
+	 */
+	public static Set<CampaignStatus> transitionSourcesOf(CampaignStatus next) {
+		Set<CampaignStatus> sources = EnumSet.noneOf(CampaignStatus.class);
+		for (CampaignStatus status : values()) {
+			if (status.canTransitionTo(next)) {
+				sources.add(status);
+			}
+		}
+		return sources;
+	}
+
 	public static CampaignStatus valueOf(int id) {
 		for (CampaignStatus status : values()) {
 			if (status.getId() == id) {
@@ -1,5 +1,7 @@
 package com.example.form;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.sql.Timestamp;
 
@@ -17,7 +19,7 @@ public class OrderForm {
 
 		private Integer quantity = 1;
 
-		private Double discount = 0.0;
+		private BigDecimal discount = BigDecimal.ZERO;
 	}
 
 	@Setter
@@ -27,7 +29,7 @@ public class OrderForm {
 
 		private Integer customerId;
 
-		private Double shipping = 0.0;
+		private BigDecimal shipping = BigDecimal.ZERO;
 
 		private String note;
 
@@ -43,7 +45,7 @@ public class OrderForm {
 
 		private Long id;
 
-		private Double shipping;
+		private BigDecimal shipping;
 
 		private String note;
 
@@ -85,10 +87,45 @@ public class OrderForm {
 
 		private String type;
 
-		private Double paid;
+		private BigDecimal paid;
 
 		private Timestamp paidAt;
 
 		private String method;
 	}
+
+	@Setter
+	@Getter
+	@NoArgsConstructor
+	public static class OrderShipping {
+		// CSVの行番号
+		private Long line;
+
+		private Long orderId;
+
+		private String shippingCode;
+
+		private String shippingDate;
+
+		private String deliveryDate;
+
+		private String deliveryTimezone;
+
+		// 更新結果(success / error)
+		private String uploadStatus;
+
+		private String uploadMessage;
+	}
+
+	@Setter
+	@Getter
+	@NoArgsConstructor
+	public static class OrderShippingData {
+		// 読込済みCSVの識別子(更新時に指定する)
+		private String token;
+
+		private List<OrderShipping> orderShippingList = new ArrayList<>();
+
+		private List<String> validationErrors = new ArrayList<>();
+	}
 }
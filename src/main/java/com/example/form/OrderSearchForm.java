@@ -0,0 +1,36 @@
+package com.example.form;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class OrderSearchForm {
+	public static final int DEFAULT_SIZE = 50;
+	public static final int MAX_SIZE = 200;
+
+	private String status;
+	private String paymentStatus;
+	private Integer customerId;
+	// 前ページ最終行の作成日時(エポックミリ秒)とID
+	private Long afterCreateAt;
+	private Long afterId;
+	private Integer size;
+
+	/**
+	 * 1ページの件数を取得する(未指定・範囲外の場合は補正する)
+	 */
+	public int getPageSize() {
+		if (size == null || size <= 0) {
+			return DEFAULT_SIZE;
+		}
+		return Math.min(size, MAX_SIZE);
+	}
+
+	/**
+	 * 2ページ目以降か
+	 */
+	public boolean hasCursor() {
+		return afterCreateAt != null && afterId != null;
+	}
+}
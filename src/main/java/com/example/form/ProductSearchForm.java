@@ -8,6 +8,9 @@ import lombok.Setter;
 @Setter
 @Getter
 public class ProductSearchForm {
+	public static final int DEFAULT_SIZE = 50;
+	public static final int MAX_SIZE = 200;
+
 	private String name;
 	private String code;
 	private List<Long> categories;
@@ -17,6 +20,9 @@ public class ProductSearchForm {
 	private Integer height2;
 	private Double price1;
 	private Double price2;
+	// 前ページ最終行の商品ID
+	private Long afterId;
+	private Integer size;
 
 	public ProductSearchForm(String name, String code, List<Long> categories, Integer weight1, Integer weight2, Integer height1, Integer height2, Double price1, Double price2) {
 		this.setName(name);
@@ -29,4 +35,21 @@ public class ProductSearchForm {
 		this.setPrice1(price1);
 		this.setPrice2(price2);
 	}
+
+	/**
+	 * 1ページの件数を取得する(未指定・範囲外の場合は補正する)
+	 */
+	public int getPageSize() {
+		if (size == null || size <= 0) {
+			return DEFAULT_SIZE;
+		}
+		return Math.min(size, MAX_SIZE);
+	}
+
+	/**
+	 * 2ページ目以降か
+	 */
+	public boolean hasCursor() {
+		return afterId != null;
+	}
 }
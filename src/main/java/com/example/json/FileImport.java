@@ -0,0 +1,61 @@
+package com.example.json;
+
+import java.time.LocalDateTime;
+
+import com.example.model.FileImportInfo;
+
+public class FileImport {
+	public static class StatusResponse {
+		private Long id;
+		private Integer status;
+		private String statusName;
+		private Integer readCount;
+		private Integer writeCount;
+		private Integer errorCount;
+		private LocalDateTime startDatetime;
+		private LocalDateTime endDatetime;
+
+		public StatusResponse(FileImportInfo imp) {
+			this.id = imp.getId();
+			this.status = imp.getStatus().getCode();
+			this.statusName = imp.getStatus().getValue();
+			this.readCount = imp.getReadCount();
+			this.writeCount = imp.getWriteCount();
+			this.errorCount = imp.getErrorCount();
+			this.startDatetime = imp.getStartDatetime();
+			this.endDatetime = imp.getEndDatetime();
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public Integer getStatus() {
+			return status;
+		}
+
+		public String getStatusName() {
+			return statusName;
+		}
+
+		public Integer getReadCount() {
+			return readCount;
+		}
+
+		public Integer getWriteCount() {
+			return writeCount;
+		}
+
+		public Integer getErrorCount() {
+			return errorCount;
+		}
+
+		public LocalDateTime getStartDatetime() {
+			return startDatetime;
+		}
+
+		public LocalDateTime getEndDatetime() {
+			return endDatetime;
+		}
+	}
+}
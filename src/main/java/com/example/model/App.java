@@ -32,9 +32,14 @@ public class App extends TimeEntity implements Serializable {
 	@Column(name = "description", nullable = false, columnDefinition = "TEXT")
 	private String description;
 
+	// 移行前の画像(base64 の data URL)。画像ストアに移行したものは空文字
 	@Column(name = "image", nullable = false, columnDefinition = "TEXT")
 	private String image;
 
+	// 画像ストアのキー(SHA-256 + 拡張子)
+	@Column(name = "image_key", length = 80)
+	private String imageKey;
+
 	@Column(name = "active", nullable = false)
 	private Boolean active;
 
@@ -86,6 +91,14 @@ public class App extends TimeEntity implements Serializable {
 		return image;
 	}
 
+	public void setImageKey(String imageKey) {
+		this.imageKey = imageKey;
+	}
+
+	public String getImageKey() {
+		return imageKey;
+	}
+
 	public Boolean getActive() {
 		return active;
 	}
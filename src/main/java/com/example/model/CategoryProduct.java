@@ -10,6 +10,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,7 +20,10 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "categories_products")
+@Table(name = "categories_products", indexes = {
+		@Index(name = "idx_product_id_category_id", columnList = "product_id, category_id"),
+		@Index(name = "idx_category_id_product_id", columnList = "category_id, product_id")
+})
 public class CategoryProduct extends TimeEntity implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -34,12 +38,12 @@ public class CategoryProduct extends TimeEntity implements Serializable {
 	@Column(name = "product_id", nullable = false)
 	private Long productId;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(nullable = true, insertable = false, updatable = false, name = "category_id")
 	@JsonIgnore
 	private Category category;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(nullable = true, insertable = false, updatable = false, name = "product_id")
 	@JsonIgnore
 	private Product product;
@@ -0,0 +1,88 @@
+package com.example.model;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+import com.example.entity.TransactionAmountSummary;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+// 取引先ごとの収支残高テーブル
+// transaction_amounts の登録・更新・削除と同じトランザクションで差分更新する
+@Getter
+@Setter
+@Entity
+@Table(name = "company_balances")
+public class CompanyBalance implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// 取引先会社ID
+	@Id
+	@Column(name = "company_id")
+	private Long companyId;
+
+	// 収入合計
+	@Column(name = "income_total", nullable = false)
+	private Long incomeTotal = 0L;
+
+	// 支出合計
+	@Column(name = "expense_total", nullable = false)
+	private Long expenseTotal = 0L;
+
+	// 未対応の収入合計
+	@Column(name = "unpaid_income_total", nullable = false)
+	private Long unpaidIncomeTotal = 0L;
+
+	// 未対応の支出合計
+	@Column(name = "unpaid_expense_total", nullable = false)
+	private Long unpaidExpenseTotal = 0L;
+
+	// 取引件数
+	@Column(name = "transaction_count", nullable = false)
+	private Long transactionCount = 0L;
+
+	// 最終更新日時
+	@Column(name = "update_at", nullable = false)
+	private Timestamp updateAt;
+
+	public CompanyBalance() {
+	}
+
+	public CompanyBalance(Long companyId) {
+		this.companyId = companyId;
+	}
+
+	public CompanyBalance(Long companyId, Long incomeTotal, Long expenseTotal, Long unpaidIncomeTotal,
+			Long unpaidExpenseTotal, Long transactionCount) {
+		this.companyId = companyId;
+		this.incomeTotal = incomeTotal;
+		this.expenseTotal = expenseTotal;
+		this.unpaidIncomeTotal = unpaidIncomeTotal;
+		this.unpaidExpenseTotal = unpaidExpenseTotal;
+		this.transactionCount = transactionCount;
+	}
+
+	/**
+	 * 金額・件数が一致するか
+	 */
+	public boolean hasSameTotals(CompanyBalance other) {
+		return incomeTotal.equals(other.incomeTotal)
+				&& expenseTotal.equals(other.expenseTotal)
+				&& unpaidIncomeTotal.equals(other.unpaidIncomeTotal)
+				&& unpaidExpenseTotal.equals(other.unpaidExpenseTotal)
+				&& transactionCount.equals(other.transactionCount);
+	}
+
+	/**
+	 * 収支の集計結果に変換する
+	 */
+	public TransactionAmountSummary toSummary() {
+		return new TransactionAmountSummary(companyId, incomeTotal, expenseTotal, transactionCount);
+	}
+}
@@ -51,4 +51,16 @@ public class FileImportInfo extends TimeEntity implements Serializable {
 	// 取込元のサービス
 	@Column(name = "type", nullable = false, columnDefinition = "TINYINT(1)")
 	private ServiceType type;
+
+	// 読込件数(ヘッダー行を除く)
+	@Column(name = "read_count", nullable = false, columnDefinition = "INT default 0")
+	private Integer readCount = 0;
+
+	// 登録件数
+	@Column(name = "write_count", nullable = false, columnDefinition = "INT default 0")
+	private Integer writeCount = 0;
+
+	// エラー件数
+	@Column(name = "error_count", nullable = false, columnDefinition = "INT default 0")
+	private Integer errorCount = 0;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.model;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.lang.String;
 import java.util.List;
 
@@ -25,7 +26,13 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "orders", indexes = @Index(name = "idx_customer_id", columnList = "customer_id"))
+@Table(name = "orders", indexes = {
+		@Index(name = "idx_customer_id", columnList = "customer_id"),
+		@Index(name = "idx_create_at_id", columnList = "create_at, id"),
+		@Index(name = "idx_customer_id_create_at_id", columnList = "customer_id, create_at, id"),
+		@Index(name = "idx_status_create_at_id", columnList = "status, create_at, id"),
+		@Index(name = "idx_payment_status_create_at_id", columnList = "payment_status, create_at, id")
+})
 public class Order extends TimeEntity implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -40,23 +47,23 @@ public class Order extends TimeEntity implements Serializable {
 	@Column(name = "status", nullable = false)
 	private String status;
 
-	@Column(name = "total", nullable = false)
-	private Double total;
+	@Column(name = "total", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal total;
 
-	@Column(name = "tax", nullable = false)
-	private Double tax;
+	@Column(name = "tax", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal tax;
 
-	@Column(name = "discount", nullable = false)
-	private Double discount;
+	@Column(name = "discount", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal discount;
 
-	@Column(name = "shipping", nullable = false)
-	private Double shipping;
+	@Column(name = "shipping", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal shipping;
 
-	@Column(name = "grand_total", nullable = false)
-	private Double grandTotal;
+	@Column(name = "grand_total", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal grandTotal;
 
-	@Column(name = "paid", nullable = false)
-	private Double paid;
+	@Column(name = "paid", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal paid;
 
 	@Column(name = "payment_method", nullable = false)
 	private String paymentMethod;
@@ -0,0 +1,47 @@
+package com.example.model;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+// 受注の出荷情報テーブル(受注ごとに1件)
+@Getter
+@Setter
+@Entity
+@Table(name = "order_deliveries", uniqueConstraints = @UniqueConstraint(name = "uk_order_id", columnNames = "order_id"))
+public class OrderDelivery extends TimeEntity implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "order_id", nullable = false)
+	private Long orderId;
+
+	// 出荷コード
+	@Column(name = "shipping_code", nullable = false)
+	private String shippingCode;
+
+	// 出荷日
+	@Column(name = "shipping_date", nullable = false)
+	private Date shippingDate;
+
+	// 配達日
+	@Column(name = "delivery_date")
+	private Date deliveryDate;
+
+	// 配達時間帯
+	@Column(name = "delivery_timezone")
+	private String deliveryTimezone;
+}
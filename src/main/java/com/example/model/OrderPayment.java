@@ -1,6 +1,7 @@
 package com.example.model;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.lang.String;
 import java.sql.Timestamp;
 
@@ -25,11 +26,15 @@ public class OrderPayment extends TimeEntity implements Serializable {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
+	// 受注ID(支払いの追加時に受注の orderPayments を読み込まずに登録するため)
+	@Column(name = "order_id")
+	private Long orderId;
+
 	@Column(name = "type", nullable = false)
 	private String type;
 
-	@Column(name = "paid", nullable = false)
-	private Double paid;
+	@Column(name = "paid", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal paid;
 
 	@Column(name = "method", nullable = false)
 	private String method;
@@ -1,6 +1,7 @@
 package com.example.model;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.lang.String;
 
 import com.example.constants.TaxType;
@@ -38,11 +39,11 @@ public class OrderProduct extends TimeEntity implements Serializable {
 	@Column(name = "quantity", nullable = false)
 	private Integer quantity;
 
-	@Column(name = "price", nullable = false)
-	private Double price;
+	@Column(name = "price", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal price;
 
-	@Column(name = "discount", nullable = false)
-	private Double discount;
+	@Column(name = "discount", nullable = false, columnDefinition = "DECIMAL(15,2)")
+	private BigDecimal discount;
 
 	@Column(name = "tax_rate", nullable = false)
 	private Integer taxRate;
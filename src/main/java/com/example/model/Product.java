@@ -13,6 +13,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -23,7 +24,11 @@ import jakarta.persistence.OneToMany;
 @Getter
 @Setter
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+		@Index(name = "idx_shop_id_id", columnList = "shop_id, id"),
+		@Index(name = "idx_shop_id_name_key", columnList = "shop_id, name_key"),
+		@Index(name = "idx_shop_id_code_key", columnList = "shop_id, code_key")
+})
 public class Product extends TimeEntity implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -41,6 +46,15 @@ public class Product extends TimeEntity implements Serializable {
 	@Column(name = "code", nullable = false)
 	private String code;
 
+	// 大文字小文字を区別しない検索用の正規化カラム(DBで生成する)
+	@Column(name = "name_key", insertable = false, updatable = false,
+			columnDefinition = "VARCHAR(255) COLLATE utf8mb4_bin GENERATED ALWAYS AS (LOWER(name)) STORED")
+	private String nameKey;
+
+	@Column(name = "code_key", insertable = false, updatable = false,
+			columnDefinition = "VARCHAR(255) COLLATE utf8mb4_bin GENERATED ALWAYS AS (LOWER(code)) STORED")
+	private String codeKey;
+
 	@Column(name = "weight", nullable = false)
 	private Integer weight;
 
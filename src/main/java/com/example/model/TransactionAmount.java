@@ -14,6 +14,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -24,7 +25,10 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "transaction_amounts")
+@Table(name = "transaction_amounts", indexes = {
+		@Index(name = "idx_company_id_plus_minus_price", columnList = "company_id, plus_minus, price"),
+		// 取引先詳細の一覧(ID降順のキーセット方式)用
+		@Index(name = "idx_company_id_id", columnList = "company_id, id") })
 public class TransactionAmount extends TimeEntity implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -1,6 +1,28 @@
 package com.example.repository;
 
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.entity.AppListRow;
 import com.example.model.App;
 
-public interface AppRepository extends JpaRepository<App, Long> {}
+public interface AppRepository extends JpaRepository<App, Long> {
+
+	// 一覧用に移行前の画像カラムを除いて取得
+	@Query(value = "SELECT new com.example.entity.AppListRow(a.id, a.name, a.url, a.developer, a.description,"
+			+ " a.imageKey, CASE WHEN a.imageKey IS NULL AND LENGTH(a.image) > 0 THEN true ELSE false END,"
+			+ " a.active) FROM App a",
+			countQuery = "SELECT COUNT(a) FROM App a")
+	public Page<AppListRow> findListRows(Pageable pageable);
+
+	@Query("SELECT a.image FROM App a WHERE a.id = :id")
+	public Optional<String> findImageById(@Param("id") Long id);
+
+	@Query("SELECT a.imageKey FROM App a WHERE a.id = :id")
+	public Optional<String> findImageKeyById(@Param("id") Long id);
+}
@@ -1,11 +1,38 @@
 package com.example.repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.enums.CampaignStatus;
 import com.example.model.Campaign;
 
+import jakarta.persistence.LockModeType;
+
 public interface CampaignRepository extends JpaRepository<Campaign, Long> {
 
 	public Optional<Campaign> findByCode(String code);
+
+	// 指定したコードのうち登録済みのものを取得
+	@Query("SELECT c.code FROM Campaign c WHERE c.code IN :codes")
+	public List<String> findCodesByCodeIn(@Param("codes") Collection<String> codes);
+
+	// 一括更新の対象を行ロックを取って取得(SELECT ... FOR UPDATE)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT c FROM Campaign c WHERE c.id IN :ids")
+	public List<Campaign> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+	// 遷移元ステータスが sources に含まれるものだけをまとめて更新
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE Campaign c SET c.status = :next, c.updateAt = :updateAt"
+			+ " WHERE c.id IN :ids AND c.status <> :next AND c.status IN :sources")
+	public int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("next") CampaignStatus next,
+			@Param("sources") Collection<CampaignStatus> sources, @Param("updateAt") Timestamp updateAt);
 }
@@ -1,13 +1,30 @@
 package com.example.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.entity.ProductCategoryName;
 import com.example.model.CategoryProduct;
 
 public interface CategoryProductRepository extends JpaRepository<CategoryProduct, Long> {
-	void deleteByCategoryId(Long categoryId);
-
 	// productIdで検索
 	List<CategoryProduct> findByProductId(Long productId);
+
+	// カテゴリーに紐づく商品IDを取得する
+	@Query("SELECT cp.productId FROM CategoryProduct cp WHERE cp.categoryId = :categoryId ORDER BY cp.productId")
+	List<Long> findProductIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+	// 商品一覧に表示するカテゴリー名をまとめて取得する
+	@Query("SELECT new com.example.entity.ProductCategoryName(cp.productId, c.id, c.name)"
+			+ " FROM CategoryProduct cp JOIN cp.category c WHERE cp.productId IN :productIds ORDER BY c.id")
+	List<ProductCategoryName> findCategoryNamesByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+	// ショップの全商品のカテゴリーをまとめて取得する(商品検索インデックスの作成用)
+	@Query("SELECT new com.example.entity.ProductCategoryName(cp.productId, c.id, c.name)"
+			+ " FROM CategoryProduct cp JOIN cp.category c JOIN cp.product p WHERE p.shopId = :shopId ORDER BY c.id")
+	List<ProductCategoryName> findCategoryNamesByShopId(@Param("shopId") Long shopId);
 }
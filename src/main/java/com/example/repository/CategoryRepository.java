@@ -1,6 +1,35 @@
 package com.example.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.entity.CategorySummary;
 import com.example.model.Category;
 
-public interface CategoryRepository extends JpaRepository<Category, Long> {}
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+	String PRODUCT_COUNT = "(SELECT COUNT(cp.id) FROM CategoryProduct cp WHERE cp.categoryId = c.id)";
+
+	// 選択肢・APIに使うカテゴリーの一覧
+	@Query("SELECT new com.example.entity.CategorySummary(c.id, c.name, c.code, c.displayOrder, " + PRODUCT_COUNT + ")"
+			+ " FROM Category c ORDER BY c.id")
+	List<CategorySummary> findAllSummaries();
+
+	// カテゴリー一覧画面(表示順の降順)
+	@Query("SELECT new com.example.entity.CategorySummary(c.id, c.name, c.code, c.displayOrder, " + PRODUCT_COUNT
+			+ ", c.description) FROM Category c ORDER BY c.displayOrder DESC, c.id DESC")
+	List<CategorySummary> findListRows();
+
+	@Query("SELECT new com.example.entity.CategorySummary(c.id, c.name, c.code, c.displayOrder, " + PRODUCT_COUNT
+			+ ", c.description) FROM Category c WHERE c.id = :id")
+	Optional<CategorySummary> findSummaryById(@Param("id") Long id);
+
+	// 紐づく商品まで表示する画面用(紐付けと商品をまとめて取得する)
+	@EntityGraph(attributePaths = { "categoryProducts", "categoryProducts.product" })
+	Optional<Category> findWithProductsById(Long id);
+}
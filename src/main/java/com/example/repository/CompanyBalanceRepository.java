@@ -0,0 +1,50 @@
+package com.example.repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.model.CompanyBalance;
+
+public interface CompanyBalanceRepository extends JpaRepository<CompanyBalance, Long> {
+
+	List<CompanyBalance> findByCompanyIdIn(Collection<Long> companyIds);
+
+	// 残高に差分を加算する(行がなければ作成する)
+	@Modifying(flushAutomatically = true)
+	@Query(value = "INSERT INTO company_balances"
+			+ " (company_id, income_total, expense_total, unpaid_income_total, unpaid_expense_total, transaction_count, update_at)"
+			+ " VALUES (:companyId, :income, :expense, :unpaidIncome, :unpaidExpense, :count, :updateAt)"
+			+ " ON DUPLICATE KEY UPDATE"
+			+ " income_total = income_total + VALUES(income_total),"
+			+ " expense_total = expense_total + VALUES(expense_total),"
+			+ " unpaid_income_total = unpaid_income_total + VALUES(unpaid_income_total),"
+			+ " unpaid_expense_total = unpaid_expense_total + VALUES(unpaid_expense_total),"
+			+ " transaction_count = transaction_count + VALUES(transaction_count),"
+			+ " update_at = VALUES(update_at)", nativeQuery = true)
+	int addDelta(@Param("companyId") Long companyId, @Param("income") long income, @Param("expense") long expense,
+			@Param("unpaidIncome") long unpaidIncome, @Param("unpaidExpense") long unpaidExpense,
+			@Param("count") long count, @Param("updateAt") Timestamp updateAt);
+
+	// transaction_amounts から全取引先の残高を作り直す
+	@Modifying(clearAutomatically = true)
+	@Query(value = "INSERT INTO company_balances"
+			+ " (company_id, income_total, expense_total, unpaid_income_total, unpaid_expense_total, transaction_count, update_at)"
+			+ " SELECT t.company_id,"
+			+ " SUM(CASE WHEN t.plus_minus THEN t.price ELSE 0 END),"
+			+ " SUM(CASE WHEN t.plus_minus THEN 0 ELSE t.price END),"
+			+ " SUM(CASE WHEN t.plus_minus AND NOT t.has_paid THEN t.price ELSE 0 END),"
+			+ " SUM(CASE WHEN NOT t.plus_minus AND NOT t.has_paid THEN t.price ELSE 0 END),"
+			+ " COUNT(*), :updateAt"
+			+ " FROM transaction_amounts t GROUP BY t.company_id", nativeQuery = true)
+	int insertFromTransactionAmounts(@Param("updateAt") Timestamp updateAt);
+
+	@Modifying(clearAutomatically = true)
+	@Query(value = "DELETE FROM company_balances", nativeQuery = true)
+	int deleteAllRows();
+}
@@ -1,7 +1,27 @@
 package com.example.repository;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.enums.FileImportStatus;
+import com.example.enums.ServiceType;
 import com.example.model.FileImportInfo;
 
-public interface FileImportInfoRepository extends JpaRepository<FileImportInfo, Long> {}
\ No newline at end of file
+public interface FileImportInfoRepository extends JpaRepository<FileImportInfo, Long> {
+
+	Optional<FileImportInfo> findByIdAndTypeAndRelationId(Long id, ServiceType type, Long relationId);
+
+	/**
+	 * 指定日時より前に開始して指定したステータスのままの取込を、別のステータスで終了させる
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE FileImportInfo f SET f.status = :to, f.endDatetime = :now"
+			+ " WHERE f.status = :from AND f.startDatetime < :before")
+	int updateStatusStartedBefore(@Param("from") FileImportStatus from, @Param("to") FileImportStatus to,
+			@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+}
@@ -1,6 +1,55 @@
 package com.example.repository;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.entity.OrderListProduct;
+import com.example.enums.PaymentStatus;
+import com.example.entity.OrderListRow;
 import com.example.model.Order;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {}
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+	// 受注一覧をキーセット方式で取得する(作成日時・IDの降順)
+	// 条件がnullの場合は絞り込まない
+	@Query("SELECT new com.example.entity.OrderListRow(o.id, o.customerId, o.status, o.total, o.tax, o.discount,"
+			+ " o.shipping, o.grandTotal, o.paid, o.paymentMethod, o.paymentStatus, o.note, o.createAt)"
+			+ " FROM Order o"
+			+ " WHERE (:status IS NULL OR o.status = :status)"
+			+ " AND (:paymentStatus IS NULL OR o.paymentStatus = :paymentStatus)"
+			+ " AND (:customerId IS NULL OR o.customerId = :customerId)"
+			+ " AND (:afterCreateAt IS NULL OR o.createAt < :afterCreateAt"
+			+ " OR (o.createAt = :afterCreateAt AND o.id < :afterId))"
+			+ " ORDER BY o.createAt DESC, o.id DESC")
+	List<OrderListRow> findListRows(@Param("status") String status, @Param("paymentStatus") String paymentStatus,
+			@Param("customerId") Integer customerId, @Param("afterCreateAt") Timestamp afterCreateAt,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	// 受注一覧に表示する受注商品をまとめて取得する
+	@Query("SELECT new com.example.entity.OrderListProduct(o.id, op.name, op.quantity)"
+			+ " FROM Order o JOIN o.orderProducts op WHERE o.id IN :orderIds ORDER BY op.id")
+	List<OrderListProduct> findListItemsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+	// 支払い済み金額に加算し、加算後の金額から支払いステータスを更新する
+	// MySQL は SET を左から評価するため、ステータスを先に加算前の paid から計算する
+	String ADD_PAID_SQL = "UPDATE orders SET"
+			+ " payment_status = CASE"
+			+ " WHEN paid + :amount > grand_total THEN '" + PaymentStatus.OVERPAID + "'"
+			+ " WHEN paid + :amount < grand_total THEN '" + PaymentStatus.PARTIALLY_PAID + "'"
+			+ " ELSE '" + PaymentStatus.PAID + "' END,"
+			+ " paid = paid + :amount,"
+			+ " update_at = :updateAt"
+			+ " WHERE id = :id";
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = ADD_PAID_SQL, nativeQuery = true)
+	int addPaid(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("updateAt") Timestamp updateAt);
+}
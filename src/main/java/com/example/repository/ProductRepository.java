@@ -1,7 +1,25 @@
 package com.example.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.entity.ProductWithCategoryName;
 import com.example.model.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {}
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+	// ショップの全商品を検索項目のみで取得する(商品検索インデックスの作成用)
+	@Query("SELECT new com.example.entity.ProductWithCategoryName(p.id, p.code, p.name, p.weight, p.height, p.price)"
+			+ " FROM Product p WHERE p.shopId = :shopId ORDER BY p.id")
+	List<ProductWithCategoryName> findSearchRowsByShopId(@Param("shopId") Long shopId);
+
+	// 紐づくカテゴリーまで表示・編集する画面用
+	@EntityGraph(attributePaths = { "categoryProducts" })
+	Optional<Product> findWithCategoryProductsById(Long id);
+}
@@ -2,11 +2,35 @@ package com.example.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.entity.TransactionAmountRow;
 
 import com.example.model.Company;
+import com.example.model.CompanyBalance;
 import com.example.model.TransactionAmount;
 
 public interface TransactionAmountRepository extends JpaRepository<TransactionAmount, Long> {
 	List<TransactionAmount> findByCompany(Company company);
+
+	// 取引先の取引金額一覧をキーセット方式で取得する(IDの降順、afterIdがnullの場合は先頭から)
+	@Query("SELECT new com.example.entity.TransactionAmountRow(t.id, t.plusMinus, t.price, t.dueDate, t.hasPaid, t.memo)"
+			+ " FROM TransactionAmount t"
+			+ " WHERE t.companyId = :companyId AND (:afterId IS NULL OR t.id < :afterId)"
+			+ " ORDER BY t.id DESC")
+	List<TransactionAmountRow> findRowsByCompanyId(@Param("companyId") Long companyId, @Param("afterId") Long afterId,
+			Pageable pageable);
+
+	// 全取引先の残高を transaction_amounts から集計する(残高テーブルの検証用)
+	@Query("SELECT new com.example.model.CompanyBalance(t.companyId,"
+			+ " SUM(CASE WHEN t.plusMinus = true THEN t.price ELSE 0 END),"
+			+ " SUM(CASE WHEN t.plusMinus = false THEN t.price ELSE 0 END),"
+			+ " SUM(CASE WHEN t.plusMinus = true AND t.hasPaid = false THEN t.price ELSE 0 END),"
+			+ " SUM(CASE WHEN t.plusMinus = false AND t.hasPaid = false THEN t.price ELSE 0 END),"
+			+ " COUNT(t))"
+			+ " FROM TransactionAmount t GROUP BY t.companyId")
+	List<CompanyBalance> aggregateBalances();
 }
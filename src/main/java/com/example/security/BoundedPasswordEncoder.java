@@ -0,0 +1,83 @@
+package com.example.security;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * パスワードの照合・ハッシュ化を専用のスレッドプールで実行する {@link PasswordEncoder}
+ *
+ * bcrypt などのハッシュの計算を同時に実行する数をスレッドプールのスレッド数までに抑え、
+ * ログインが集中しても画面のリクエストの処理に CPU を残す。
+ * 待ち行列が溢れた場合や、待ち時間の上限を超えた場合は {@link AuthenticationServiceException} とする。
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+
+	private final ThreadPoolTaskExecutor executor;
+
+	private final Duration timeout;
+
+	private final Counter rejected;
+
+	public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor, Duration timeout,
+			Counter rejected) {
+		this.delegate = delegate;
+		this.executor = executor;
+		this.timeout = timeout;
+		this.rejected = rejected;
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return this.run(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return this.run(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		// ハッシュの形式を見るだけなので、呼び出し元のスレッドで判定する
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	private <T> T run(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (TaskRejectedException e) {
+			rejected.increment();
+			throw new AuthenticationServiceException("パスワードの照合が混み合っています。", e);
+		}
+		try {
+			return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			rejected.increment();
+			throw new AuthenticationServiceException("パスワードの照合が混み合っています。", e);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new AuthenticationServiceException("パスワードの照合が中断されました。", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new AuthenticationServiceException(e.getMessage(), e.getCause());
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.security;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.example.repository.UserRepository;
+import com.example.service.ReferenceCacheService;
+import com.example.service.UserService;
+
+/**
+ * usersテーブルのユーザーでログインさせる {@link UserDetailsService}
+ *
+ * usersテーブルにないユーザーは、コンストラクタで指定した組み込みユーザーから検索する。
+ * 検索結果はメールアドレスごとに ReferenceCacheService(上限件数・有効期限付き)にキャッシュし、
+ * UserService の保存・削除で無効化する。
+ * 認証後に UserDetails のパスワードは消去されるため、キャッシュした値は返さずに毎回コピーを返す。
+ * ログインに成功したユーザーのパスワードが既定の形式でハッシュ化されていない場合は、既定の形式に移行する。
+ */
+public class DatabaseUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+	// passwordの接頭子にハッシュ形式の識別子 `{xxxx}` が付与されているか
+	private static final Pattern ENCODED_PASSWORD = Pattern.compile("^\\{.+\\}.+");
+
+	@Autowired
+	private UserRepository repository;
+
+	@Autowired
+	private ReferenceCacheService referenceCacheService;
+
+	@Autowired
+	private UserService userService;
+
+	private final Map<String, UserDetails> builtInUsers = new ConcurrentHashMap<>();
+
+	public DatabaseUserDetailsService(UserDetails... users) {
+		for (UserDetails user : users) {
+			builtInUsers.put(user.getUsername(), user);
+		}
+	}
+
+	/**
+	 * usersテーブルから先に検索を行い、なければ組み込みユーザーから検索する。
+	 */
+	@Override
+	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		Optional<UserDetails> user = referenceCacheService.get(ReferenceCacheService.USERS, username,
+				() -> this.findUser(username));
+		UserDetails userDetails = user.orElseGet(() -> builtInUsers.get(username));
+		if (userDetails == null) {
+			throw new UsernameNotFoundException(username);
+		}
+		return User.withUserDetails(userDetails).build();
+	}
+
+	/**
+	 * ログイン時にハッシュ化し直したパスワードを保存する
+	 * 組み込みユーザーはメモリ上のパスワードだけを置き換える
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		if (!userService.upgradePassword(user.getUsername(), newPassword)) {
+			builtInUsers.computeIfPresent(user.getUsername(),
+					(username, builtIn) -> User.withUserDetails(builtIn).password(newPassword).build());
+		}
+		return User.withUserDetails(user).password(newPassword).build();
+	}
+
+	private Optional<UserDetails> findUser(String username) {
+		return repository.findByEmail(username).map(user -> {
+			String password = user.getPassword();
+			// 付与されていない場合は、平文で登録されていると判断して、{noop}を付与する。
+			if (!ENCODED_PASSWORD.matcher(password).find()) {
+				password = "{noop}" + password;
+			}
+			return User.builder()
+					.username(user.getEmail())
+					.password(password)
+					.roles(user.getRoleEnum().getRole())
+					.build();
+		});
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.security;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.service.JwtTokenService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authorization ヘッダーの Bearer トークン(JWT)で API のリクエストを認証するフィルター
+ *
+ * トークンの内容だけで認証するため、usersテーブルの検索やセッションの作成は行わない。
+ * Servlet のフィルターとして二重に登録されないよう Bean にはせず、WebSecurityConfig で API 用のチェーンに追加する。
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+	public static final String BEARER_PREFIX = "Bearer ";
+
+	private final JwtTokenService jwtTokenService;
+
+	private final AuthenticationEntryPoint authenticationEntryPoint;
+
+	public JwtAuthenticationFilter(JwtTokenService jwtTokenService, AuthenticationEntryPoint authenticationEntryPoint) {
+		this.jwtTokenService = jwtTokenService;
+		this.authenticationEntryPoint = authenticationEntryPoint;
+	}
+
+	/**
+	 * Bearer トークンが付与されているか
+	 */
+	public static boolean hasBearerToken(HttpServletRequest request) {
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		return header != null && header.startsWith(BEARER_PREFIX);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		if (!hasBearerToken(request)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		DecodedJWT jwt;
+		try {
+			jwt = jwtTokenService.verify(request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER_PREFIX.length()));
+		} catch (JWTVerificationException e) {
+			SecurityContextHolder.clearContext();
+			authenticationEntryPoint.commence(request, response, new BadCredentialsException(e.getMessage(), e));
+			return;
+		}
+
+		// 権限はトークンの roles から設定する(roles のない以前のトークンは権限なし)
+		String[] roles = jwt.getClaim("roles").isMissing() ? new String[0]
+				: jwt.getClaim("roles").asArray(String.class);
+		UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+				jwt.getClaim("email").asString(), null,
+				AuthorityUtils.createAuthorityList(Arrays.stream(roles).map(role -> "ROLE_" + role).toArray(String[]::new)));
+		authentication.setDetails(jwt);
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(authentication);
+		SecurityContextHolder.setContext(context);
+		chain.doFilter(request, response);
+	}
+}
@@ -1,10 +1,16 @@
 package com.example.security;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
@@ -14,54 +20,83 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
+/**
+ * 画面のアクセス履歴(トップページに表示)をセッションに記録するフィルター
+ *
+ * ログイン済みのセッションがある場合だけ記録し、セッションは作成しない。
+ * 履歴が変わった場合だけ setAttribute し直し、セッションのレプリケーション・永続化を最小限にする。
+ * 履歴の作成はセッションのミューテックスで排他し、同じセッションの最初のリクエストが同時に来ても履歴を上書きしない。
+ */
 @Component
 public class UrlRecordingFilter implements Filter {
 
+	public static final String SESSION_ATTRIBUTE = "urlRecording";
+
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
 			throws IOException, ServletException {
 		if (request instanceof HttpServletRequest) {
 			HttpServletRequest httpRequest = (HttpServletRequest)request;
+			String requestURL = httpRequest.getRequestURI();
+			String requestMethod = httpRequest.getMethod();
 
-			// Ignore the static resource URLs
-			if (!isIgnorePattern(httpRequest)) {
-				HttpSession session = httpRequest.getSession();
-				String requestURL = httpRequest.getRequestURI().toString();
-				UrlRecording urlRecording = (UrlRecording)session.getAttribute("urlRecording");
-				if (urlRecording == null) {
-					urlRecording = new UrlRecording();
+			if (requestMethod.equals("GET") && !isIgnorePattern(requestURL) && acceptsHtml(httpRequest)) {
+				HttpSession session = httpRequest.getSession(false);
+				if (session != null) {
+					UrlRecording urlRecording = (UrlRecording)session.getAttribute(SESSION_ATTRIBUTE);
+					if (urlRecording == null) {
+						urlRecording = this.createUrlRecording(session);
+					}
+					if (urlRecording.add(requestURL)) {
+						session.setAttribute(SESSION_ATTRIBUTE, urlRecording);
+					}
 				}
-				urlRecording.add(requestURL);
-				session.setAttribute("urlRecording", urlRecording);
-			} else if (isDeleteMethod(httpRequest)) {
-				HttpSession session = httpRequest.getSession();
-				String requestURL = httpRequest.getRequestURI().toString();
-				UrlRecording urlRecording = (UrlRecording)session.getAttribute("urlRecording");
-				if (urlRecording == null) {
-					urlRecording = new UrlRecording();
+			} else if (isDeleteMethod(httpRequest) && !requestURL.startsWith("/api/")) {
+				HttpSession session = httpRequest.getSession(false);
+				UrlRecording urlRecording = session != null ? (UrlRecording)session.getAttribute(SESSION_ATTRIBUTE)
+						: null;
+				if (urlRecording != null && urlRecording.delete(requestURL)) {
+					session.setAttribute(SESSION_ATTRIBUTE, urlRecording);
 				}
-				urlRecording.delete(requestURL);
-				session.setAttribute("urlRecording", urlRecording);
-
 			}
-
 		}
 
 		chain.doFilter(request, response);
 	}
 
-	private static boolean isIgnorePattern(HttpServletRequest request) {
-		String requestURL = request.getRequestURI().toString();
-		String requestMethod = request.getMethod();
+	/**
+	 * セッションの履歴を作成する(他のリクエストが作成済みの場合はそれを返す)
+	 */
+	private UrlRecording createUrlRecording(HttpSession session) {
+		synchronized (WebUtils.getSessionMutex(session)) {
+			UrlRecording urlRecording = (UrlRecording)session.getAttribute(SESSION_ATTRIBUTE);
+			if (urlRecording == null) {
+				urlRecording = new UrlRecording();
+				session.setAttribute(SESSION_ATTRIBUTE, urlRecording);
+			}
+			return urlRecording;
+		}
+	}
+
+	private static boolean isIgnorePattern(String requestURL) {
 		// Ignore the static resource URLs
 		return requestURL.endsWith("favicon.ico")
 				|| requestURL.endsWith(".css")
 				|| requestURL.endsWith(".js")
 				|| requestURL.equals("/")
-				// Ignore the not GET requests
-				|| !requestMethod.equals("GET")
 				// Ignore the login/logout URLs
-				|| requestURL.endsWith("/auth/login");
+				|| requestURL.endsWith("/auth/login")
+				// Ignore the API URLs
+				|| requestURL.startsWith("/api/");
+	}
+
+	/**
+	 * 画面の表示(HTML を受け付ける)リクエストか
+	 * 画像や JavaScript からの呼び出しは履歴に残さない
+	 */
+	private static boolean acceptsHtml(HttpServletRequest request) {
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		return accept != null && accept.contains(MediaType.TEXT_HTML_VALUE);
 	}
 
 	/**
@@ -71,30 +106,46 @@ public class UrlRecordingFilter implements Filter {
 		return request.getMethod().equals("DELETE");
 	}
 
-	public static class UrlRecording {
+	/**
+	 * アクセス履歴(最大 CAPACITY 件のリングバッファ)
+	 *
+	 * 同じセッションのリクエストが同時に更新しても取りこぼさないよう、
+	 * 履歴は変更しない配列として持ち、更新時は新しい配列を作成して compareAndSet で差し替える。
+	 */
+	public static class UrlRecording implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
 		/**
-		 * URLのリスト
+		 * 保持するURLの件数
 		 */
-		private List<String> urls = new ArrayList<>();
+		public static final int CAPACITY = 10;
 
+		private final AtomicReference<Ring> ring = new AtomicReference<>(new Ring(new String[CAPACITY], 0, 0));
+
+		/**
+		 * 古い順のURLのリスト
+		 */
 		public List<String> getUrls() {
 			// コピーを作成して渡す
-			return new ArrayList<>(urls);
+			return ring.get().toList();
 		}
 
-		public void add(String url) {
-			/**
-			 * 最後尾と同じURLは追加しない
-			 */
-			if (urls.size() > 0 && urls.get(urls.size() - 1).equals(url)) {
-				return;
-			}
-			urls.add(url);
-			/**
-			 * 追加後に10件以上であれば先頭を削除
-			 */
-			if (urls.size() > 10) {
-				urls.remove(0);
+		/**
+		 * URLを追加する(最後尾と同じURLは追加しない)
+		 *
+		 * @param url
+		 * @return boolean 履歴が変わった場合は true
+		 */
+		public boolean add(String url) {
+			while (true) {
+				Ring current = ring.get();
+				if (url.equals(current.last())) {
+					return false;
+				}
+				if (ring.compareAndSet(current, current.add(url))) {
+					return true;
+				}
 			}
 		}
 
@@ -102,9 +153,79 @@ public class UrlRecordingFilter implements Filter {
 		 * 指定したURLと先頭から一致するURLを削除する
 		 *
 		 * @param url
+		 * @return boolean 履歴が変わった場合は true
+		 */
+		public boolean delete(String url) {
+			while (true) {
+				Ring current = ring.get();
+				Ring removed = current.removeIf(url);
+				if (removed == current) {
+					return false;
+				}
+				if (ring.compareAndSet(current, removed)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * リングバッファの状態(変更しない)
+		 * slots[head] から size 件が古い順のURL
 		 */
-		public void delete(String url) {
-			urls.removeIf(s -> s.startsWith(url));
+		private static class Ring implements Serializable {
+
+			private static final long serialVersionUID = 1L;
+
+			private final String[] slots;
+
+			private final int head;
+
+			private final int size;
+
+			Ring(String[] slots, int head, int size) {
+				this.slots = slots;
+				this.head = head;
+				this.size = size;
+			}
+
+			String last() {
+				return size == 0 ? null : slots[(head + size - 1) % slots.length];
+			}
+
+			/**
+			 * 最後尾に追加する(満杯の場合は最も古いURLを上書きする)
+			 */
+			Ring add(String url) {
+				String[] copy = Arrays.copyOf(slots, slots.length);
+				copy[(head + size) % slots.length] = url;
+				if (size < slots.length) {
+					return new Ring(copy, head, size + 1);
+				}
+				return new Ring(copy, (head + 1) % slots.length, size);
+			}
+
+			/**
+			 * 指定したURLと先頭から一致するURLを除く(一致するものがない場合は自身を返す)
+			 */
+			Ring removeIf(String prefix) {
+				String[] copy = new String[slots.length];
+				int count = 0;
+				for (int i = 0; i < size; i++) {
+					String url = slots[(head + i) % slots.length];
+					if (!url.startsWith(prefix)) {
+						copy[count++] = url;
+					}
+				}
+				return count == size ? this : new Ring(copy, 0, count);
+			}
+
+			List<String> toList() {
+				List<String> urls = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					urls.add(slots[(head + i) % slots.length]);
+				}
+				return urls;
+			}
 		}
 	}
 }
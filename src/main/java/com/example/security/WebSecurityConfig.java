@@ -1,22 +1,75 @@
 package com.example.security;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.OrRequestMatcher;
 
+import com.example.service.JwtTokenService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
 
+	@Autowired
+	private JwtTokenService jwtTokenService;
+
+	/**
+	 * Bearer トークンを付与した API のリクエストと、トークンの発行用のチェーン
+	 * トークンだけで認証し、セッションの作成・CSRF トークン・ログイン画面へのリダイレクトは行わない。
+	 * トークンのない API のリクエスト(画面の JavaScript から呼ぶもの)は、これまで通り下のチェーンでセッションで認証する。
+	 */
+	@Bean
+	@Order(1)
+	SecurityFilterChain apiSecurityFilterChain(HttpSecurity http) throws Exception {
+		HttpStatusEntryPoint entryPoint = new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED);
+		http
+				.securityMatcher(new OrRequestMatcher(
+						new AntPathRequestMatcher("/api/authenticate", HttpMethod.POST.name()),
+						new AndRequestMatcher(
+								new AntPathRequestMatcher("/api/**"),
+								JwtAuthenticationFilter::hasBearerToken)))
+				.csrf(c -> c.disable())
+				.cors(c -> c.disable())
+				.sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+				.requestCache(c -> c.disable())
+				.authorizeHttpRequests((requests) -> requests
+						.requestMatchers(HttpMethod.POST, "/api/authenticate").permitAll()
+						.anyRequest().authenticated())
+				.exceptionHandling(e -> e.authenticationEntryPoint(entryPoint))
+				.addFilterBefore(new JwtAuthenticationFilter(jwtTokenService, entryPoint),
+						UsernamePasswordAuthenticationFilter.class);
+
+		return http.build();
+	}
+
 	@Bean
+	@Order(2)
 	SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		http
 				.csrf(c -> c.ignoringRequestMatchers("auth/login", "auth/logout")
@@ -47,8 +100,24 @@ public class WebSecurityConfig {
 		return http.build();
 	}
 
+	/**
+	 * パスワードのハッシュ化・照合
+	 * 新しいパスワードは既定の形式(bcrypt)でハッシュ化し、照合は passwordTaskExecutor で実行する。
+	 * 形式の識別子 `{xxxx}` のない以前の平文のパスワードも照合でき、ログイン時に既定の形式に移行する。
+	 */
+	@Bean
+	@SuppressWarnings("deprecation")
+	PasswordEncoder passwordEncoder(@Qualifier("passwordTaskExecutor") ThreadPoolTaskExecutor passwordTaskExecutor,
+			@Value("${password.verify-timeout:2s}") Duration timeout, MeterRegistry meterRegistry) {
+		DelegatingPasswordEncoder delegate = (DelegatingPasswordEncoder)PasswordEncoderFactories
+				.createDelegatingPasswordEncoder();
+		delegate.setDefaultPasswordEncoderForMatches(NoOpPasswordEncoder.getInstance());
+		return new BoundedPasswordEncoder(delegate, passwordTaskExecutor, timeout,
+				meterRegistry.counter("password.executor.rejected"));
+	}
+
 	@Bean
-	UserDetailsService userDetailsService() {
+	DatabaseUserDetailsService userDetailsService() {
 		UserDetails user = User.builder()
 				.username("user")
 				.password("{noop}password")
@@ -61,6 +130,6 @@ public class WebSecurityConfig {
 				.roles("USER", "ADMIN")
 				.build();
 
-		return new CustomInMemoryUserDetailsManager(user, admin);
+		return new DatabaseUserDetailsService(user, admin);
 	}
 }
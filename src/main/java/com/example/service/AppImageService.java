@@ -0,0 +1,237 @@
+package com.example.service;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * アプリ画像のファイルストア(内容アドレス方式)
+ *
+ * 画像は内容の SHA-256 と形式の拡張子をキーとしてファイルに保存するため、同じ画像は1つのファイルを共有する。
+ * キーが同じなら内容も同じなので、配信時は変更されないものとしてキャッシュさせられる。
+ * 一覧(最大100px)・詳細と編集(最大200px)の表示サイズの縮小画像は保存時に1度だけ作成する(docs/apps.md)。
+ * 複数のアプリで共有されうるため、アプリを削除してもファイルは削除しない。
+ */
+@Service
+public class AppImageService {
+
+	// 縮小画像を作成する表示サイズ(幅・高さの最大px)
+	public static final List<Integer> THUMBNAIL_SIZES = List.of(100, 200);
+
+	private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|gif|bmp|webp)");
+
+	// 形式の判定に読む先頭のバイト数
+	private static final int HEADER_LENGTH = 12;
+
+	@Value("${app-image.store-dir:data/app-images}")
+	private String storeDir;
+
+	/**
+	 * 画像を保存してキーを返す(同じ画像が保存済みの場合はそのキーを返す)
+	 *
+	 * @param in 画像データ(呼び出し側で閉じる)
+	 * @return String キー
+	 * @throws IOException
+	 * @throws IllegalArgumentException 対応していない形式の場合
+	 */
+	public String store(InputStream in) throws IOException {
+		Path root = Paths.get(storeDir);
+		Files.createDirectories(root);
+		// 内容のハッシュが分かるまでは一時ファイルに書き出す
+		Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+		try {
+			MessageDigest digest = this.sha256();
+			try (OutputStream out = Files.newOutputStream(tmp)) {
+				new DigestInputStream(in, digest).transferTo(out);
+			}
+			String extension = this.detectExtension(tmp);
+			if (extension == null) {
+				throw new IllegalArgumentException("対応していない画像形式です。");
+			}
+			String key = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+			Path file = this.path(key);
+			if (!Files.exists(file)) {
+				Files.createDirectories(file.getParent());
+				Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+			}
+			this.createThumbnails(key);
+			return key;
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * base64 の data URL(data:image/png;base64,...)の画像を保存してキーを返す
+	 *
+	 * @param dataUrl
+	 * @return String キー
+	 * @throws IOException
+	 * @throws IllegalArgumentException data URL でない・対応していない形式の場合
+	 */
+	public String storeDataUrl(String dataUrl) throws IOException {
+		try (InputStream in = new ByteArrayInputStream(this.decodeDataUrl(dataUrl))) {
+			return this.store(in);
+		}
+	}
+
+	/**
+	 * base64 の data URL をデコードする
+	 *
+	 * @param dataUrl
+	 * @return byte[]
+	 * @throws IllegalArgumentException data URL でない場合
+	 */
+	public byte[] decodeDataUrl(String dataUrl) {
+		int comma = dataUrl != null ? dataUrl.indexOf(',') : -1;
+		if (comma < 0 || !dataUrl.startsWith("data:") || !dataUrl.substring(0, comma).endsWith(";base64")) {
+			throw new IllegalArgumentException("画像が data URL ではありません。");
+		}
+		return Base64.getDecoder().decode(dataUrl.substring(comma + 1));
+	}
+
+	/**
+	 * 配信するファイルを取得する
+	 * 縮小画像がない場合(元画像が表示サイズ以下・縮小できない形式)は元画像を返す
+	 *
+	 * @param key
+	 * @param size 表示サイズ(null の場合は元画像)
+	 * @return Optional<Path>
+	 */
+	public Optional<Path> resolve(String key, Integer size) {
+		if (key == null || !KEY_PATTERN.matcher(key).matches()
+				|| (size != null && !THUMBNAIL_SIZES.contains(size))) {
+			return Optional.empty();
+		}
+		if (size != null) {
+			Path thumbnail = this.thumbnailPath(key, size);
+			if (Files.isRegularFile(thumbnail)) {
+				return Optional.of(thumbnail);
+			}
+		}
+		Path file = this.path(key);
+		return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+	}
+
+	/**
+	 * 表示サイズごとの縮小画像を作成する(作成済み・表示サイズ以下の場合は作成しない)
+	 * 読み込めない形式(webp など)は縮小せず元画像を配信する
+	 */
+	private void createThumbnails(String key) throws IOException {
+		BufferedImage source = null;
+		for (int size : THUMBNAIL_SIZES) {
+			Path thumbnail = this.thumbnailPath(key, size);
+			if (Files.exists(thumbnail)) {
+				continue;
+			}
+			if (source == null) {
+				source = ImageIO.read(this.path(key).toFile());
+				if (source == null) {
+					return;
+				}
+			}
+			if (source.getWidth() <= size && source.getHeight() <= size) {
+				continue;
+			}
+			this.writeThumbnail(source, key, size, thumbnail);
+		}
+	}
+
+	private void writeThumbnail(BufferedImage source, String key, int size, Path thumbnail) throws IOException {
+		double scale = Math.min((double)size / source.getWidth(), (double)size / source.getHeight());
+		int width = Math.max(1, (int)Math.round(source.getWidth() * scale));
+		int height = Math.max(1, (int)Math.round(source.getHeight() * scale));
+		String format = this.extension(key);
+		// JPEG・BMP は透過を持てないため RGB で作成する
+		boolean opaque = format.equals("jpg") || format.equals("bmp");
+		BufferedImage scaled = new BufferedImage(width, height,
+				opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.drawImage(source.getScaledInstance(width, height, Image.SCALE_AREA_AVERAGING), 0, 0, null);
+		} finally {
+			graphics.dispose();
+		}
+
+		Path tmp = Files.createTempFile(thumbnail.getParent(), "thumbnail-", ".tmp");
+		try {
+			if (!ImageIO.write(scaled, format, tmp.toFile())) {
+				return;
+			}
+			Files.move(tmp, thumbnail, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * 先頭のバイト列から画像形式の拡張子を判定する(対応していない形式は null)
+	 */
+	private String detectExtension(Path file) throws IOException {
+		byte[] header = new byte[HEADER_LENGTH];
+		int length;
+		try (InputStream in = Files.newInputStream(file)) {
+			length = in.readNBytes(header, 0, HEADER_LENGTH);
+		}
+		if (length >= 8 && (header[0] & 0xff) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+			return "png";
+		}
+		if (length >= 3 && (header[0] & 0xff) == 0xff && (header[1] & 0xff) == 0xd8 && (header[2] & 0xff) == 0xff) {
+			return "jpg";
+		}
+		if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+			return "gif";
+		}
+		if (length >= 2 && header[0] == 'B' && header[1] == 'M') {
+			return "bmp";
+		}
+		if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+				&& header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+			return "webp";
+		}
+		return null;
+	}
+
+	// キーの先頭2文字のディレクトリに分けて保存する
+	private Path path(String key) {
+		return Paths.get(storeDir, key.substring(0, 2), key);
+	}
+
+	private Path thumbnailPath(String key, int size) {
+		int dot = key.lastIndexOf('.');
+		return Paths.get(storeDir, key.substring(0, 2), key.substring(0, dot) + "-" + size + key.substring(dot));
+	}
+
+	private String extension(String key) {
+		return key.substring(key.lastIndexOf('.') + 1);
+	}
+
+	private MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,33 +1,119 @@
 package com.example.service;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import com.example.entity.AppListRow;
 import com.example.model.App;
 import com.example.repository.AppRepository;
+import com.example.utils.Pageables;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
 public class AppService {
 
+	private static final Set<String> SORTABLE = Set.of("name", "url", "developer", "active");
+
 	@Autowired
 	private AppRepository appRepository;
 
+	@Autowired
+	private AppImageService appImageService;
+
 	public List<App> findAll() {
 		return appRepository.findAll();
 	}
 
+	/**
+	 * 一覧画面用に1ページ分取得する(画像は読み込まない)
+	 */
+	public Page<AppListRow> findListRows(Pageable pageable) {
+		return appRepository.findListRows(Pageables.restrictSort(pageable, SORTABLE));
+	}
+
+	/**
+	 * 画像ストアに移行前の画像(data URL)だけを取得する
+	 */
+	public Optional<String> findImage(Long id) {
+		return appRepository.findImageById(id);
+	}
+
+	public Optional<String> findImageKey(Long id) {
+		return appRepository.findImageKeyById(id);
+	}
+
 	public Optional<App> findOne(Long id) {
 		return appRepository.findById(id);
 	}
 
 	@Transactional(readOnly = false)
 	public App save(App entity) {
+		return this.save(entity, null);
+	}
+
+	/**
+	 * アプリを保存する
+	 * 画像は画像ストアに保存してキーだけをDBに保存する。画像を選択しなかった場合は現在の画像のままとする
+	 *
+	 * @param entity
+	 * @param imageFile アップロードされた画像(未選択の場合は null または空)
+	 * @return App
+	 * @throws IllegalArgumentException 対応していない画像形式の場合
+	 */
+	@Transactional(readOnly = false)
+	public App save(App entity, MultipartFile imageFile) {
+		String legacyImage = entity.getImage();
+		entity.setImage("");
+		try {
+			if (imageFile != null && !imageFile.isEmpty()) {
+				try (InputStream in = imageFile.getInputStream()) {
+					entity.setImageKey(appImageService.store(in));
+				}
+			} else if (StringUtils.isNotEmpty(legacyImage)) {
+				// data URL で指定された場合(移行前の形式)
+				entity.setImageKey(appImageService.storeDataUrl(legacyImage));
+			} else if (entity.getId() != null) {
+				this.keepCurrentImage(entity);
+			} else {
+				entity.setImageKey(null);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 		return appRepository.save(entity);
 	}
 
+	/**
+	 * 現在の画像を引き継ぐ(未移行の場合はここで画像ストアに移行する)
+	 */
+	private void keepCurrentImage(App entity) throws IOException {
+		entity.setImageKey(appRepository.findImageKeyById(entity.getId()).orElse(null));
+		if (entity.getImageKey() != null) {
+			return;
+		}
+		String image = appRepository.findImageById(entity.getId()).orElse("");
+		if (image.isEmpty()) {
+			return;
+		}
+		try {
+			entity.setImageKey(appImageService.storeDataUrl(image));
+		} catch (IllegalArgumentException e) {
+			// 移行できない画像は消さずにそのまま残す
+			entity.setImage(image);
+		}
+	}
+
 	@Transactional(readOnly = false)
 	public void delete(App entity) {
 		appRepository.delete(entity);
@@ -0,0 +1,27 @@
+package com.example.service;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 参照データキャッシュの無効化を各ノードに伝える
+ *
+ * 複数ノードで動かす場合は、メッセージング等で他ノードにも配信する実装を @Primary で登録する。
+ * 無効化は何度受け取っても結果が変わらないため、自ノードに配信されてもよい。
+ */
+public interface CacheInvalidationBus {
+
+	/**
+	 * 無効化を配信する
+	 *
+	 * @param cacheName キャッシュ名
+	 * @param key       キー(null の場合はキャッシュ全体)
+	 */
+	void publish(String cacheName, String key);
+
+	/**
+	 * 無効化の受信処理を登録する
+	 *
+	 * @param listener キャッシュ名とキーを受け取る処理
+	 */
+	void subscribe(BiConsumer<String, String> listener);
+}
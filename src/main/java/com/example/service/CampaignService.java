@@ -1,36 +1,69 @@
 package com.example.service;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
+import com.example.entity.BulkStatusUpdateResult;
+import com.example.entity.BulkStatusUpdateResult.Outcome;
+import com.example.entity.ImportResult;
 import com.example.enums.CampaignStatus;
 import com.example.enums.DiscountType;
 import com.example.model.Campaign;
 import com.example.repository.CampaignRepository;
+import com.example.utils.CheckUtil;
+import com.example.utils.CsvReader;
+import com.example.utils.Pageables;
+
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.sql.Types;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class CampaignService {
 
+	private static final Set<String> SORTABLE = Set.of("name", "code", "discountType", "fromDate", "toDate",
+			"status");
+
 	@Autowired
 	private CampaignRepository campaignRepository;
 
+	@Autowired
+	private ReferenceCacheService referenceCacheService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
 	private final NamedParameterJdbcTemplate jdbcTemplate;
 
+	@Value("${import.chunk-size:1000}")
+	private int importChunkSize;
+
 	public CampaignService(NamedParameterJdbcTemplate jdbcTemplate) {
 		this.jdbcTemplate = jdbcTemplate;
 	}
@@ -39,93 +72,255 @@ public class CampaignService {
 		return campaignRepository.findAll();
 	}
 
+	/**
+	 * 一覧画面用に1ページ分取得する
+	 */
+	public Page<Campaign> findPage(Pageable pageable) {
+		return campaignRepository.findAll(Pageables.restrictSort(pageable, SORTABLE));
+	}
+
 	public Optional<Campaign> findOne(Long id) {
 		return campaignRepository.findById(id);
 	}
 
+	/**
+	 * キャンペーンコードでキャンペーンを取得する(参照データキャッシュを経由する)
+	 * 未使用のコードの確認にも使うため、存在しないことも Optional.empty() としてキャッシュする
+	 * キャッシュしたエンティティは他のリクエストと共有するため、呼び出し元にはコピーを返す
+	 * 参照用(コードの重複チェック)。更新・削除には findOne で取得したエンティティを使う
+	 */
 	public Optional<Campaign> findByCode(String code) {
-		return campaignRepository.findByCode(code);
+		return referenceCacheService.get(ReferenceCacheService.CAMPAIGNS_BY_CODE, code,
+				() -> campaignRepository.findByCode(code))
+				.map(campaign -> {
+					Campaign copy = new Campaign();
+					BeanUtils.copyProperties(campaign, copy);
+					return copy;
+				});
 	}
 
+	/**
+	 * 更新ではコードが変わる場合があり、変更前のコードは分からないため、コードのキャッシュは全体を無効化する
+	 */
 	@Transactional(readOnly = false)
 	public Campaign save(Campaign entity) {
-		return campaignRepository.save(entity);
+		Campaign campaign = campaignRepository.save(entity);
+		referenceCacheService.evictAll(ReferenceCacheService.CAMPAIGNS_BY_CODE);
+		return campaign;
 	}
 
 	@Transactional(readOnly = false)
 	public void delete(Campaign entity) {
 		campaignRepository.delete(entity);
+		referenceCacheService.evictAll(ReferenceCacheService.CAMPAIGNS_BY_CODE);
 	}
 
 	/**
 	 * CSVインポート処理
 	 *
+	 * import.chunk-size 件ごとにキャンペーンコードの重複をまとめてチェックし、一括登録する。
+	 * 不正な行は登録せず、行ごとのエラーとして結果に含める。
+	 * チャンクごとにコミットし、登録に失敗したチャンクはその行をエラーとして以降のチャンクの取込を続ける。
+	 *
 	 * @param file
+	 * @return ImportResult 取込結果
 	 * @throws IOException
 	 */
-	@Transactional
-	public void importCSV(MultipartFile file) throws IOException {
-		try (BufferedReader br = new BufferedReader(
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public ImportResult importCSV(MultipartFile file) throws IOException {
+		ImportResult result = new ImportResult();
+		// ファイル内で出現済みのキャンペーンコード
+		Set<String> codes = new HashSet<>();
+		// 行番号と登録対象のキャンペーン
+		Map<Long, Campaign> chunk = new LinkedHashMap<>();
+		try (CsvReader reader = new CsvReader(
 				new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-			String line = br.readLine(); // 1行目はヘッダーなので読み飛ばす
-			// TODO: ここを一括更新処理に変更したい batchInsertメソッドを使用するように
-			while ((line = br.readLine()) != null) {
-				final String[] split = line.replace("\"", "").split(",");
-				final Campaign campaign = new Campaign(
-						split[0], split[1], split[2], split[3],
-						DiscountType.valueOf(Integer.parseInt(split[4])),
-						CampaignStatus.valueOf(Integer.parseInt(split[5])), split[6]);
-				campaignRepository.save(campaign);
+			reader.readRecord(); // 1行目はヘッダーなので読み飛ばす
+			String[] record;
+			while ((record = reader.readRecord()) != null) {
+				result.setReadCount(result.getReadCount() + 1);
+				long line = reader.getRecordNumber();
+				try {
+					Campaign campaign = this.parseRecord(record);
+					if (!codes.add(campaign.getCode())) {
+						result.addError(line, "キャンペーンコードがファイル内で重複しています。(" + campaign.getCode() + ")");
+					} else {
+						chunk.put(line, campaign);
+					}
+				} catch (IllegalArgumentException e) {
+					result.addError(line, e.getMessage());
+				}
+
+				if (chunk.size() >= importChunkSize) {
+					this.insertChunk(chunk, result);
+					chunk.clear();
+				}
 			}
+			this.insertChunk(chunk, result);
 		} catch (IOException e) {
 			throw new RuntimeException("ファイルが読み込めません", e);
 		}
+		return result;
+	}
+
+	/**
+	 * CSVの1レコードをキャンペーンに変換する
+	 *
+	 * @param record
+	 * @return Campaign
+	 * @throws IllegalArgumentException 不正なレコードの場合
+	 */
+	private Campaign parseRecord(String[] record) {
+		if (record.length < 7) {
+			throw new IllegalArgumentException("項目数が不足しています。");
+		}
+		String name = record[0].trim();
+		String code = record[1].trim();
+		String fromDate = record[2].trim();
+		String toDate = record[3].trim();
+		String description = record[6];
+		if (name.isEmpty() || name.length() > 100) {
+			throw new IllegalArgumentException("キャンペーン名は1文字以上100文字以下で入力してください。");
+		}
+		if (code.isEmpty()) {
+			throw new IllegalArgumentException("キャンペーンコードを入力してください。");
+		}
+		if (fromDate.isEmpty() || toDate.isEmpty()) {
+			throw new IllegalArgumentException("開始日と終了日を入力してください。");
+		}
+		DiscountType discountType = DiscountType.valueOf(this.parseId(record[4], "割引タイプ"));
+		if (discountType == null) {
+			throw new IllegalArgumentException("割引タイプが不正です。");
+		}
+		CampaignStatus status = CampaignStatus.valueOf(this.parseId(record[5], "ステータス"));
+		if (status == null) {
+			throw new IllegalArgumentException("ステータスが不正です。");
+		}
+		if (!CheckUtil.checkDescriptionLength(description)) {
+			throw new IllegalArgumentException("説明は2000文字以下で入力してください。");
+		}
+		return new Campaign(name, code, fromDate, toDate, discountType, status, description);
+	}
+
+	private int parseId(String value, String label) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(label + "は数値で入力してください。");
+		}
+	}
+
+	/**
+	 * チャンク内のキャンペーンを登録済みコードと突き合わせて一括登録する(チャンクごとに1トランザクション)
+	 * 登録に失敗した場合(チェック後に同じコードが登録された場合など)は、チャンクの登録対象の行をすべてエラーにする
+	 *
+	 * @param chunk  行番号と登録対象のキャンペーン
+	 * @param result 取込結果
+	 */
+	private void insertChunk(Map<Long, Campaign> chunk, ImportResult result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		Map<Long, Campaign> targets = new LinkedHashMap<>();
+		List<Long> registeredLines = new ArrayList<>();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				// 登録済みのコードを1クエリでまとめて取得する
+				Set<String> registered = new HashSet<>(campaignRepository.findCodesByCodeIn(
+						chunk.values().stream().map(Campaign::getCode).collect(Collectors.toList())));
+				chunk.forEach((line, campaign) -> {
+					if (registered.contains(campaign.getCode())) {
+						registeredLines.add(line);
+					} else {
+						targets.put(line, campaign);
+					}
+				});
+				if (!targets.isEmpty()) {
+					this.batchInsert(new ArrayList<>(targets.values()));
+					// 未使用としてキャッシュしていたコードが登録済みになるため無効化する
+					referenceCacheService.evictAll(ReferenceCacheService.CAMPAIGNS_BY_CODE);
+				}
+			});
+		} catch (DataAccessException e) {
+			e.printStackTrace();
+			chunk.forEach((line, campaign) -> result.addError(line,
+					"登録に失敗しました。(" + campaign.getCode() + ")"));
+			return;
+		}
+		for (Long line : registeredLines) {
+			result.addError(line, "すでに登録済みのキャンペーンコードです。(" + chunk.get(line).getCode() + ")");
+		}
+		result.setWriteCount(result.getWriteCount() + targets.size());
 	}
 
 	/**
-	 * 一括更新処理実行
+	 * 一括登録処理実行
 	 *
 	 * @param campaigns
 	 */
-	@SuppressWarnings("unused")
 	private int[] batchInsert(List<Campaign> campaigns) {
 		String sql = "INSERT INTO campaigns (name, code, from_date, to_date, discount_type, status, description, create_at, update_at)"
 				+ " VALUES(:name, :code, :from_date, :to_date, :discount_type, :status, :description, :create_at, :update_at)";
-		// FIXME: ここでエラーが出る インサート文の問題？
+		Timestamp now = new Timestamp(System.currentTimeMillis());
 		return jdbcTemplate.batchUpdate(sql,
 				campaigns.stream()
 						.map(c -> new MapSqlParameterSource()
 								.addValue("name", c.getName(), Types.VARCHAR)
 								.addValue("code", c.getCode(), Types.VARCHAR)
 								.addValue("from_date", c.getFromDate(), Types.VARCHAR)
+								.addValue("to_date", c.getToDate(), Types.VARCHAR)
 								.addValue("discount_type", c.getDiscountType().getId(), Types.TINYINT)
+								.addValue("status", c.getStatus().getId(), Types.TINYINT)
 								.addValue("description", c.getDescription(), Types.VARCHAR)
-								.addValue("create_at", new Date(), Types.TIMESTAMP))
+								.addValue("create_at", now, Types.TIMESTAMP)
+								.addValue("update_at", now, Types.TIMESTAMP))
 						.toArray(SqlParameterSource[]::new));
 	}
 
 	/**
-	 * 一括ステータス更新処理 更新前にステータスをチェックする
+	 * 一括ステータス更新処理
+	 *
+	 * 対象を1クエリでまとめて行ロックを取って取得し、ステータス遷移表に従ってメモリ上でチェックした上で、
+	 * 更新可能なものだけを1つのUPDATE文で更新する。
+	 * 行ロックによりチェックから更新までの間に他のリクエストからステータスが変更されないため、対象ごとの結果は実際の更新と一致する。
 	 *
 	 * @param idList    更新対象IDリスト
 	 * @param nexStatus 更新後ステータス
-	 * @throws Exception
+	 * @return BulkStatusUpdateResult 対象ごとの更新結果
 	 */
-	@Transactional(readOnly = false, rollbackFor = RuntimeException.class)
-	public void bulkStatusUpdate(List<Long> idList, CampaignStatus nexStatus) throws Exception {
-		try {
-			idList.forEach(id -> {
-				Campaign campaign = campaignRepository.findById(id).get();
-				// 更新前後のステータスが同じ場合はエラー
-				if (nexStatus.getId() == campaign.getStatus().getId()) {
-					throw new RuntimeException(campaign.getName() + "にステータスの変更がないため、ステータスの一括更新に失敗しました。");
-				}
-				campaign.setStatus(nexStatus);
-				campaignRepository.save(campaign);
-			});
-		} catch (RuntimeException e) {
-			throw new Exception(e.getMessage());
+	@Transactional(readOnly = false)
+	public BulkStatusUpdateResult bulkStatusUpdate(List<Long> idList, CampaignStatus nexStatus) {
+		BulkStatusUpdateResult result = new BulkStatusUpdateResult();
+		List<Campaign> locked = idList.isEmpty() ? List.of() : campaignRepository.findAllByIdInForUpdate(idList);
+		Map<Long, Campaign> campaigns = locked.stream()
+				.collect(Collectors.toMap(Campaign::getId, Function.identity()));
+
+		List<Long> targetIds = new ArrayList<>();
+		for (Long id : new LinkedHashSet<>(idList)) {
+			Campaign campaign = campaigns.get(id);
+			if (campaign == null) {
+				result.add(id, null, Outcome.NOT_FOUND);
+			} else if (campaign.getStatus() == nexStatus) {
+				// 更新前後のステータスが同じ場合は更新しない
+				result.add(id, campaign.getName(), Outcome.UNCHANGED);
+			} else if (!campaign.getStatus().canTransitionTo(nexStatus)) {
+				result.add(id, campaign.getName(), Outcome.INVALID_TRANSITION);
+			} else {
+				targetIds.add(id);
+				result.add(id, campaign.getName(), Outcome.UPDATED);
+			}
+		}
+
+		if (!targetIds.isEmpty()) {
+			int updated = campaignRepository.updateStatusByIdIn(targetIds, nexStatus,
+					CampaignStatus.transitionSourcesOf(nexStatus), new Timestamp(System.currentTimeMillis()));
+			if (updated != targetIds.size()) {
+				// 行ロック中のため通常は起こらないが、結果と一致しない場合はロールバックする
+				throw new IllegalStateException("一括ステータス更新の件数が一致しません。(" + updated + "/" + targetIds.size() + ")");
+			}
+			referenceCacheService.evictAll(ReferenceCacheService.CAMPAIGNS_BY_CODE);
 		}
+		return result;
 	}
 
 }
@@ -1,42 +1,183 @@
 package com.example.service;
 
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.example.model.CategoryProduct;
-import com.example.repository.CategoryProductRepository;
+import com.example.entity.RelinkResult;
 
+/**
+ * カテゴリーと商品の紐付け(categories_products)の差分更新
+ *
+ * 現在の紐付けをIDの配列で取得して指定されたIDとの差分を求め、
+ * 追加分と削除分をそれぞれ1回のバッチで反映する。エンティティは読み込まない。
+ */
 @Service
 @Transactional(readOnly = true)
 public class CategoryProductService {
 
+	// 1文の IN 句に含めるIDの上限
+	private static final int IN_CHUNK_SIZE = 1000;
+
 	@Autowired
-	private CategoryProductRepository categoryProductRepository;
+	private NamedParameterJdbcTemplate jdbcTemplate;
 
-	public List<CategoryProduct> findAll() {
-		return categoryProductRepository.findAll();
+	/**
+	 * カテゴリーに紐づく商品を指定された商品IDに合わせる
+	 *
+	 * @param categoryId
+	 * @param productIds 紐付け後の商品ID
+	 * @return RelinkResult
+	 * @throws IllegalArgumentException カテゴリー・商品が存在しない場合
+	 */
+	@Transactional(readOnly = false)
+	public RelinkResult relinkProducts(Long categoryId, Collection<Long> productIds) {
+		return this.relink(Link.CATEGORY, categoryId, productIds);
 	}
 
-	public Optional<CategoryProduct> findOne(Long id) {
-		return categoryProductRepository.findById(id);
+	/**
+	 * 商品に紐づくカテゴリーを指定されたカテゴリーIDに合わせる
+	 * 商品の保存と同じトランザクションで実行する
+	 *
+	 * @param productId
+	 * @param categoryIds 紐付け後のカテゴリーID
+	 * @return RelinkResult
+	 * @throws IllegalArgumentException 商品・カテゴリーが存在しない場合
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public RelinkResult relinkCategories(Long productId, Collection<Long> categoryIds) {
+		return this.relink(Link.PRODUCT, productId, categoryIds);
 	}
 
-	@Transactional(readOnly = false)
-	public CategoryProduct save(CategoryProduct entity) {
-		return categoryProductRepository.save(entity);
+	/**
+	 * 紐付けの向き(基準になる側と、差分を取る相手側)
+	 */
+	private enum Link {
+		CATEGORY("categories", "category_id", "products", "product_id"),
+		PRODUCT("products", "product_id", "categories", "category_id");
+
+		private final String ownerTable;
+		private final String ownerColumn;
+		private final String targetTable;
+		private final String targetColumn;
+
+		Link(String ownerTable, String ownerColumn, String targetTable, String targetColumn) {
+			this.ownerTable = ownerTable;
+			this.ownerColumn = ownerColumn;
+			this.targetTable = targetTable;
+			this.targetColumn = targetColumn;
+		}
 	}
 
-	@Transactional(readOnly = false)
-	public void delete(CategoryProduct entity) {
-		categoryProductRepository.delete(entity);
+	private RelinkResult relink(Link link, Long ownerId, Collection<Long> targetIds) {
+		if (ownerId == null || targetIds == null || targetIds.contains(null)) {
+			throw new IllegalArgumentException("紐付けるIDを指定してください。");
+		}
+		// 同じ対象の紐付け更新が同時に実行されないよう、基準側の行をロックする(存在確認を兼ねる)
+		List<Long> owner = jdbcTemplate.queryForList(
+				"SELECT id FROM " + link.ownerTable + " WHERE id = :id FOR UPDATE", Map.of("id", ownerId), Long.class);
+		if (owner.isEmpty()) {
+			throw new IllegalArgumentException("紐付け元が見つかりません。(ID: " + ownerId + ")");
+		}
+
+		long[] current = jdbcTemplate.queryForList(
+				"SELECT " + link.targetColumn + " FROM categories_products WHERE " + link.ownerColumn + " = :id",
+				Map.of("id", ownerId), Long.class)
+				.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+		long[] target = targetIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+
+		// ソート済みの配列を突き合わせて追加分と削除分を求める
+		long[] adds = new long[target.length];
+		long[] removes = new long[current.length];
+		int addCount = 0;
+		int removeCount = 0;
+		int unchanged = 0;
+		int i = 0;
+		int j = 0;
+		while (i < current.length || j < target.length) {
+			if (j == target.length || (i < current.length && current[i] < target[j])) {
+				removes[removeCount++] = current[i++];
+			} else if (i == current.length || target[j] < current[i]) {
+				adds[addCount++] = target[j++];
+			} else {
+				unchanged++;
+				i++;
+				j++;
+			}
+		}
+		adds = Arrays.copyOf(adds, addCount);
+		removes = Arrays.copyOf(removes, removeCount);
+
+		if (addCount > 0) {
+			this.checkExists(link, adds);
+		}
+		if (removeCount > 0) {
+			this.batchDelete(link, ownerId, removes);
+		}
+		if (addCount > 0) {
+			this.batchInsert(link, ownerId, adds);
+		}
+		return new RelinkResult(addCount, removeCount, unchanged);
+	}
+
+	/**
+	 * 追加する相手側のIDがすべて存在することを確認する
+	 */
+	private void checkExists(Link link, long[] ids) {
+		int found = 0;
+		for (int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+			List<Long> chunk = this.boxed(ids, from);
+			found += jdbcTemplate.queryForObject(
+					"SELECT COUNT(*) FROM " + link.targetTable + " WHERE id IN (:ids)", Map.of("ids", chunk), Integer.class);
+		}
+		if (found != ids.length) {
+			throw new IllegalArgumentException("存在しないIDが含まれています。");
+		}
+	}
+
+	/**
+	 * 紐付けの一括削除処理
+	 * IN 句の要素数の上限ごとに1文で削除する
+	 */
+	private int batchDelete(Link link, Long ownerId, long[] ids) {
+		String sql = "DELETE FROM categories_products WHERE " + link.ownerColumn + " = :ownerId"
+				+ " AND " + link.targetColumn + " IN (:ids)";
+		int count = 0;
+		for (int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+			count += jdbcTemplate.update(sql, new MapSqlParameterSource()
+					.addValue("ownerId", ownerId)
+					.addValue("ids", this.boxed(ids, from)));
+		}
+		return count;
+	}
+
+	/**
+	 * 紐付けの一括登録処理
+	 */
+	private int[] batchInsert(Link link, Long ownerId, long[] ids) {
+		String sql = "INSERT INTO categories_products (" + link.ownerColumn + ", " + link.targetColumn
+				+ ", create_at, update_at) VALUES(:ownerId, :targetId, :now, :now)";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		MapSqlParameterSource[] params = new MapSqlParameterSource[ids.length];
+		for (int k = 0; k < ids.length; k++) {
+			params[k] = new MapSqlParameterSource()
+					.addValue("ownerId", ownerId)
+					.addValue("targetId", ids[k])
+					.addValue("now", now);
+		}
+		return jdbcTemplate.batchUpdate(sql, params);
 	}
 
-	// 対象の商品IDに紐づくCategoryProductを取得
-	public List<CategoryProduct> findByProductId(Long productId) {
-		return categoryProductRepository.findByProductId(productId);
+	private List<Long> boxed(long[] ids, int from) {
+		return Arrays.stream(ids, from, Math.min(from + IN_CHUNK_SIZE, ids.length)).boxed().toList();
 	}
 }
@@ -3,11 +3,11 @@ package com.example.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.example.model.Category;
-import com.example.model.CategoryProduct;
-import com.example.repository.CategoryRepository;
+import com.example.entity.CategorySummary;
+import com.example.entity.RelinkResult;
 import com.example.repository.CategoryProductRepository;
+import com.example.repository.CategoryRepository;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.Sort;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,53 +21,86 @@ public class CategoryService {
 	@Autowired
 	private CategoryProductRepository categoryProductRepository;
 
-	public List<Category> findAll() {
-		return categoryRepository.findAll();
+	@Autowired
+	private CategoryProductService categoryProductService;
+
+	@Autowired
+	private ProductSearchIndexService productSearchIndexService;
+
+	@Autowired
+	private ReferenceCacheService referenceCacheService;
+
+	/**
+	 * 全カテゴリーを紐づく商品数とともに取得する(選択肢・API用)
+	 * 紐付けや商品は読み込まないため、商品数が増えても1クエリで済む
+	 * 商品の登録・編集画面で何度も使うため参照データキャッシュを経由する(呼び出し側で変更しないこと)
+	 */
+	public List<CategorySummary> findAllSummaries() {
+		return referenceCacheService.get(ReferenceCacheService.CATEGORIES, "summaries",
+				() -> List.copyOf(categoryRepository.findAllSummaries()));
 	}
 
-	public List<Category> findAllOrderByDisplayOrder() {
-		Sort sort = Sort.by(Sort.Direction.DESC, "displayOrder", "id");
-		return categoryRepository.findAll(sort);
+	/**
+	 * カテゴリー一覧画面用に表示順の降順で取得する
+	 */
+	public List<CategorySummary> findListRows() {
+		return referenceCacheService.get(ReferenceCacheService.CATEGORIES, "list-rows",
+				() -> List.copyOf(categoryRepository.findListRows()));
+	}
+
+	public Optional<CategorySummary> findSummary(Long id) {
+		return categoryRepository.findSummaryById(id);
 	}
 
 	public Optional<Category> findOne(Long id) {
 		return categoryRepository.findById(id);
 	}
 
+	/**
+	 * 紐づく商品まで取得する(紐付け商品を表示する画面用)
+	 */
+	public Optional<Category> findOneWithProducts(Long id) {
+		return categoryRepository.findWithProductsById(id);
+	}
+
+	/**
+	 * カテゴリーに紐づく商品IDを取得する
+	 */
+	public List<Long> findProductIds(Long categoryId) {
+		return categoryProductRepository.findProductIdsByCategoryId(categoryId);
+	}
+
 	@Transactional(readOnly = false)
 	public Category save(Category entity) {
+		// カテゴリー名は商品検索インデックスにも保持しているため作り直す
+		productSearchIndexService.invalidateAll();
+		referenceCacheService.evictAll(ReferenceCacheService.CATEGORIES);
 		return categoryRepository.save(entity);
 	}
 
 	@Transactional(readOnly = false)
 	public void delete(Category entity) {
 		categoryRepository.delete(entity);
+		productSearchIndexService.invalidateAll();
+		referenceCacheService.evictAll(ReferenceCacheService.CATEGORIES);
 	}
 
-	@Transactional
-	public boolean deleteInsertCategoryProduct(Long categoryId, List<Long> productIds) {
-
-		try {
-			// カテゴリーIDに基づいて関連するCategoryProductを削除
-			categoryProductRepository.deleteByCategoryId(categoryId);
-			// 新しいCategoryProductを作成して保存
-			insertCategoryProduct(categoryId, productIds);
-		} catch (Exception e) {
-			return false;
-		}
-
-		return true;
-	}
-
-	private void insertCategoryProduct(Long categoryId, List<Long> productIds) {
-		Optional<Category> categoryOptional = categoryRepository.findById(categoryId);
-		if (categoryOptional.isPresent()) {
-			Category category = categoryOptional.get();
-
-			for (Long productId : productIds) {
-				CategoryProduct categoryProduct = new CategoryProduct(category.getId(), productId);
-				categoryProductRepository.save(categoryProduct);
-			}
+	/**
+	 * カテゴリーに紐づく商品を指定された商品IDに合わせる(差分のみ追加・削除する)
+	 *
+	 * @param categoryId
+	 * @param productIds 紐付け後の商品ID
+	 * @return RelinkResult 追加・削除した件数
+	 * @throws IllegalArgumentException カテゴリー・商品が存在しない場合
+	 */
+	@Transactional(readOnly = false)
+	public RelinkResult relinkProducts(Long categoryId, List<Long> productIds) {
+		RelinkResult result = categoryProductService.relinkProducts(categoryId, productIds);
+		if (result.isChanged()) {
+			productSearchIndexService.invalidateAll();
+			// カテゴリーごとの商品数が変わる
+			referenceCacheService.evictAll(ReferenceCacheService.CATEGORIES);
 		}
+		return result;
 	}
 }
@@ -0,0 +1,179 @@
+package com.example.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.model.CompanyBalance;
+import com.example.model.TransactionAmount;
+import com.example.repository.CompanyBalanceRepository;
+import com.example.repository.TransactionAmountRepository;
+
+/**
+ * 取引先ごとの収支残高を管理する
+ *
+ * 残高は取引金額の登録・更新・削除と同じトランザクションで差分を加算して維持する。
+ * 差分更新のため呼び出し元のトランザクションに参加する(単独では呼び出さない)。
+ */
+@Service
+@Transactional(readOnly = true)
+public class CompanyBalanceService {
+
+	@Autowired
+	private CompanyBalanceRepository companyBalanceRepository;
+
+	@Autowired
+	private TransactionAmountRepository transactionAmountRepository;
+
+	@Value("${company-balance.rebuild-on-startup:true}")
+	private boolean rebuildOnStartup;
+
+	/**
+	 * 取引先の残高を取得する(取引がない場合は0の残高)
+	 *
+	 * @param companyId
+	 * @return CompanyBalance
+	 */
+	public CompanyBalance findOne(Long companyId) {
+		return companyBalanceRepository.findById(companyId).orElse(new CompanyBalance(companyId));
+	}
+
+	/**
+	 * 複数の取引先の残高を取引先IDをキーにして取得する
+	 *
+	 * @param companyIds
+	 * @return Map
+	 */
+	public Map<Long, CompanyBalance> findByCompanyIds(Collection<Long> companyIds) {
+		Map<Long, CompanyBalance> balances = companyBalanceRepository.findByCompanyIdIn(companyIds).stream()
+				.collect(Collectors.toMap(CompanyBalance::getCompanyId, Function.identity()));
+		companyIds.forEach(id -> balances.computeIfAbsent(id, CompanyBalance::new));
+		return balances;
+	}
+
+	/**
+	 * 取引金額を残高に加算する
+	 *
+	 * @param tAmount
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void add(TransactionAmount tAmount) {
+		this.apply(List.of(tAmount), 1);
+	}
+
+	/**
+	 * 複数の取引金額を取引先ごとにまとめて残高に加算する
+	 *
+	 * @param tAmounts
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void addAll(Collection<TransactionAmount> tAmounts) {
+		this.apply(tAmounts, 1);
+	}
+
+	/**
+	 * 取引金額を残高から減算する
+	 *
+	 * @param tAmount
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void subtract(TransactionAmount tAmount) {
+		this.apply(List.of(tAmount), -1);
+	}
+
+	/**
+	 * 取引先の残高を削除する
+	 *
+	 * @param companyId
+	 */
+	@Transactional(readOnly = false)
+	public void delete(Long companyId) {
+		if (companyBalanceRepository.existsById(companyId)) {
+			companyBalanceRepository.deleteById(companyId);
+		}
+	}
+
+	/**
+	 * 残高テーブルと取引金額の集計結果を突き合わせ、ずれている取引先IDを返す
+	 *
+	 * @return List<Long>
+	 */
+	public List<Long> verify() {
+		Map<Long, CompanyBalance> expected = new HashMap<>();
+		transactionAmountRepository.aggregateBalances().forEach(b -> expected.put(b.getCompanyId(), b));
+		Map<Long, CompanyBalance> actual = new HashMap<>();
+		companyBalanceRepository.findAll().forEach(b -> actual.put(b.getCompanyId(), b));
+
+		List<Long> drifted = new ArrayList<>();
+		expected.forEach((companyId, balance) -> {
+			CompanyBalance stored = actual.remove(companyId);
+			if (stored == null || !stored.hasSameTotals(balance)) {
+				drifted.add(companyId);
+			}
+		});
+		// 取引がないのに残高が残っている取引先
+		actual.values().stream()
+				.filter(b -> !b.hasSameTotals(new CompanyBalance(b.getCompanyId())))
+				.forEach(b -> drifted.add(b.getCompanyId()));
+		return drifted;
+	}
+
+	/**
+	 * 残高テーブルを取引金額から作り直す
+	 *
+	 * @return int 作成した残高の件数
+	 */
+	@Transactional(readOnly = false)
+	public int rebuild() {
+		companyBalanceRepository.deleteAllRows();
+		return companyBalanceRepository.insertFromTransactionAmounts(new Timestamp(System.currentTimeMillis()));
+	}
+
+	/**
+	 * 起動時に残高テーブルを取引金額と突き合わせ、ずれている場合(空の場合を含む)だけ作り直す
+	 * data.sql で取引金額を直接登録しているため、起動時点の残高を揃えておく
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = false)
+	public void rebuildOnStartup() {
+		if (rebuildOnStartup && !this.verify().isEmpty()) {
+			this.rebuild();
+		}
+	}
+
+	private void apply(Collection<TransactionAmount> tAmounts, int sign) {
+		Map<Long, long[]> deltas = new LinkedHashMap<>();
+		for (TransactionAmount t : tAmounts) {
+			// {収入, 支出, 未対応の収入, 未対応の支出, 件数}
+			long[] delta = deltas.computeIfAbsent(t.getCompanyId(), id -> new long[5]);
+			long price = (long)sign * t.getPrice();
+			boolean unpaid = !Boolean.TRUE.equals(t.getHasPaid());
+			if (Boolean.TRUE.equals(t.getPlusMinus())) {
+				delta[0] += price;
+				delta[2] += unpaid ? price : 0;
+			} else {
+				delta[1] += price;
+				delta[3] += unpaid ? price : 0;
+			}
+			delta[4] += sign;
+		}
+
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		deltas.forEach((companyId, delta) -> companyBalanceRepository.addDelta(companyId,
+				delta[0], delta[1], delta[2], delta[3], delta[4], now));
+	}
+}
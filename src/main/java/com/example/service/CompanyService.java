@@ -1,24 +1,40 @@
 package com.example.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.example.model.Company;
 import com.example.repository.CompanyRepository;
+import com.example.utils.Pageables;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
 public class CompanyService {
 
+	private static final Set<String> SORTABLE = Set.of("name", "email", "zipCode", "address", "phone");
+
 	@Autowired
 	private CompanyRepository companyRepository;
 
+	@Autowired
+	private CompanyBalanceService companyBalanceService;
+
 	public List<Company> findAll() {
 		return companyRepository.findAll();
 	}
 
+	/**
+	 * 一覧画面用に1ページ分取得する
+	 */
+	public Page<Company> findPage(Pageable pageable) {
+		return companyRepository.findAll(Pageables.restrictSort(pageable, SORTABLE));
+	}
+
 	public Optional<Company> findOne(Long id) {
 		return companyRepository.findById(id);
 	}
@@ -30,7 +46,9 @@ public class CompanyService {
 
 	@Transactional(readOnly = false)
 	public void delete(Company entity) {
+		// 取引金額はカスケードで削除されるため残高もあわせて削除する
 		companyRepository.delete(entity);
+		companyBalanceService.delete(entity.getId());
 	}
 
 }
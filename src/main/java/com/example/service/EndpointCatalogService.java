@@ -0,0 +1,79 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.example.entity.Endpoint;
+
+/**
+ * エンドポイントの一覧
+ *
+ * コントローラーの登録が終わった起動時に1度だけ作成し、以降は作成済みの一覧を返す。
+ */
+@Service
+public class EndpointCatalogService {
+
+	// トップページに表示する一覧画面のメソッド名
+	private static final String INDEX_METHOD = "index";
+
+	@Autowired
+	private RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+	private volatile List<Endpoint> endpoints = List.of();
+
+	private volatile List<Endpoint> indexEndpoints = List.of();
+
+	@EventListener(ContextRefreshedEvent.class)
+	public void refresh() {
+		List<Endpoint> all = new ArrayList<>();
+		requestMappingHandlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+			String handler = handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+			for (String path : info.getPatternValues()) {
+				for (String method : this.methods(info)) {
+					all.add(new Endpoint(path, method, handler));
+				}
+			}
+		});
+		all.sort(Comparator.comparing(Endpoint::getPath).thenComparing(Endpoint::getMethod));
+		endpoints = List.copyOf(all);
+
+		indexEndpoints = endpoints.stream()
+				.filter(endpoint -> endpoint.getHandler().endsWith("#" + INDEX_METHOD))
+				.filter(endpoint -> endpoint.getMethod().equals(RequestMethod.GET.name()) || endpoint.getMethod().equals("*"))
+				// 第一階層のみとして/が複数ある場合は除外する
+				.filter(endpoint -> !endpoint.getPath().equals("/") && endpoint.getPath().indexOf("/", 1) == -1)
+				.toList();
+	}
+
+	/**
+	 * すべてのエンドポイント(パス・HTTPメソッド順)
+	 */
+	public List<Endpoint> findAll() {
+		return endpoints;
+	}
+
+	/**
+	 * トップページに表示する一覧画面のエンドポイント(パス順)
+	 */
+	public List<Endpoint> findIndexEndpoints() {
+		return indexEndpoints;
+	}
+
+	private List<String> methods(RequestMappingInfo info) {
+		Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+		if (methods.isEmpty()) {
+			return List.of("*");
+		}
+		return methods.stream().map(RequestMethod::name).sorted().toList();
+	}
+}
@@ -0,0 +1,212 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.enums.FileImportStatus;
+import com.example.enums.ServiceType;
+import com.example.model.FileImportInfo;
+import com.example.repository.FileImportInfoRepository;
+
+/**
+ * ファイル取込ジョブの実行管理
+ *
+ * アップロードされたファイルをローカルディスクに退避し、FileImportInfo を登録した時点で呼び出し元に返す。
+ * 取込処理自体は importTaskExecutor 上でバックグラウンド実行する。
+ * 同じ取込先(種別 + 関連ID)で同時に実行できるジョブ数は import.max-concurrent-per-relation 件までとする。
+ */
+@Service
+@Transactional(readOnly = true)
+public class FileImportJobService {
+
+	@Autowired
+	private FileImportInfoRepository fileImportInfoRepository;
+
+	@Autowired
+	@Qualifier("importTaskExecutor")
+	private ThreadPoolTaskExecutor importTaskExecutor;
+
+	@Value("${import.spool-dir:${java.io.tmpdir}/bugslife-import}")
+	private String spoolDir;
+
+	@Value("${import.max-concurrent-per-relation:1}")
+	private int maxConcurrentPerRelation;
+
+	// 取込先ごとの実行中のジョブ数(実行中のジョブがない取込先は持たない)
+	private final ConcurrentHashMap<String, Integer> running = new ConcurrentHashMap<>();
+
+	/**
+	 * 取込ジョブの処理本体
+	 */
+	@FunctionalInterface
+	public interface ImportJob {
+		/**
+		 * @param file 退避済みのファイル(ジョブ終了後に削除される)
+		 * @param imp  登録済みのCSV取込親テーブル
+		 */
+		void run(Path file, FileImportInfo imp) throws Exception;
+	}
+
+	public Optional<FileImportInfo> findOne(Long id) {
+		return fileImportInfoRepository.findById(id);
+	}
+
+	/**
+	 * 取込元を指定してファイル取込を取得する
+	 * 他の画面の取込(種別・関連IDが異なるもの)は取得しない
+	 *
+	 * @param id         CSV取込親テーブルID
+	 * @param type       取込元のサービス
+	 * @param relationId 取込元の関係するテーブルのID
+	 * @return Optional<FileImportInfo>
+	 */
+	public Optional<FileImportInfo> findOne(Long id, ServiceType type, Long relationId) {
+		return fileImportInfoRepository.findByIdAndTypeAndRelationId(id, type, relationId);
+	}
+
+	/**
+	 * ファイル取込ジョブを受け付ける
+	 *
+	 * @param file       アップロードファイル
+	 * @param type       取込元のサービス
+	 * @param relationId 取込元の関係するテーブルのID
+	 * @param job        取込処理
+	 * @return FileImportInfo 取込中で登録したCSV取込親テーブル
+	 * @throws IOException
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public FileImportInfo submit(MultipartFile file, ServiceType type, Long relationId, ImportJob job)
+			throws IOException {
+		String permit = this.permitKey(type, relationId);
+		if (!this.tryAcquire(permit)) {
+			throw new IllegalStateException("取込処理が実行中です。完了してから再度アップロードしてください。");
+		}
+
+		Path spooled = null;
+		FileImportInfo registered = null;
+		try {
+			// アップロードファイルをローカルディスクに退避する
+			Path dir = Files.createDirectories(Paths.get(spoolDir));
+			spooled = Files.createTempFile(dir, "import-", ".csv");
+			file.transferTo(spooled);
+
+			// CSV取込親テーブルに取込中でデータを登録する
+			FileImportInfo imp = new FileImportInfo();
+			imp.setStartDatetime(LocalDateTime.now());
+			imp.setStatus(FileImportStatus.IMPORTING);
+			imp.setRelationId(relationId);
+			imp.setType(type);
+			registered = fileImportInfoRepository.save(imp);
+
+			final Path target = spooled;
+			final FileImportInfo accepted = registered;
+			importTaskExecutor.execute(() -> this.run(job, target, accepted, permit));
+			return registered;
+		} catch (TaskRejectedException e) {
+			// 登録済みの取込中のデータが残らないよう、取込失敗にする
+			registered.setStatus(FileImportStatus.ERROR);
+			registered.setEndDatetime(LocalDateTime.now());
+			fileImportInfoRepository.save(registered);
+			this.cleanup(spooled, permit);
+			throw new IllegalStateException("取込処理が混み合っています。しばらくしてから再度アップロードしてください。", e);
+		} catch (IOException | RuntimeException e) {
+			this.cleanup(spooled, permit);
+			throw e;
+		}
+	}
+
+	/**
+	 * 指定日時より前に開始して取込中のままのジョブを取込失敗にする
+	 * 実行中に再起動されたジョブは再開されないため、起動時に呼び出す(ImportJobRecovery)
+	 *
+	 * @param before
+	 * @return int 取込失敗にした件数
+	 */
+	@Transactional(readOnly = false)
+	public int failInterrupted(LocalDateTime before) {
+		return fileImportInfoRepository.updateStatusStartedBefore(FileImportStatus.IMPORTING, FileImportStatus.ERROR,
+				before, LocalDateTime.now());
+	}
+
+	/**
+	 * ワーカースレッドでの取込処理
+	 */
+	private void run(ImportJob job, Path file, FileImportInfo imp, String permit) {
+		try {
+			job.run(file, imp);
+		} catch (Exception e) {
+			e.printStackTrace();
+			// ジョブ側でステータスを更新できなかった場合はエラーにする
+			if (imp.getStatus() == FileImportStatus.IMPORTING) {
+				imp.setStatus(FileImportStatus.ERROR);
+				imp.setEndDatetime(LocalDateTime.now());
+				fileImportInfoRepository.save(imp);
+			}
+		} finally {
+			this.cleanup(file, permit);
+		}
+	}
+
+	/**
+	 * 取込先の実行枠を取得する
+	 *
+	 * @param permit 取込先(種別 + 関連ID)
+	 * @return boolean 実行中のジョブ数が上限未満で取得できた場合は true
+	 */
+	private boolean tryAcquire(String permit) {
+		boolean[] acquired = { false };
+		running.compute(permit, (key, count) -> {
+			int current = count == null ? 0 : count;
+			if (current >= maxConcurrentPerRelation) {
+				return count;
+			}
+			acquired[0] = true;
+			return current + 1;
+		});
+		return acquired[0];
+	}
+
+	/**
+	 * 取込先の実行枠を返却する(最後のジョブが終わった取込先は削除し、取込先の数だけ増え続けないようにする)
+	 */
+	private void release(String permit) {
+		running.computeIfPresent(permit, (key, count) -> count > 1 ? count - 1 : null);
+	}
+
+	/**
+	 * 取込先の実行枠を持っているか(実行中のジョブがあるか)
+	 */
+	boolean isRunning(ServiceType type, Long relationId) {
+		return running.containsKey(this.permitKey(type, relationId));
+	}
+
+	private String permitKey(ServiceType type, Long relationId) {
+		return type.getCode() + ":" + relationId;
+	}
+
+	private void cleanup(Path file, String permit) {
+		this.release(permit);
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
+import com.example.model.User;
+import com.example.utils.ReferenceCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * APIの認証に使うJWTの発行・検証
+ *
+ * 署名アルゴリズムと検証器は起動時に1度だけ作成して使い回す。
+ * 検証済みのトークンはハッシュをキーとして短時間キャッシュし、同じトークンの署名検証を省略する(有効期限と失効は毎回確認する)。
+ * 失効させたトークンの jti は、トークンの有効期限までメモリに保持する。
+ */
+@Service
+public class JwtTokenService {
+
+	private static final String ISSUER = "HmacJwtProducer";
+
+	// 有効期限の判定で許容する時計のずれ(秒)
+	private static final long LEEWAY_SECONDS = 5;
+
+	@Value("${jwt.secret}")
+	private String secretKey;
+
+	@Value("${jwt.expiration:60m}")
+	private Duration expiration;
+
+	@Value("${jwt.claims-cache-max-size:10000}")
+	private int claimsCacheMaxSize;
+
+	@Value("${jwt.claims-cache-ttl:30s}")
+	private Duration claimsCacheTtl;
+
+	private Algorithm algorithm;
+
+	private JWTVerifier verifier;
+
+	private ReferenceCache<DecodedJWT> claimsCache;
+
+	// 失効させた jti と、そのトークンの有効期限(epoch 秒)
+	private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		algorithm = Algorithm.HMAC256(secretKey);
+		verifier = JWT.require(algorithm).withIssuer(ISSUER).acceptExpiresAt(LEEWAY_SECONDS).build();
+		claimsCache = new ReferenceCache<>(claimsCacheMaxSize, claimsCacheTtl);
+	}
+
+	/**
+	 * JWTの生成
+	 *
+	 * @param user
+	 * @return String
+	 */
+	public String generate(User user) {
+		Instant now = Instant.now();
+		return JWT.create().withIssuer(ISSUER).withSubject(user.getName())
+				.withExpiresAt(now.plus(expiration)).withIssuedAt(now)
+				.withJWTId(UUID.randomUUID().toString()).withClaim("email", user.getEmail())
+				.withArrayClaim("groups", new String[] { "member", "admin" })
+				.withArrayClaim("roles", this.roles(user))
+				.sign(algorithm);
+	}
+
+	/**
+	 * JWTの検証
+	 *
+	 * @param token
+	 * @return DecodedJWT
+	 * @throws JWTVerificationException 署名・発行者が不正、有効期限切れ、失効済みの場合
+	 */
+	public DecodedJWT verify(String token) {
+		DecodedJWT jwt = claimsCache.get(this.hash(token), key -> verifier.verify(token));
+		// キャッシュ中に有効期限を過ぎたものや、失効させたものは受け付けない
+		Instant expiresAt = jwt.getExpiresAtAsInstant();
+		if (expiresAt != null && Instant.now().isAfter(expiresAt.plusSeconds(LEEWAY_SECONDS))) {
+			throw new TokenExpiredException("The Token has expired on " + expiresAt + ".", expiresAt);
+		}
+		if (jwt.getId() != null && revokedIds.containsKey(jwt.getId())) {
+			throw new JWTVerificationException("The Token has been revoked.");
+		}
+		return jwt;
+	}
+
+	/**
+	 * JWTを失効させる(有効期限を過ぎた jti はあわせて破棄する)
+	 *
+	 * @param jwt 検証済みのトークン
+	 */
+	public void revoke(DecodedJWT jwt) {
+		long now = Instant.now().getEpochSecond();
+		revokedIds.values().removeIf(expiresAt -> expiresAt + LEEWAY_SECONDS < now);
+		if (jwt.getId() == null) {
+			return;
+		}
+		Instant expiresAt = jwt.getExpiresAtAsInstant();
+		revokedIds.put(jwt.getId(), expiresAt != null ? expiresAt.getEpochSecond() : Long.MAX_VALUE - LEEWAY_SECONDS);
+	}
+
+	private String[] roles(User user) {
+		return Arrays.stream(User.Roles.values())
+				.filter(role -> role.getValue().equals(user.getRole()))
+				.findFirst()
+				.map(User.Roles::getRole)
+				.orElse(new String[0]);
+	}
+
+	// トークン自体はキーとして保持しない
+	private String hash(String token) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.example.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * プロセス内だけで無効化を配信する CacheInvalidationBus(単一ノード・テスト用)
+ */
+@Component
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+	private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void publish(String cacheName, String key) {
+		listeners.forEach(listener -> listener.accept(cacheName, key));
+	}
+
+	@Override
+	public void subscribe(BiConsumer<String, String> listener) {
+		listeners.add(listener);
+	}
+}
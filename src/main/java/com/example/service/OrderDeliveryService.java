@@ -0,0 +1,405 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.enums.OrderStatus;
+import com.example.form.OrderForm;
+import com.example.utils.CsvReader;
+import com.example.utils.SpoolFiles;
+
+/**
+ * 受注の一括発送処理
+ *
+ * 読み込んだCSVはローカルディスクに退避し、更新時は選択された行だけを退避ファイルから読み直して反映する。
+ * 画面とのやり取りは行番号のみとし、全行の内容をフォームで送り返さない。
+ * 更新されなかった退避ファイルは import.preview-retention を過ぎると期限切れとし、deleteExpiredSpoolFiles で削除する。
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderDeliveryService {
+
+	public static final String UPLOAD_SUCCESS = "success";
+	public static final String UPLOAD_ERROR = "error";
+
+	// 画面に表示するバリデーションエラーの上限
+	private static final int VALIDATION_ERROR_LIMIT = 100;
+
+	private static final String[] HEADER = { "orderId", "shippingCode", "shippingDate", "deliveryDate",
+			"deliveryTimezone" };
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${import.chunk-size:1000}")
+	private int chunkSize;
+
+	@Value("${import.spool-dir:${java.io.tmpdir}/bugslife-import}")
+	private String spoolDir;
+
+	@Value("${import.preview-retention:1h}")
+	private Duration previewRetention;
+
+	/**
+	 * 出荷CSVを読み込んでバリデーションを行う
+	 *
+	 * エラーがない場合はファイルを退避し、更新時に指定するトークンをセットする。
+	 *
+	 * @param file
+	 * @return OrderForm.OrderShippingData
+	 * @throws IOException
+	 */
+	public OrderForm.OrderShippingData parseCSV(MultipartFile file) throws IOException {
+		Path dir = Files.createDirectories(Paths.get(spoolDir));
+		String token = UUID.randomUUID().toString();
+		Path spooled = dir.resolve(this.spoolFileName(token));
+		file.transferTo(spooled);
+
+		OrderForm.OrderShippingData data = new OrderForm.OrderShippingData();
+		try {
+			this.readCSV(spooled, data.getOrderShippingList()::add, data.getValidationErrors());
+		} finally {
+			if (data.getValidationErrors().isEmpty()) {
+				data.setToken(token);
+			} else {
+				Files.deleteIfExists(spooled);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * 選択された行の出荷情報を更新する
+	 *
+	 * 対象の受注は1回のクエリでまとめて取得し、存在しない受注・完了済みの受注はエラーとする。
+	 * 出荷情報のUPSERTと受注ステータスの更新はチャンク単位でまとめて行う。
+	 *
+	 * @param token        読込時に発行したトークン
+	 * @param selectedRows 選択された行の添字(カンマ区切り、全行の場合は all)
+	 * @return OrderForm.OrderShippingData 行ごとの更新結果
+	 * @throws IOException
+	 * @throws IllegalArgumentException トークンが不正・期限切れの場合
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public OrderForm.OrderShippingData updateShipping(String token, String selectedRows) throws IOException {
+		Path spooled = this.findSpoolFile(token);
+
+		OrderForm.OrderShippingData data = new OrderForm.OrderShippingData();
+		this.readCSV(spooled, data.getOrderShippingList()::add, data.getValidationErrors());
+		if (!data.getValidationErrors().isEmpty()) {
+			throw new IllegalArgumentException("読込済みのCSVが不正です。再度読み込んでください。");
+		}
+
+		List<OrderForm.OrderShipping> rows = data.getOrderShippingList();
+		BitSet selected = this.parseSelectedRows(selectedRows, rows.size());
+		List<OrderForm.OrderShipping> targets = new ArrayList<>(selected.cardinality());
+		selected.stream().forEach(i -> targets.add(rows.get(i)));
+
+		// 対象の受注のステータスをまとめて取得し、更新できない行を除外する
+		Map<Long, String> statuses = this.findOrderStatuses(targets);
+		List<OrderForm.OrderShipping> valid = new ArrayList<>(targets.size());
+		for (OrderForm.OrderShipping row : targets) {
+			String status = statuses.get(row.getOrderId());
+			if (status == null) {
+				this.setResult(row, UPLOAD_ERROR, "受注が見つかりません。");
+			} else if (OrderStatus.COMPLETED.equals(status)) {
+				this.setResult(row, UPLOAD_ERROR, "受注ステータスが完了のため更新できません。");
+			} else {
+				valid.add(row);
+			}
+		}
+
+		for (int from = 0; from < valid.size(); from += chunkSize) {
+			this.writeChunk(valid.subList(from, Math.min(from + chunkSize, valid.size())));
+		}
+
+		Files.deleteIfExists(spooled);
+		return data;
+	}
+
+	/**
+	 * チャンクを1トランザクションで更新する
+	 *
+	 * @param chunk
+	 */
+	private void writeChunk(List<OrderForm.OrderShipping> chunk) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				this.batchUpsertDeliveries(chunk);
+				this.updateOrderStatusShipped(chunk);
+			});
+			chunk.forEach(row -> this.setResult(row, UPLOAD_SUCCESS, null));
+		} catch (DataAccessException e) {
+			e.printStackTrace();
+			chunk.forEach(row -> this.setResult(row, UPLOAD_ERROR, "更新に失敗しました。"));
+		}
+	}
+
+	/**
+	 * 出荷情報の一括UPSERT処理(受注IDで一意)
+	 *
+	 * @param rows
+	 * @return int[]
+	 */
+	private int[] batchUpsertDeliveries(List<OrderForm.OrderShipping> rows) {
+		String sql = "INSERT INTO order_deliveries"
+				+ " (order_id, shipping_code, shipping_date, delivery_date, delivery_timezone, create_at, update_at)"
+				+ " VALUES(:order_id, :shipping_code, :shipping_date, :delivery_date, :delivery_timezone, :create_at, :update_at)"
+				+ " ON DUPLICATE KEY UPDATE"
+				+ " shipping_code = VALUES(shipping_code),"
+				+ " shipping_date = VALUES(shipping_date),"
+				+ " delivery_date = VALUES(delivery_date),"
+				+ " delivery_timezone = VALUES(delivery_timezone),"
+				+ " update_at = VALUES(update_at)";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		return jdbcTemplate.batchUpdate(sql,
+				rows.stream()
+						.map(row -> new MapSqlParameterSource()
+								.addValue("order_id", row.getOrderId(), Types.BIGINT)
+								.addValue("shipping_code", row.getShippingCode(), Types.VARCHAR)
+								.addValue("shipping_date", Date.valueOf(row.getShippingDate()), Types.DATE)
+								.addValue("delivery_date", StringUtils.isEmpty(row.getDeliveryDate()) ? null
+										: Date.valueOf(row.getDeliveryDate()), Types.DATE)
+								.addValue("delivery_timezone", StringUtils.defaultIfEmpty(row.getDeliveryTimezone(), null),
+										Types.VARCHAR)
+								.addValue("create_at", now, Types.TIMESTAMP)
+								.addValue("update_at", now, Types.TIMESTAMP))
+						.toArray(SqlParameterSource[]::new));
+	}
+
+	/**
+	 * 受注ステータスを発送済みに一括更新する
+	 * 取得後に完了になった受注は更新しない
+	 *
+	 * @param rows
+	 * @return int 更新件数
+	 */
+	private int updateOrderStatusShipped(List<OrderForm.OrderShipping> rows) {
+		Set<Long> orderIds = new HashSet<>();
+		rows.forEach(row -> orderIds.add(row.getOrderId()));
+		return jdbcTemplate.update("UPDATE orders SET status = :shipped, update_at = :update_at"
+				+ " WHERE id IN (:ids) AND status <> :completed",
+				new MapSqlParameterSource()
+						.addValue("shipped", OrderStatus.SHIPPED)
+						.addValue("completed", OrderStatus.COMPLETED)
+						.addValue("update_at", new Timestamp(System.currentTimeMillis()))
+						.addValue("ids", orderIds));
+	}
+
+	/**
+	 * 対象の受注のステータスを1回のクエリで取得する
+	 *
+	 * @param rows
+	 * @return Map 受注IDをキーにした受注ステータス
+	 */
+	private Map<Long, String> findOrderStatuses(List<OrderForm.OrderShipping> rows) {
+		Map<Long, String> statuses = new HashMap<>();
+		if (rows.isEmpty()) {
+			return statuses;
+		}
+		Set<Long> orderIds = new HashSet<>();
+		rows.forEach(row -> orderIds.add(row.getOrderId()));
+		jdbcTemplate.query("SELECT id, status FROM orders WHERE id IN (:ids)", Map.of("ids", orderIds),
+				rs -> {
+					statuses.put(rs.getLong("id"), rs.getString("status"));
+				});
+		return statuses;
+	}
+
+	/**
+	 * CSVを1行ずつ読み込んでバリデーションを行う
+	 *
+	 * @param file
+	 * @param rowHandler 読み込んだ行
+	 * @param errors     バリデーションエラー
+	 * @throws IOException
+	 */
+	private void readCSV(Path file, Consumer<OrderForm.OrderShipping> rowHandler, List<String> errors)
+			throws IOException {
+		try (CsvReader reader = new CsvReader(
+				new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+			// ヘッダーから各項目の位置を取得する
+			String[] header = reader.readRecord();
+			int[] index = new int[HEADER.length];
+			for (int i = 0; i < HEADER.length; i++) {
+				index[i] = header == null ? -1 : indexOf(header, HEADER[i]);
+				if (index[i] < 0) {
+					errors.add("必要な項目がありません: " + HEADER[i]);
+				}
+			}
+			if (!errors.isEmpty()) {
+				return;
+			}
+
+			int errorCount = 0;
+			String[] record;
+			while ((record = reader.readRecord()) != null) {
+				OrderForm.OrderShipping row = new OrderForm.OrderShipping();
+				row.setLine(reader.getRecordNumber());
+				String error = this.parseRecord(record, index, row);
+				if (error != null) {
+					if (++errorCount <= VALIDATION_ERROR_LIMIT) {
+						errors.add(row.getLine() + "行目: " + error);
+					}
+					continue;
+				}
+				rowHandler.accept(row);
+			}
+			if (errorCount > VALIDATION_ERROR_LIMIT) {
+				errors.add("ほか " + (errorCount - VALIDATION_ERROR_LIMIT) + " 件のエラーがあります。");
+			}
+		}
+	}
+
+	/**
+	 * CSVの1レコードを出荷情報に変換する
+	 *
+	 * @param record
+	 * @param index  項目の位置
+	 * @param row
+	 * @return String エラーメッセージ(正常な場合はnull)
+	 */
+	private String parseRecord(String[] record, int[] index, OrderForm.OrderShipping row) {
+		String[] values = new String[index.length];
+		for (int i = 0; i < index.length; i++) {
+			values[i] = index[i] < record.length ? record[index[i]].trim() : "";
+		}
+		try {
+			row.setOrderId(Long.parseLong(values[0]));
+		} catch (NumberFormatException e) {
+			return "受注IDは数値で入力してください。";
+		}
+		if (values[1].isEmpty()) {
+			return "出荷コードを入力してください。";
+		}
+		row.setShippingCode(values[1]);
+		if (!isDate(values[2])) {
+			return "出荷日は yyyy-MM-dd で入力してください。";
+		}
+		row.setShippingDate(values[2]);
+		if (!values[3].isEmpty() && !isDate(values[3])) {
+			return "配達日は yyyy-MM-dd で入力してください。";
+		}
+		row.setDeliveryDate(values[3]);
+		row.setDeliveryTimezone(values[4]);
+		return null;
+	}
+
+	private static boolean isDate(String value) {
+		try {
+			LocalDate.parse(value);
+			return true;
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	private static int indexOf(String[] header, String name) {
+		for (int i = 0; i < header.length; i++) {
+			if (name.equals(header[i].trim())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 選択された行の添字を解析する
+	 *
+	 * @param selectedRows カンマ区切りの添字、または all
+	 * @param size         行数
+	 * @return BitSet
+	 */
+	private BitSet parseSelectedRows(String selectedRows, int size) {
+		BitSet selected = new BitSet(size);
+		if ("all".equals(selectedRows)) {
+			selected.set(0, size);
+			return selected;
+		}
+		for (String value : StringUtils.split(StringUtils.defaultString(selectedRows), ',')) {
+			try {
+				int i = Integer.parseInt(value.trim());
+				if (i >= 0 && i < size) {
+					selected.set(i);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("選択された行が不正です。");
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * 期限切れの退避ファイルを削除する
+	 *
+	 * @return int 削除した件数
+	 * @throws IOException
+	 */
+	public int deleteExpiredSpoolFiles() throws IOException {
+		return SpoolFiles.deleteModifiedBefore(Paths.get(spoolDir), this.spoolFileName("*"),
+				Instant.now().minus(previewRetention));
+	}
+
+	private void setResult(OrderForm.OrderShipping row, String status, String message) {
+		row.setUploadStatus(status);
+		row.setUploadMessage(message);
+	}
+
+	private String spoolFileName(String token) {
+		return "shipping-" + token + ".csv";
+	}
+
+	/**
+	 * トークンから退避ファイルを取得する
+	 */
+	private Path findSpoolFile(String token) throws IOException {
+		try {
+			// パスの組み立てに使うため UUID 形式のみ受け付ける
+			token = UUID.fromString(token).toString();
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw new IllegalArgumentException("CSVを読み込んでください。");
+		}
+		Path spooled = Paths.get(spoolDir, this.spoolFileName(token));
+		if (!Files.isRegularFile(spooled)
+				|| Files.getLastModifiedTime(spooled).toInstant().isBefore(Instant.now().minus(previewRetention))) {
+			throw new IllegalArgumentException("読込済みのCSVが見つかりません。再度読み込んでください。");
+		}
+		return spooled;
+	}
+}
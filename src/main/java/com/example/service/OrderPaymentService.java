@@ -0,0 +1,347 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.constants.PaymentType;
+import com.example.enums.FileImportStatus;
+import com.example.enums.PaymentMethod;
+import com.example.enums.ServiceType;
+import com.example.model.FileImportInfo;
+import com.example.repository.FileImportInfoRepository;
+import com.example.repository.OrderRepository;
+import com.example.utils.CsvReader;
+import com.example.utils.CsvWriter;
+import com.example.utils.Money;
+import com.example.utils.SpoolFiles;
+
+/**
+ * 支払い情報の一括取込(入金消込)
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderPaymentService {
+
+	// 受注に紐づかない取込のため、取込先IDは固定値とする
+	private static final Long RELATION_ID = 0L;
+
+	private static final Set<String> PAYMENT_TYPES = Set.of(PaymentType.CREDIT, PaymentType.QUICK,
+			PaymentType.COMPLETED);
+
+	@Autowired
+	private FileImportInfoRepository fileImportInfoRepository;
+
+	@Autowired
+	private FileImportJobService fileImportJobService;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${import.chunk-size:1000}")
+	private int importChunkSize;
+
+	@Value("${import.spool-dir:${java.io.tmpdir}/bugslife-import}")
+	private String spoolDir;
+
+	@Value("${import.result-retention:7d}")
+	private Duration resultRetention;
+
+	/**
+	 * 支払いCSVの1行と取込結果
+	 */
+	private static class PaymentRow {
+		final long line;
+		final String[] record;
+		Long orderId;
+		long amount;
+		String type;
+		String method;
+		Timestamp paidAt;
+		String error;
+
+		PaymentRow(long line, String[] record) {
+			this.line = line;
+			this.record = record;
+		}
+	}
+
+	/**
+	 * 非同期で支払いCSVファイルを取り込む
+	 *
+	 * CSVの項目は order_id, paid, type, method, paid_at の順とする。
+	 * 行ごとの取込結果は結果ファイルに出力し、findResultFile で取得する。
+	 * 結果ファイルは import.result-retention の期間だけ保持する(deleteExpiredResultFiles で削除する)。
+	 *
+	 * @param file
+	 * @return FileImportInfo 取込中で登録したCSV取込親テーブル
+	 * @throws IOException
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public FileImportInfo importCSV(MultipartFile file) throws IOException {
+		return fileImportJobService.submit(file, ServiceType.ORDER, RELATION_ID, this::importCSV);
+	}
+
+	/**
+	 * 支払いCSVの取込を取得する(他の取込は取得しない)
+	 *
+	 * @param importId CSV取込親テーブルID
+	 * @return Optional<FileImportInfo>
+	 */
+	public Optional<FileImportInfo> findImport(Long importId) {
+		return fileImportJobService.findOne(importId, ServiceType.ORDER, RELATION_ID);
+	}
+
+	/**
+	 * 取込結果ファイルを取得する
+	 *
+	 * @param importId CSV取込親テーブルID
+	 * @return Optional<Path>
+	 */
+	public Optional<Path> findResultFile(Long importId) {
+		Path result = this.resultFile(importId);
+		return Files.isRegularFile(result) ? Optional.of(result) : Optional.empty();
+	}
+
+	/**
+	 * 保持期間を過ぎた取込結果ファイルを削除する
+	 *
+	 * @return int 削除した件数
+	 * @throws IOException
+	 */
+	public int deleteExpiredResultFiles() throws IOException {
+		return SpoolFiles.deleteModifiedBefore(Paths.get(spoolDir, "results"), "order-payments-*.csv",
+				Instant.now().minus(resultRetention));
+	}
+
+	private Path resultFile(Long importId) {
+		return Paths.get(spoolDir, "results", "order-payments-" + importId + ".csv");
+	}
+
+	/**
+	 * CSVをチャンク単位で取り込む
+	 *
+	 * @param file 退避済みのCSVファイル
+	 * @param imp  CSV取込親テーブル
+	 * @throws IOException
+	 */
+	private void importCSV(Path file, FileImportInfo imp) throws IOException {
+		Path result = this.resultFile(imp.getId());
+		Files.createDirectories(result.getParent());
+
+		List<PaymentRow> chunk = new ArrayList<>(importChunkSize);
+		try (CsvReader reader = new CsvReader(
+				new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+				CsvWriter writer = new CsvWriter(Files.newBufferedWriter(result, StandardCharsets.UTF_8))) {
+			writer.writeRecord("line", "order_id", "paid", "result", "message");
+			// 1行目はヘッダーなので読み飛ばす
+			reader.readRecord();
+
+			String[] record;
+			while ((record = reader.readRecord()) != null) {
+				imp.setReadCount(imp.getReadCount() + 1);
+				chunk.add(this.parseRecord(reader.getRecordNumber(), record));
+
+				if (chunk.size() == importChunkSize) {
+					this.writeChunk(chunk, imp, writer);
+					chunk.clear();
+				}
+			}
+			this.writeChunk(chunk, imp, writer);
+			imp.setStatus(FileImportStatus.COMPLETE);
+		} catch (IOException | RuntimeException e) {
+			// 失敗の場合、ステータスをエラーにする(コミット済みのチャンクはそのまま残す)
+			imp.setStatus(FileImportStatus.ERROR);
+			throw e;
+		} finally {
+			imp.setEndDatetime(LocalDateTime.now());
+			fileImportInfoRepository.save(imp);
+		}
+	}
+
+	/**
+	 * CSVの1レコードを支払い情報に変換する
+	 * 不正なレコードの場合はエラーメッセージをセットする
+	 *
+	 * @param line
+	 * @param record
+	 * @return PaymentRow
+	 */
+	private PaymentRow parseRecord(long line, String[] record) {
+		PaymentRow row = new PaymentRow(line, record);
+		if (record.length < 5) {
+			row.error = "項目数が不足しています。";
+			return row;
+		}
+		try {
+			row.orderId = Long.parseLong(record[0].trim());
+		} catch (NumberFormatException e) {
+			row.error = "受注IDが不正です。";
+			return row;
+		}
+		try {
+			BigDecimal paid = new BigDecimal(record[1].trim());
+			if (paid.signum() <= 0 || paid.scale() > Money.SCALE) {
+				row.error = "支払い金額は小数第" + Money.SCALE + "位までの正の数で入力してください。";
+				return row;
+			}
+			row.amount = paid.movePointRight(Money.SCALE).longValueExact();
+		} catch (NumberFormatException | ArithmeticException e) {
+			row.error = "支払い金額が不正です。";
+			return row;
+		}
+		row.type = record[2].trim();
+		if (!PAYMENT_TYPES.contains(row.type)) {
+			row.error = "支払いタイプが不正です。";
+			return row;
+		}
+		row.method = record[3].trim();
+		if (PaymentMethod.getPaymentMethod(row.method) == null) {
+			row.error = "支払い方法が不正です。";
+			return row;
+		}
+		try {
+			String paidAt = record[4].trim();
+			row.paidAt = paidAt.length() == 10
+					? Timestamp.valueOf(LocalDate.parse(paidAt).atStartOfDay())
+					: Timestamp.valueOf(paidAt);
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			row.error = "支払い日時は yyyy-MM-dd または yyyy-MM-dd HH:mm:ss で入力してください。";
+		}
+		return row;
+	}
+
+	/**
+	 * チャンクを1トランザクションで登録し、行ごとの結果を出力する
+	 *
+	 * 対象の受注の存在確認はチャンク内の受注IDをまとめて1回で行う。
+	 * 支払い行は JDBC バッチで登録し、受注の支払い済み金額は受注ごとに合算して JDBC バッチで更新する。
+	 *
+	 * @param chunk
+	 * @param imp
+	 * @param writer
+	 * @throws IOException
+	 */
+	private void writeChunk(List<PaymentRow> chunk, FileImportInfo imp, CsvWriter writer) throws IOException {
+		Set<Long> orderIds = new HashSet<>();
+		chunk.stream().filter(row -> row.error == null).forEach(row -> orderIds.add(row.orderId));
+		Set<Long> existing = orderIds.isEmpty() ? Set.of()
+				: new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM orders WHERE id IN (:ids)",
+						Map.of("ids", orderIds), Long.class));
+
+		List<PaymentRow> valid = new ArrayList<>(chunk.size());
+		for (PaymentRow row : chunk) {
+			if (row.error == null && !existing.contains(row.orderId)) {
+				row.error = "受注が見つかりません。";
+			}
+			if (row.error == null) {
+				valid.add(row);
+			}
+		}
+
+		final int writeCount = imp.getWriteCount();
+		final int errorCount = imp.getErrorCount();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				if (!valid.isEmpty()) {
+					this.batchInsertPayments(valid);
+					this.batchAddPaid(valid);
+				}
+				imp.setWriteCount(writeCount + valid.size());
+				imp.setErrorCount(errorCount + chunk.size() - valid.size());
+				fileImportInfoRepository.save(imp);
+			});
+		} catch (DataAccessException e) {
+			e.printStackTrace();
+			valid.forEach(row -> row.error = "登録に失敗しました。");
+			imp.setWriteCount(writeCount);
+			imp.setErrorCount(errorCount + chunk.size());
+			fileImportInfoRepository.save(imp);
+		}
+
+		for (PaymentRow row : chunk) {
+			writer.writeRecord(String.valueOf(row.line),
+					row.record.length > 0 ? row.record[0] : "",
+					row.record.length > 1 ? row.record[1] : "",
+					row.error == null ? "OK" : "NG",
+					row.error);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * 支払い情報の一括登録処理
+	 *
+	 * @param rows
+	 * @return int[]
+	 */
+	private int[] batchInsertPayments(List<PaymentRow> rows) {
+		String sql = "INSERT INTO order_payments (order_id, type, paid, method, paid_at, create_at, update_at)"
+				+ " VALUES(:order_id, :type, :paid, :method, :paid_at, :create_at, :update_at)";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		return jdbcTemplate.batchUpdate(sql,
+				rows.stream()
+						.map(row -> new MapSqlParameterSource()
+								.addValue("order_id", row.orderId, Types.BIGINT)
+								.addValue("type", row.type, Types.VARCHAR)
+								.addValue("paid", Money.toBigDecimal(row.amount), Types.DECIMAL)
+								.addValue("method", row.method, Types.VARCHAR)
+								.addValue("paid_at", row.paidAt, Types.TIMESTAMP)
+								.addValue("create_at", now, Types.TIMESTAMP)
+								.addValue("update_at", now, Types.TIMESTAMP))
+						.toArray(SqlParameterSource[]::new));
+	}
+
+	/**
+	 * 受注ごとに支払い金額を合算し、支払い済み金額と支払いステータスを一括更新する
+	 * 同時に実行される取込どうしでロック順が揃うよう、受注IDの昇順で更新する
+	 *
+	 * @param rows
+	 * @return int[]
+	 */
+	private int[] batchAddPaid(List<PaymentRow> rows) {
+		Map<Long, Long> amounts = new TreeMap<>();
+		rows.forEach(row -> amounts.merge(row.orderId, row.amount, Long::sum));
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		return jdbcTemplate.batchUpdate(OrderRepository.ADD_PAID_SQL,
+				amounts.entrySet().stream()
+						.map(e -> new MapSqlParameterSource()
+								.addValue("id", e.getKey(), Types.BIGINT)
+								.addValue("amount", Money.toBigDecimal(e.getValue()), Types.DECIMAL)
+								.addValue("updateAt", now, Types.TIMESTAMP))
+						.toArray(SqlParameterSource[]::new));
+	}
+}
@@ -1,21 +1,39 @@
 package com.example.service;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
 import com.example.constants.TaxType;
+import com.example.entity.KeysetPage;
+import com.example.entity.OrderListRow;
 import com.example.enums.OrderStatus;
 import com.example.enums.PaymentStatus;
 import com.example.form.OrderForm;
+import com.example.form.OrderSearchForm;
 import com.example.model.Order;
 import com.example.model.OrderPayment;
 import com.example.model.OrderProduct;
+import com.example.model.Product;
+import com.example.repository.OrderPaymentRepository;
 import com.example.repository.OrderRepository;
 import com.example.repository.ProductRepository;
+import com.example.utils.Money;
 
 import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.ArrayList;
 
 @Service
@@ -28,10 +46,43 @@ public class OrderService {
 	@Autowired
 	private ProductRepository productRepository;
 
+	@Autowired
+	private OrderPaymentRepository orderPaymentRepository;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
 	public List<Order> findAll() {
 		return orderRepository.findAll();
 	}
 
+	/**
+	 * 受注一覧をキーセット方式で1ページ分取得する
+	 * 一覧表示用の項目のみ取得し、受注商品はページ内の受注分を1クエリでまとめて取得する
+	 *
+	 * @param form
+	 * @return KeysetPage
+	 */
+	public KeysetPage<OrderListRow> search(OrderSearchForm form) {
+		int size = form.getPageSize();
+		Timestamp afterCreateAt = form.hasCursor() ? new Timestamp(form.getAfterCreateAt()) : null;
+		Long afterId = form.hasCursor() ? form.getAfterId() : null;
+		List<OrderListRow> rows = orderRepository.findListRows(
+				StringUtils.defaultIfBlank(form.getStatus(), null),
+				StringUtils.defaultIfBlank(form.getPaymentStatus(), null),
+				form.getCustomerId(), afterCreateAt, afterId,
+				PageRequest.ofSize(size + 1));
+		KeysetPage<OrderListRow> page = KeysetPage.of(rows, size);
+
+		if (!page.getContent().isEmpty()) {
+			Map<Long, OrderListRow> rowMap = page.getContent().stream()
+					.collect(Collectors.toMap(OrderListRow::getId, Function.identity()));
+			orderRepository.findListItemsByOrderIdIn(rowMap.keySet())
+					.forEach(item -> rowMap.get(item.getOrderId()).getOrderProducts().add(item));
+		}
+		return page;
+	}
+
 	public Optional<Order> findOne(Long id) {
 		return orderRepository.findById(id);
 	}
@@ -41,72 +92,122 @@ public class OrderService {
 		return orderRepository.save(entity);
 	}
 
+	/**
+	 * 受注を登録する
+	 *
+	 * 商品はまとめて1回で取得し、明細の作成と金額計算を1パスで行う。
+	 * 受注明細は受注の登録後にJDBCバッチで一括登録する。
+	 *
+	 * @param entity
+	 * @return Order
+	 * @throws IllegalArgumentException 存在しない商品が指定された場合
+	 */
 	@Transactional(readOnly = false)
 	public Order create(OrderForm.Create entity) {
+		List<OrderForm.Product> lines = entity.getOrderProducts() != null ? entity.getOrderProducts() : List.of();
+		Map<Long, Product> products = this.findProducts(lines);
+
 		Order order = new Order();
 		order.setCustomerId(entity.getCustomerId());
-		order.setShipping(entity.getShipping());
+		order.setShipping(Money.toBigDecimal(Money.of(entity.getShipping())));
 		order.setNote(entity.getNote());
 		order.setPaymentMethod(entity.getPaymentMethod());
 		order.setStatus(OrderStatus.ORDERED);
 		order.setPaymentStatus(PaymentStatus.UNPAID);
-		order.setPaid(0.0);
-
-		var orderProducts = new ArrayList<OrderProduct>();
-		entity.getOrderProducts().forEach(p -> {
-			var product = productRepository.findById(p.getProductId()).get();
+		order.setPaid(Money.toBigDecimal(0));
+
+		// 明細の作成と計算(金額は銭単位の long で計算する)
+		var orderProducts = new ArrayList<OrderProduct>(lines.size());
+		long total = 0;
+		long totalTax = 0;
+		long totalDiscount = 0;
+		for (var line : lines) {
+			var product = products.get(line.getProductId());
+			var taxType = TaxType.get(product.getTaxType());
+			if (taxType == null) {
+				throw new IllegalArgumentException("商品の税区分が不正です。(商品ID: " + product.getId() + ")");
+			}
 			var orderProduct = new OrderProduct();
 			orderProduct.setProductId(product.getId());
 			orderProduct.setCode(product.getCode());
 			orderProduct.setName(product.getName());
-			orderProduct.setQuantity(p.getQuantity());
-			orderProduct.setPrice((double)product.getPrice());
-			orderProduct.setDiscount(p.getDiscount());
-			orderProduct.setTaxType(TaxType.get(product.getTaxType()));
+			orderProduct.setQuantity(line.getQuantity());
+			orderProduct.setPrice(Money.toBigDecimal(Money.ofYen(product.getPrice())));
+			orderProduct.setDiscount(Money.toBigDecimal(Money.of(line.getDiscount())));
+			orderProduct.setTaxType(taxType);
 			orderProducts.add(orderProduct);
-		});
-
-		// 計算
-		var total = 0.0;
-		var totalTax = 0.0;
-		var totalDiscount = 0.0;
-		for (var orderProduct : orderProducts) {
-			var price = orderProduct.getPrice();
-			var quantity = orderProduct.getQuantity();
-			var discount = orderProduct.getDiscount();
-			var tax = 0.0;
-			/**
-			 * 税額を計算する
-			 */
-			if (orderProduct.getTaxIncluded()) {
-				// 税込みの場合
-				tax = price * quantity * orderProduct.getTaxRate() / (100 + orderProduct.getTaxRate());
-			} else {
-				// 税抜きの場合
-				tax = price * quantity * orderProduct.getTaxRate() / 100;
-			}
-			// 端数処理
-			tax = switch (orderProduct.getTaxRounding()) {
-			case TaxType.ROUND -> Math.round(tax);
-			case TaxType.CEIL -> Math.ceil(tax);
-			case TaxType.FLOOR -> Math.floor(tax);
-			default -> tax;
-			};
-			var subTotal = price * quantity + tax - discount;
-			total += subTotal;
+
+			long amount = Money.multiply(Money.ofYen(product.getPrice()), line.getQuantity());
+			long tax = Money.tax(amount, taxType.rate, taxType.taxIncluded, taxType.roundingMode);
+			long discount = Money.of(line.getDiscount());
+			total += amount + tax - discount;
 			totalTax += tax;
 			totalDiscount += discount;
 		}
-		order.setTotal(total);
-		order.setTax(totalTax);
-		order.setDiscount(totalDiscount);
-		order.setGrandTotal(total + order.getShipping());
-		order.setOrderProducts(orderProducts);
+		order.setTotal(Money.toBigDecimal(total));
+		order.setTax(Money.toBigDecimal(totalTax));
+		order.setDiscount(Money.toBigDecimal(totalDiscount));
+		order.setGrandTotal(Money.toBigDecimal(total + Money.of(order.getShipping())));
 
 		orderRepository.save(order);
+		this.batchInsertOrderProducts(order.getId(), orderProducts);
 
 		return order;
+	}
+
+	/**
+	 * 明細で指定された商品をまとめて取得する
+	 *
+	 * @param lines
+	 * @return Map 商品IDをキーにした商品
+	 * @throws IllegalArgumentException 存在しない商品が指定された場合
+	 */
+	private Map<Long, Product> findProducts(List<OrderForm.Product> lines) {
+		Set<Long> productIds = new LinkedHashSet<>();
+		for (var line : lines) {
+			if (line.getProductId() == null) {
+				throw new IllegalArgumentException("商品を選択してください。");
+			}
+			productIds.add(line.getProductId());
+		}
+		Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		List<Long> missing = productIds.stream().filter(id -> !products.containsKey(id)).toList();
+		if (!missing.isEmpty()) {
+			throw new IllegalArgumentException("商品が見つかりません。(商品ID: " + missing + ")");
+		}
+		return products;
+	}
 
+	/**
+	 * 受注明細の一括登録処理
+	 *
+	 * @param orderId
+	 * @param orderProducts
+	 * @return int[]
+	 */
+	private int[] batchInsertOrderProducts(Long orderId, List<OrderProduct> orderProducts) {
+		String sql = "INSERT INTO order_products (order_id, product_id, name, code, quantity, price, discount,"
+				+ " tax_rate, tax_included, tax_rounding, create_at, update_at)"
+				+ " VALUES(:order_id, :product_id, :name, :code, :quantity, :price, :discount,"
+				+ " :tax_rate, :tax_included, :tax_rounding, :create_at, :update_at)";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		return jdbcTemplate.batchUpdate(sql,
+				orderProducts.stream()
+						.map(p -> new MapSqlParameterSource()
+								.addValue("order_id", orderId, Types.BIGINT)
+								.addValue("product_id", p.getProductId(), Types.BIGINT)
+								.addValue("name", p.getName(), Types.VARCHAR)
+								.addValue("code", p.getCode(), Types.VARCHAR)
+								.addValue("quantity", p.getQuantity(), Types.INTEGER)
+								.addValue("price", p.getPrice(), Types.DECIMAL)
+								.addValue("discount", p.getDiscount(), Types.DECIMAL)
+								.addValue("tax_rate", p.getTaxRate(), Types.INTEGER)
+								.addValue("tax_included", p.getTaxIncluded(), Types.BOOLEAN)
+								.addValue("tax_rounding", p.getTaxRounding(), Types.VARCHAR)
+								.addValue("create_at", now, Types.TIMESTAMP)
+								.addValue("update_at", now, Types.TIMESTAMP))
+						.toArray(SqlParameterSource[]::new));
 	}
 
 	@Transactional()
@@ -114,33 +215,35 @@ public class OrderService {
 		orderRepository.delete(entity);
 	}
 
+	/**
+	 * 支払い情報を登録する
+	 *
+	 * 受注の orderPayments は読み込まず、支払い行を追加したうえで
+	 * 受注の支払い済み金額と支払いステータスを1回の UPDATE で更新する。
+	 * 同じ受注への同時の支払いは行ロックで直列化される。
+	 *
+	 * @param entity
+	 * @throws IllegalArgumentException 受注が存在しない場合
+	 */
 	@Transactional(readOnly = false)
 	public void createPayment(OrderForm.CreatePayment entity) {
-		var order = orderRepository.findById(entity.getOrderId()).get();
+		long amount = Money.of(entity.getPaid());
+		int updated = orderRepository.addPaid(entity.getOrderId(), Money.toBigDecimal(amount),
+				new Timestamp(System.currentTimeMillis()));
+		if (updated == 0) {
+			throw new IllegalArgumentException("受注が見つかりません。(受注ID: " + entity.getOrderId() + ")");
+		}
+
 		/**
 		 * 新しい支払い情報を登録する
 		 */
 		var payment = new OrderPayment();
+		payment.setOrderId(entity.getOrderId());
 		payment.setType(entity.getType());
-		payment.setPaid(entity.getPaid());
+		payment.setPaid(Money.toBigDecimal(amount));
 		payment.setMethod(entity.getMethod());
 		payment.setPaidAt(entity.getPaidAt());
-
-		/**
-		 * 支払い情報を更新する
-		 */
-		// orderのorderPaymentsに追加
-		order.getOrderPayments().add(payment);
-		// 支払い済み金額を計算
-		var paid = order.getOrderPayments().stream().mapToDouble(p -> p.getPaid()).sum();
-		// 合計金額から支払いステータスを判定
-		var paymentStatus = paid > order.getGrandTotal() ? PaymentStatus.OVERPAID
-				: paid < order.getGrandTotal() ? PaymentStatus.PARTIALLY_PAID : PaymentStatus.PAID;
-
-		// 更新
-		order.setPaid(paid);
-		order.setPaymentStatus(paymentStatus);
-		orderRepository.save(order);
+		orderPaymentRepository.save(payment);
 	}
 
 }
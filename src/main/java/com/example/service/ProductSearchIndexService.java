@@ -0,0 +1,765 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.entity.KeysetPage;
+import com.example.entity.ProductCategoryName;
+import com.example.entity.ProductWithCategoryName;
+import com.example.form.ProductSearchForm;
+import com.example.model.Product;
+import com.example.repository.CategoryProductRepository;
+import com.example.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * ショップごとの商品検索インデックス(プロセス内)
+ *
+ * 商品一覧の検索条件(名前・コード・カテゴリー・重さ・高さ・値段)をDBに問い合わせずに処理する。
+ * インデックスは初回検索時にショップ単位で作成し、商品の登録・更新・削除はコミット後に差分で反映する。
+ * 推定メモリ使用量が上限を超える場合は古いショップから破棄し、1ショップで上限を超える場合はDB検索に任せる。
+ * 上限は作成時に加えて差分の反映後にも確認し、DB検索に任せたショップは商品が削除されたら次回の検索で作成を試し直す。
+ */
+@Service
+public class ProductSearchIndexService {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryProductRepository categoryProductRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${product-search-index.enabled:true}")
+	private boolean enabled;
+
+	@Value("${product-search-index.max-bytes:268435456}")
+	private long maxBytes;
+
+	@Value("${product-search-index.max-shops:100}")
+	private int maxShops;
+
+	private final Map<Long, ShopIndex> indexes = new ConcurrentHashMap<>();
+
+	// 1ショップで上限を超えたためインデックスを作らないショップ(商品が削除されるまで)
+	private final Set<Long> oversized = ConcurrentHashMap.newKeySet();
+
+	// 商品の変更ごとに進める世代(作成中に変更があったインデックスを捨てるため)
+	private final AtomicLong generation = new AtomicLong();
+
+	@PostConstruct
+	public void registerMetrics() {
+		Gauge.builder("product.search.index.bytes", this, ProductSearchIndexService::estimatedBytes)
+				.description("商品検索インデックスの推定メモリ使用量")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("product.search.index.shops", indexes, Map::size)
+				.description("商品検索インデックスを保持しているショップ数")
+				.register(meterRegistry);
+		Gauge.builder("product.search.index.products", this, ProductSearchIndexService::productCount)
+				.description("商品検索インデックスに登録されている商品数")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * インデックスで商品を検索する
+	 *
+	 * @param shopId
+	 * @param form
+	 * @return インデックスを使えない場合は空
+	 */
+	public Optional<KeysetPage<ProductWithCategoryName>> search(Long shopId, ProductSearchForm form) {
+		if (!enabled || shopId == null) {
+			return Optional.empty();
+		}
+		ShopIndex index = this.getIndex(shopId);
+		if (index == null) {
+			return Optional.empty();
+		}
+		return Optional.of(index.search(form));
+	}
+
+	/**
+	 * 商品の登録・更新をコミット後にインデックスへ反映する
+	 *
+	 * @param productId
+	 */
+	public void onSaved(Long productId) {
+		this.afterCommit(() -> this.refresh(productId));
+	}
+
+	/**
+	 * 商品の削除をコミット後にインデックスへ反映する
+	 *
+	 * @param shopId    削除した商品のショップID
+	 * @param productId
+	 */
+	public void onDeleted(Long shopId, Long productId) {
+		this.afterCommit(() -> {
+			generation.incrementAndGet();
+			// 商品が減ったため、上限を超えていたショップも次回の検索で作成を試し直す
+			if (shopId != null) {
+				oversized.remove(shopId);
+			}
+			indexes.forEach((id, index) -> this.apply(id, index, index.remove(productId)));
+		});
+	}
+
+	/**
+	 * カテゴリーの変更など、複数の商品に影響する変更をコミット後に反映する(全インデックスを破棄する)
+	 */
+	public void invalidateAll() {
+		this.afterCommit(() -> {
+			generation.incrementAndGet();
+			indexes.clear();
+			oversized.clear();
+		});
+	}
+
+	/**
+	 * 推定メモリ使用量(バイト)
+	 */
+	public long estimatedBytes() {
+		return indexes.values().stream().mapToLong(ShopIndex::estimatedBytes).sum();
+	}
+
+	/**
+	 * インデックスに登録されている商品数
+	 */
+	public long productCount() {
+		return indexes.values().stream().mapToLong(ShopIndex::liveCount).sum();
+	}
+
+	private ShopIndex getIndex(Long shopId) {
+		if (oversized.contains(shopId)) {
+			return null;
+		}
+		ShopIndex index = indexes.get(shopId);
+		if (index == null) {
+			long gen = generation.get();
+			index = this.build(shopId);
+			if (index == null) {
+				return null;
+			}
+			ShopIndex existing = indexes.putIfAbsent(shopId, index);
+			if (existing != null) {
+				index = existing;
+			} else if (generation.get() != gen) {
+				// 作成中に商品が変更された場合は反映漏れの可能性があるため使わない
+				indexes.remove(shopId, index);
+				return null;
+			} else {
+				this.evict(shopId);
+			}
+		}
+		index.touch();
+		return index;
+	}
+
+	/**
+	 * ショップの商品とカテゴリーをまとめて読み込んでインデックスを作成する
+	 */
+	private ShopIndex build(Long shopId) {
+		List<ProductWithCategoryName> rows = productRepository.findSearchRowsByShopId(shopId);
+		ShopIndex index = new ShopIndex(rows);
+		index.link(categoryProductRepository.findCategoryNamesByShopId(shopId));
+		if (index.estimatedBytes() > maxBytes) {
+			oversized.add(shopId);
+			return null;
+		}
+		return index;
+	}
+
+	/**
+	 * 上限を超えている間、最後に使われた時刻が古いショップから破棄する
+	 */
+	private void evict(Long keepShopId) {
+		while (indexes.size() > maxShops || this.estimatedBytes() > maxBytes) {
+			Optional<Map.Entry<Long, ShopIndex>> oldest = indexes.entrySet().stream()
+					.filter(e -> !e.getKey().equals(keepShopId))
+					.min((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess));
+			if (oldest.isEmpty()) {
+				return;
+			}
+			indexes.remove(oldest.get().getKey(), oldest.get().getValue());
+		}
+	}
+
+	/**
+	 * 商品を読み直して、所属するショップのインデックスに反映する
+	 * 他のショップのインデックスからは取り除く(ショップが変更された場合)
+	 */
+	private void refresh(Long productId) {
+		generation.incrementAndGet();
+		if (indexes.isEmpty()) {
+			return;
+		}
+		Optional<Product> product = productRepository.findById(productId);
+		List<ProductCategoryName> categories = product.isPresent()
+				? categoryProductRepository.findCategoryNamesByProductIdIn(List.of(productId))
+				: List.of();
+		indexes.forEach((shopId, index) -> {
+			if (product.isPresent() && shopId.equals(product.get().getShopId())) {
+				Product p = product.get();
+				this.apply(shopId, index, index.put(new ProductWithCategoryName(p.getId(), p.getCode(), p.getName(),
+						p.getWeight(), p.getHeight(), p.getPrice()), categories));
+			} else {
+				this.apply(shopId, index, index.remove(productId));
+			}
+		});
+		// 商品の追加で全体の上限を超えた場合は、反映したショップ以外の古いショップから破棄する
+		if (product.isPresent()) {
+			this.evict(product.get().getShopId());
+		}
+	}
+
+	/**
+	 * 差分で反映できなかった場合はインデックスを破棄し、次回の検索で作り直す
+	 * 反映後に1ショップで上限を超えた場合は破棄してDB検索に任せる
+	 */
+	private void apply(Long shopId, ShopIndex index, boolean applied) {
+		if (!applied) {
+			indexes.remove(shopId, index);
+		} else if (index.estimatedBytes() > maxBytes && indexes.remove(shopId, index)) {
+			oversized.add(shopId);
+		}
+	}
+
+	private void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+	/**
+	 * 昇順のint配列(n-gramのポスティングリスト)
+	 */
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		void insert(int value) {
+			int i = Arrays.binarySearch(values, 0, size, value);
+			if (i >= 0) {
+				return;
+			}
+			i = -i - 1;
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			System.arraycopy(values, i, values, i + 1, size - i);
+			values[i] = value;
+			size++;
+		}
+
+		// value 以上の最初の位置
+		int lowerBound(int value) {
+			int i = Arrays.binarySearch(values, 0, size, value);
+			return i >= 0 ? i : -i - 1;
+		}
+
+		long bytes() {
+			return 32L + 4L * values.length;
+		}
+	}
+
+	/**
+	 * (値 << 32 | スロット) の昇順配列(数値項目の範囲検索用)
+	 */
+	private static class RangeIndex {
+		private long[] entries;
+		private int size;
+
+		RangeIndex(int[] values, int count) {
+			entries = new long[Math.max(count, 4)];
+			for (int slot = 0; slot < count; slot++) {
+				entries[size++] = entry(values[slot], slot);
+			}
+			Arrays.sort(entries, 0, size);
+		}
+
+		static long entry(int value, int slot) {
+			return ((long)value << 32) | (slot & 0xFFFFFFFFL);
+		}
+
+		void add(int value, int slot) {
+			long entry = entry(value, slot);
+			int i = Arrays.binarySearch(entries, 0, size, entry);
+			if (i >= 0) {
+				return;
+			}
+			i = -i - 1;
+			if (size == entries.length) {
+				entries = Arrays.copyOf(entries, size * 2);
+			}
+			System.arraycopy(entries, i, entries, i + 1, size - i);
+			entries[i] = entry;
+			size++;
+		}
+
+		void remove(int value, int slot) {
+			int i = Arrays.binarySearch(entries, 0, size, entry(value, slot));
+			if (i >= 0) {
+				System.arraycopy(entries, i + 1, entries, i, size - i - 1);
+				size--;
+			}
+		}
+
+		/**
+		 * from 以上 to 以下の値を持つスロット
+		 */
+		BitSet range(Integer from, Integer to) {
+			int start = from == null ? 0 : this.firstNotLess(entry(from, 0));
+			// スロットは -1 にならないため、entry(to, -1) 以上の最初の位置は to を超える最初の位置になる
+			int end = to == null ? size : this.firstNotLess(entry(to, -1));
+			BitSet slots = new BitSet();
+			for (int i = start; i < end; i++) {
+				slots.set((int)entries[i]);
+			}
+			return slots;
+		}
+
+		private int firstNotLess(long key) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (entries[mid] < key) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		long bytes() {
+			return 24L + 8L * entries.length;
+		}
+	}
+
+	/**
+	 * 1ショップ分のインデックス
+	 *
+	 * 商品は商品IDの昇順にスロットへ割り当てるため、スロット順に走査すればキーセットページングの順序になる。
+	 * 削除・更新前の n-gram は残るが、走査時に有効フラグと文字列の照合で除外する。
+	 * 不要なエントリが有効な商品数を超えた場合は差分反映をやめて作り直す。
+	 */
+	private static class ShopIndex {
+
+		private static final int GRAM = 3;
+
+		private static final IntList NO_MATCH = new IntList();
+
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private volatile long lastAccess;
+
+		// スロットごとの商品
+		private long[] ids;
+		private String[] names;
+		private String[] codes;
+		private int[] weights;
+		private int[] heights;
+		private int[] prices;
+		private long[][] categoryIds;
+		private int size;
+
+		private final BitSet live = new BitSet();
+		private int liveCount;
+		private int garbage;
+
+		private final Map<Long, IntList> nameGrams = new HashMap<>();
+		private final Map<Long, IntList> codeGrams = new HashMap<>();
+		private final RangeIndex weightIndex;
+		private final RangeIndex heightIndex;
+		private final RangeIndex priceIndex;
+		private final Map<Long, BitSet> categorySlots = new HashMap<>();
+		private final Map<Long, String> categoryNames = new HashMap<>();
+
+		private volatile long bytes = -1;
+
+		/**
+		 * @param rows 商品IDの昇順
+		 */
+		ShopIndex(List<ProductWithCategoryName> rows) {
+			int capacity = Math.max(rows.size(), 16);
+			ids = new long[capacity];
+			names = new String[capacity];
+			codes = new String[capacity];
+			weights = new int[capacity];
+			heights = new int[capacity];
+			prices = new int[capacity];
+			categoryIds = new long[capacity][];
+			for (ProductWithCategoryName row : rows) {
+				int slot = size++;
+				this.setFields(slot, row);
+				categoryIds[slot] = new long[0];
+				addGrams(nameGrams, names[slot], slot, false);
+				addGrams(codeGrams, codes[slot], slot, false);
+				live.set(slot);
+			}
+			liveCount = size;
+			weightIndex = new RangeIndex(weights, size);
+			heightIndex = new RangeIndex(heights, size);
+			priceIndex = new RangeIndex(prices, size);
+		}
+
+		/**
+		 * 商品とカテゴリーの紐付けを登録する(作成時のみ)
+		 */
+		void link(List<ProductCategoryName> categories) {
+			Map<Integer, List<Long>> bySlot = new HashMap<>();
+			for (ProductCategoryName category : categories) {
+				int slot = this.slotOf(category.getProductId());
+				if (slot < 0) {
+					continue;
+				}
+				bySlot.computeIfAbsent(slot, k -> new ArrayList<>()).add(category.getCategoryId());
+				categoryNames.put(category.getCategoryId(), category.getName());
+			}
+			bySlot.forEach((slot, list) -> this.setCategories(slot, list));
+		}
+
+		void touch() {
+			lastAccess = System.nanoTime();
+		}
+
+		int liveCount() {
+			return liveCount;
+		}
+
+		/**
+		 * 商品を登録・更新する
+		 *
+		 * @return 差分で反映できない場合は false
+		 */
+		boolean put(ProductWithCategoryName row, List<ProductCategoryName> categories) {
+			lock.writeLock().lock();
+			try {
+				bytes = -1;
+				int slot = this.slotOf(row.getId());
+				if (slot >= 0) {
+					if (live.get(slot)) {
+						this.removeValues(slot);
+						garbage++;
+					} else {
+						live.set(slot);
+						liveCount++;
+					}
+				} else if (size == 0 || row.getId() > ids[size - 1]) {
+					// 新しい商品は末尾のスロットに追加する
+					slot = this.appendSlot();
+					live.set(slot);
+					liveCount++;
+				} else {
+					// 途中のIDの追加はスロットの順序が崩れるため作り直す
+					return false;
+				}
+				this.setFields(slot, row);
+				addGrams(nameGrams, names[slot], slot, true);
+				addGrams(codeGrams, codes[slot], slot, true);
+				weightIndex.add(weights[slot], slot);
+				heightIndex.add(heights[slot], slot);
+				priceIndex.add(prices[slot], slot);
+				List<Long> categoryIdList = new ArrayList<>(categories.size());
+				for (ProductCategoryName category : categories) {
+					categoryIdList.add(category.getCategoryId());
+					categoryNames.put(category.getCategoryId(), category.getName());
+				}
+				this.setCategories(slot, categoryIdList);
+				return garbage <= Math.max(liveCount, 1024);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		/**
+		 * 商品を削除する
+		 *
+		 * @return 差分で反映できない場合は false
+		 */
+		boolean remove(Long productId) {
+			lock.writeLock().lock();
+			try {
+				int slot = this.slotOf(productId);
+				if (slot < 0 || !live.get(slot)) {
+					return true;
+				}
+				bytes = -1;
+				this.removeValues(slot);
+				categoryIds[slot] = new long[0];
+				live.clear(slot);
+				liveCount--;
+				garbage++;
+				return garbage <= Math.max(liveCount, 1024);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		/**
+		 * 検索条件に一致する商品を商品IDの昇順で1ページ分取得する
+		 */
+		KeysetPage<ProductWithCategoryName> search(ProductSearchForm form) {
+			lock.readLock().lock();
+			try {
+				int pageSize = form.getPageSize();
+				List<ProductWithCategoryName> rows = new ArrayList<>(pageSize + 1);
+				String name = StringUtils.defaultIfEmpty(form.getName(), null);
+				String code = StringUtils.defaultIfEmpty(form.getCode(), null);
+
+				// n-gram のうち最も短いポスティングリストを走査の起点にする
+				IntList driver = shortest(nameGrams, name, null);
+				driver = shortest(codeGrams, code, driver);
+				if (driver == NO_MATCH) {
+					return KeysetPage.of(rows, pageSize);
+				}
+
+				BitSet mask = this.filterMask(form);
+				int start = form.hasCursor() ? this.firstSlotAfter(form.getAfterId()) : 0;
+				if (driver != null) {
+					for (int i = driver.lowerBound(start); i < driver.size && rows.size() <= pageSize; i++) {
+						int slot = driver.values[i];
+						if (this.matches(slot, mask, name, code)) {
+							rows.add(this.toRow(slot));
+						}
+					}
+				} else {
+					BitSet candidates = mask != null ? mask : live;
+					for (int slot = candidates.nextSetBit(start); slot >= 0 && rows.size() <= pageSize;
+							slot = candidates.nextSetBit(slot + 1)) {
+						if (this.matches(slot, mask, name, code)) {
+							rows.add(this.toRow(slot));
+						}
+					}
+				}
+				return KeysetPage.of(rows, pageSize);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * カテゴリーと数値項目の範囲で絞り込んだスロット(条件がない場合は null)
+		 */
+		private BitSet filterMask(ProductSearchForm form) {
+			BitSet mask = null;
+			if (form.getCategories() != null && !form.getCategories().isEmpty()) {
+				mask = new BitSet();
+				for (Long categoryId : form.getCategories()) {
+					BitSet slots = categorySlots.get(categoryId);
+					if (slots != null) {
+						mask.or(slots);
+					}
+				}
+			}
+			if (form.getWeight1() != null || form.getWeight2() != null) {
+				mask = and(mask, weightIndex.range(form.getWeight1(), form.getWeight2()));
+			}
+			if (form.getHeight1() != null || form.getHeight2() != null) {
+				mask = and(mask, heightIndex.range(form.getHeight1(), form.getHeight2()));
+			}
+			if (form.getPrice1() != null || form.getPrice2() != null) {
+				// price は整数のため、下限は切り上げ・上限は切り捨てて比較する
+				mask = and(mask, priceIndex.range(
+						form.getPrice1() != null ? (int)Math.ceil(form.getPrice1()) : null,
+						form.getPrice2() != null ? (int)Math.floor(form.getPrice2()) : null));
+			}
+			return mask;
+		}
+
+		private boolean matches(int slot, BitSet mask, String name, String code) {
+			return live.get(slot)
+					&& (mask == null || mask.get(slot))
+					&& (name == null || StringUtils.containsIgnoreCase(names[slot], name))
+					&& (code == null || StringUtils.containsIgnoreCase(codes[slot], code));
+		}
+
+		private ProductWithCategoryName toRow(int slot) {
+			ProductWithCategoryName row = new ProductWithCategoryName(ids[slot], codes[slot], names[slot],
+					weights[slot], heights[slot], prices[slot]);
+			for (long categoryId : categoryIds[slot]) {
+				row.getCategoryNames().add(categoryNames.get(categoryId));
+			}
+			return row;
+		}
+
+		private void setFields(int slot, ProductWithCategoryName row) {
+			ids[slot] = row.getId();
+			names[slot] = row.getName();
+			codes[slot] = row.getCode();
+			weights[slot] = row.getWeight();
+			heights[slot] = row.getHeight();
+			prices[slot] = row.getPrice();
+		}
+
+		private void setCategories(int slot, List<Long> ids) {
+			long[] values = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+			categoryIds[slot] = values;
+			for (long categoryId : values) {
+				categorySlots.computeIfAbsent(categoryId, k -> new BitSet()).set(slot);
+			}
+		}
+
+		// 範囲検索とカテゴリーのインデックスから取り除く(n-gram は走査時に除外する)
+		private void removeValues(int slot) {
+			weightIndex.remove(weights[slot], slot);
+			heightIndex.remove(heights[slot], slot);
+			priceIndex.remove(prices[slot], slot);
+			for (long categoryId : categoryIds[slot]) {
+				BitSet slots = categorySlots.get(categoryId);
+				if (slots != null) {
+					slots.clear(slot);
+				}
+			}
+		}
+
+		private int appendSlot() {
+			if (size == ids.length) {
+				int capacity = size * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				names = Arrays.copyOf(names, capacity);
+				codes = Arrays.copyOf(codes, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+				heights = Arrays.copyOf(heights, capacity);
+				prices = Arrays.copyOf(prices, capacity);
+				categoryIds = Arrays.copyOf(categoryIds, capacity);
+			}
+			return size++;
+		}
+
+		private int slotOf(long productId) {
+			int i = Arrays.binarySearch(ids, 0, size, productId);
+			return i >= 0 ? i : -1;
+		}
+
+		// 商品IDが afterId より大きい最初のスロット
+		private int firstSlotAfter(long afterId) {
+			int i = Arrays.binarySearch(ids, 0, size, afterId);
+			return i >= 0 ? i + 1 : -i - 1;
+		}
+
+		/**
+		 * 推定メモリ使用量(変更後の初回のみ計算する)
+		 */
+		long estimatedBytes() {
+			long cached = bytes;
+			if (cached >= 0) {
+				return cached;
+			}
+			lock.readLock().lock();
+			try {
+				long total = 64L * ids.length; // 配列の各要素と配列ヘッダー
+				for (int slot = 0; slot < size; slot++) {
+					total += 48L + 2L * StringUtils.length(names[slot]);
+					total += 48L + 2L * StringUtils.length(codes[slot]);
+					total += 8L * categoryIds[slot].length;
+				}
+				for (Map<Long, IntList> grams : List.of(nameGrams, codeGrams)) {
+					for (IntList postings : grams.values()) {
+						total += 64L + postings.bytes();
+					}
+				}
+				total += weightIndex.bytes() + heightIndex.bytes() + priceIndex.bytes();
+				total += (long)(categorySlots.size() + 1) * (64L + ids.length / 8);
+				total += 96L * categoryNames.size();
+				bytes = total;
+				return total;
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * 検索語の n-gram のポスティングリストのうち最も短いもの
+		 * 検索語が n 文字未満の場合は current をそのまま返し、該当しない n-gram がある場合は NO_MATCH を返す
+		 */
+		private static IntList shortest(Map<Long, IntList> grams, String value, IntList current) {
+			if (current == NO_MATCH || value == null || value.length() < GRAM) {
+				return current;
+			}
+			for (int i = 0; i + GRAM <= value.length(); i++) {
+				IntList postings = grams.get(gram(value, i));
+				if (postings == null) {
+					return NO_MATCH;
+				}
+				if (current == null || postings.size < current.size) {
+					current = postings;
+				}
+			}
+			return current;
+		}
+
+		private static BitSet and(BitSet mask, BitSet slots) {
+			if (mask == null) {
+				return slots;
+			}
+			mask.and(slots);
+			return mask;
+		}
+
+		/**
+		 * 大文字小文字を区別しない n-gram をポスティングリストに追加する
+		 *
+		 * @param insert 途中のスロットに追加する場合は true(作成時はスロットが常に末尾のため false)
+		 */
+		private static void addGrams(Map<Long, IntList> grams, String value, int slot, boolean insert) {
+			if (value == null) {
+				return;
+			}
+			for (int i = 0; i + GRAM <= value.length(); i++) {
+				IntList postings = grams.computeIfAbsent(gram(value, i), k -> new IntList());
+				if (insert) {
+					postings.insert(slot);
+				} else if (postings.size == 0 || postings.values[postings.size - 1] != slot) {
+					postings.add(slot);
+				}
+			}
+		}
+
+		// 3文字を小文字にして1つの long にまとめる
+		private static long gram(String value, int offset) {
+			long gram = 0;
+			for (int i = offset; i < offset + GRAM; i++) {
+				gram = (gram << 16) | Character.toLowerCase(value.charAt(i));
+			}
+			return gram;
+		}
+	}
+}
@@ -4,7 +4,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.example.model.Category;
 import com.example.model.CategoryProduct;
 import com.example.model.Product;
 import com.example.repository.CategoryProductRepository;
@@ -14,21 +13,32 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 
+import com.example.entity.KeysetPage;
 import com.example.entity.ProductWithCategoryName;
+import com.example.entity.RelinkResult;
 import com.example.form.ProductForm;
 import com.example.form.ProductSearchForm;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class ProductService {
 
+	// MySQL では文字列リテラル中の \ がエスケープとして解釈されるため、LIKE のエスケープ文字には ! を使う
+	private static final char LIKE_ESCAPE = '!';
+
 	@PersistenceContext
 	private EntityManager entityManager;
 
@@ -38,6 +48,14 @@ public class ProductService {
 	@Autowired
 	private CategoryProductRepository categoryProductRepository;
 
+	@Autowired
+	private CategoryProductService categoryProductService;
+
+	@Autowired
+	private ProductSearchIndexService productSearchIndexService;
+
+	@Autowired
+	private ReferenceCacheService referenceCacheService;
 
 	public List<Product> findAll() {
 		return productRepository.findAll();
@@ -47,100 +65,147 @@ public class ProductService {
 		return productRepository.findById(id);
 	}
 
+	/**
+	 * 紐づくカテゴリーの紐付けまで取得する(商品の詳細・編集画面用)
+	 */
+	public Optional<Product> findOneWithCategoryProducts(Long id) {
+		return productRepository.findWithCategoryProductsById(id);
+	}
+
 	@Transactional(readOnly = false)
 	public Product save(Product entity) {
-		return productRepository.save(entity);
+		Product product = productRepository.save(entity);
+		productSearchIndexService.onSaved(product.getId());
+		return product;
 	}
 
 	@Transactional(readOnly = false)
 	public void delete(Product entity) {
 		productRepository.delete(entity);
+		productSearchIndexService.onDeleted(entity.getShopId(), entity.getId());
+		// 紐付けも削除されるため、カテゴリーごとの商品数が変わる
+		referenceCacheService.evictAll(ReferenceCacheService.CATEGORIES);
 	}
 
-	// 指定された検索条件に一致するエンティティを検索する
-	public List<ProductWithCategoryName> search(Long shopId, ProductSearchForm form) {
+	/**
+	 * 指定された検索条件に一致する商品をキーセット方式で1ページ分取得する
+	 *
+	 * 名前・コードは小文字に正規化した生成カラム(name_key / code_key)で検索し、
+	 * カテゴリーは EXISTS で絞り込むため、未分類の商品が落ちたり複数カテゴリーの商品が重複したりしない。
+	 * カテゴリー名はページ内の商品分を1クエリでまとめて取得する。
+	 * 商品検索インデックスを使える場合はDBに問い合わせずにインデックスで検索する。
+	 *
+	 * @param shopId
+	 * @param form
+	 * @return KeysetPage
+	 */
+	public KeysetPage<ProductWithCategoryName> search(Long shopId, ProductSearchForm form) {
+		Optional<KeysetPage<ProductWithCategoryName>> indexed = productSearchIndexService.search(shopId, form);
+		if (indexed.isPresent()) {
+			return indexed.get();
+		}
+
 		final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 		final CriteriaQuery<ProductWithCategoryName> query = builder.createQuery(ProductWithCategoryName.class);
 		final Root<Product> root = query.from(Product.class);
 
-		Join<Product, CategoryProduct> categoryProductJoin = root.joinList("categoryProducts");
-		Join<CategoryProduct, Category> categoryJoin = categoryProductJoin.join("category");
-
-		query.multiselect(
-			root.get("id"),
-			root.get("code"),
-			root.get("name"),
-			root.get("weight"),
-			root.get("height"),
-			root.get("price"),
-			categoryJoin.get("name").alias("categoryName")
-		).where(builder.equal(root.get("shopId"), shopId));
-
 		// formの値を元に検索条件を設定する
+		List<Predicate> predicates = new ArrayList<>();
+		predicates.add(builder.equal(root.get("shopId"), shopId));
+
 		if (!StringUtils.isEmpty(form.getName())) {
-			// name で部分一致検索
-			query.where(builder.like(root.get("name"), "%" + form.getName() + "%"));
+			// name で部分一致検索(大文字小文字を区別しない)
+			predicates.add(builder.like(root.get("nameKey"), containsPattern(form.getName()), LIKE_ESCAPE));
 		}
 
 		if (!StringUtils.isEmpty(form.getCode())) {
-			// code で部分一致検索
-			query.where(builder.like(root.get("code"), "%" + form.getCode() + "%"));
+			// code で部分一致検索(大文字小文字を区別しない)
+			predicates.add(builder.like(root.get("codeKey"), containsPattern(form.getCode()), LIKE_ESCAPE));
 		}
 
 		if (form.getCategories() != null && form.getCategories().size() > 0) {
-			// categories で完全一致検索
-			query.where(categoryJoin.get("id").in(form.getCategories()));
+			// categories のいずれかに紐づく商品
+			Subquery<Long> categoryQuery = query.subquery(Long.class);
+			Root<CategoryProduct> categoryProduct = categoryQuery.from(CategoryProduct.class);
+			categoryQuery.select(categoryProduct.get("productId")).where(
+					builder.equal(categoryProduct.get("productId"), root.get("id")),
+					categoryProduct.get("categoryId").in(form.getCategories()));
+			predicates.add(builder.exists(categoryQuery));
 		}
 
-		// weight で範囲検索
-		if (form.getWeight1() != null && form.getWeight2() != null) {
-			query.where(builder.between(root.get("weight"), form.getWeight1(), form.getWeight2()));
-		}
+		// weight, height, price で範囲検索(片側のみの指定も可)
+		addRange(builder, predicates, root.get("weight"), form.getWeight1(), form.getWeight2());
+		addRange(builder, predicates, root.get("height"), form.getHeight1(), form.getHeight2());
+		// price は整数のため、下限は切り上げ・上限は切り捨てて比較する
+		addRange(builder, predicates, root.get("price"),
+				form.getPrice1() != null ? (int)Math.ceil(form.getPrice1()) : null,
+				form.getPrice2() != null ? (int)Math.floor(form.getPrice2()) : null);
 
-		// height で範囲検索
-		if (form.getHeight1() != null && form.getHeight2() != null) {
-			query.where(builder.between(root.get("height"), form.getHeight1(), form.getHeight2()));
+		if (form.hasCursor()) {
+			predicates.add(builder.greaterThan(root.get("id"), form.getAfterId()));
 		}
 
-		// price で範囲検索
-		if (form.getPrice1() != null && form.getPrice2() != null) {
-			query.where(builder.between(root.get("price"), form.getPrice1(), form.getPrice2()));
-		} else if (form.getPrice1() != null) {
-			query.where(builder.greaterThanOrEqualTo(root.get("price"), form.getPrice1()));
-		} else if (form.getPrice2() != null) {
-			query.where(builder.lessThanOrEqualTo(root.get("price"), form.getPrice2()));
+		query.multiselect(
+			root.get("id"),
+			root.get("code"),
+			root.get("name"),
+			root.get("weight"),
+			root.get("height"),
+			root.get("price")
+		).where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(root.get("id")));
+
+		int size = form.getPageSize();
+		KeysetPage<ProductWithCategoryName> page = KeysetPage.of(
+				entityManager.createQuery(query).setMaxResults(size + 1).getResultList(), size);
+
+		if (!page.getContent().isEmpty()) {
+			Map<Long, ProductWithCategoryName> rowMap = page.getContent().stream()
+					.collect(Collectors.toMap(ProductWithCategoryName::getId, Function.identity()));
+			categoryProductRepository.findCategoryNamesByProductIdIn(rowMap.keySet())
+					.forEach(category -> rowMap.get(category.getProductId()).getCategoryNames().add(category.getName()));
 		}
+		return page;
+	}
+
+	/**
+	 * 部分一致検索のパターンを作成する
+	 * 検索語は name_key / code_key に合わせて小文字にし、LIKE の特殊文字はエスケープする
+	 */
+	private static String containsPattern(String value) {
+		String escaped = value.toLowerCase(Locale.ROOT)
+				.replace("!", "!!")
+				.replace("%", "!%")
+				.replace("_", "!_");
+		return "%" + escaped + "%";
+	}
 
-		return entityManager.createQuery(query).getResultList();
+	private static <T extends Comparable<? super T>> void addRange(CriteriaBuilder builder, List<Predicate> predicates,
+			Expression<T> path, T from, T to) {
+		if (from != null) {
+			predicates.add(builder.greaterThanOrEqualTo(path, from));
+		}
+		if (to != null) {
+			predicates.add(builder.lessThanOrEqualTo(path, to));
+		}
 	}
 
 	/**
 	 * ProductFormの内容を元に商品情報を保存する
+	 * カテゴリーの紐付けは差分のみ追加・削除する
 	 * @param entity
 	 * @return
 	 */
 	@Transactional(readOnly = false)
 	public Product save(ProductForm entity) {
-		// 紐づくカテゴリを事前に取得
-		List<CategoryProduct> categoryProducts = entity.getId() != null ? categoryProductRepository.findByProductId(entity.getId()) : new ArrayList<>();
-
 		Product product = new Product(entity);
 		productRepository.save(product);
 
-		// 未処理のカテゴリーIDのリスト
-		List<Long> categoryIds = entity.getCategoryIds();
-		// カテゴリの紐付け解除
-		for (CategoryProduct categoryProduct : categoryProducts) {
-			// 紐づくカテゴリーIDが更新後のカテゴリーIDに含まれていない場合は削除
-			if (!categoryIds.contains(categoryProduct.getCategoryId())) {
-				categoryProductRepository.delete(categoryProduct);
-			}
-			// 処理が終わったものをリストから削除
-			categoryIds.remove(categoryProduct.getCategoryId());
-		}
-		// カテゴリの紐付け登録
-		for (Long categoryId : categoryIds) {
-			categoryProductRepository.save(new CategoryProduct(categoryId, product.getId()));
+		RelinkResult relinked = categoryProductService.relinkCategories(product.getId(),
+				entity.getCategoryIds() != null ? entity.getCategoryIds() : List.of());
+		productSearchIndexService.onSaved(product.getId());
+		if (relinked.isChanged()) {
+			// カテゴリーごとの商品数が変わる
+			referenceCacheService.evictAll(ReferenceCacheService.CATEGORIES);
 		}
 
 		return product;
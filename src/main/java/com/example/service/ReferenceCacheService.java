@@ -0,0 +1,165 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.utils.ReferenceCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * カテゴリー・ショップ・キャンペーン・ログインユーザーなど、更新の少ない参照データのキャッシュ
+ *
+ * 各サービスの取得処理から get で読み込み、登録・更新・削除処理から evict / evictAll で無効化する。
+ * キャッシュした値は全リクエストで共有するため、エンティティなど変更できる値は各サービスでコピーして返す。
+ * 無効化はすぐにこのノードのキャッシュを破棄したうえで、コミット後に CacheInvalidationBus で全ノードに配信する。
+ * ヒット・ミス数などは /actuator/metrics の cache.gets / cache.evictions / cache.size で確認できる。
+ */
+@Service
+public class ReferenceCacheService {
+
+	public static final String CATEGORIES = "categories";
+
+	public static final String SHOPS = "shops";
+
+	public static final String CAMPAIGNS_BY_CODE = "campaigns-by-code";
+
+	// ログイン時に読み込むユーザー(メールアドレスごと)
+	public static final String USERS = "users";
+
+	private static final List<String> CACHE_NAMES = List.of(CATEGORIES, SHOPS, CAMPAIGNS_BY_CODE, USERS);
+
+	@Autowired
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${reference-cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${reference-cache.max-size:1000}")
+	private int maxSize;
+
+	@Value("${reference-cache.ttl:10m}")
+	private Duration ttl;
+
+	private final Map<String, ReferenceCache<Object>> caches = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		for (String name : CACHE_NAMES) {
+			ReferenceCache<Object> cache = new ReferenceCache<>(maxSize, ttl);
+			caches.put(name, cache);
+			FunctionCounter.builder("cache.gets", cache, ReferenceCache::hitCount)
+					.tags("cache", name, "result", "hit")
+					.description("キャッシュから取得できた回数")
+					.register(meterRegistry);
+			FunctionCounter.builder("cache.gets", cache, ReferenceCache::missCount)
+					.tags("cache", name, "result", "miss")
+					.description("キャッシュになくDBから読み込んだ回数")
+					.register(meterRegistry);
+			FunctionCounter.builder("cache.evictions", cache, ReferenceCache::evictionCount)
+					.tags("cache", name)
+					.description("上限件数・有効期限で破棄した回数")
+					.register(meterRegistry);
+			Gauge.builder("cache.size", cache, ReferenceCache::size)
+					.tags("cache", name)
+					.description("キャッシュしている件数")
+					.register(meterRegistry);
+		}
+		cacheInvalidationBus.subscribe(this::evictLocal);
+	}
+
+	/**
+	 * キャッシュから取得する。存在しない場合は loader で読み込んで保持する
+	 * 存在しないことを表す Optional.empty() もキャッシュするため、loader は null を返さないこと
+	 *
+	 * @param cacheName キャッシュ名
+	 * @param key       キー(null の場合はキャッシュせずに読み込む)
+	 * @param loader
+	 * @return V
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V get(String cacheName, Object key, Supplier<V> loader) {
+		if (!enabled || key == null) {
+			return loader.get();
+		}
+		return (V)this.cache(cacheName).get(String.valueOf(key), k -> loader.get());
+	}
+
+	/**
+	 * 指定したキーを無効化する
+	 *
+	 * @param cacheName キャッシュ名
+	 * @param key
+	 */
+	public void evict(String cacheName, Object key) {
+		this.invalidate(cacheName, key != null ? String.valueOf(key) : null);
+	}
+
+	/**
+	 * キャッシュ全体を無効化する
+	 *
+	 * @param cacheName キャッシュ名
+	 */
+	public void evictAll(String cacheName) {
+		this.invalidate(cacheName, null);
+	}
+
+	/**
+	 * このノードのキャッシュを破棄し、コミット後に全ノードへ配信する
+	 * 同じトランザクション内で読み込んだ(未コミットの)値を残さないよう、ロールバック時も破棄し直す
+	 */
+	private void invalidate(String cacheName, String key) {
+		this.evictLocal(cacheName, key);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			cacheInvalidationBus.publish(cacheName, key);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				evictLocal(cacheName, key);
+				if (status == STATUS_COMMITTED) {
+					cacheInvalidationBus.publish(cacheName, key);
+				}
+			}
+		});
+	}
+
+	/**
+	 * このノードのキャッシュだけを破棄する(CacheInvalidationBus からの受信処理)
+	 */
+	private void evictLocal(String cacheName, String key) {
+		ReferenceCache<Object> cache = caches.get(cacheName);
+		if (cache == null) {
+			return;
+		}
+		if (key == null) {
+			cache.invalidateAll();
+		} else {
+			cache.invalidate(key);
+		}
+	}
+
+	private ReferenceCache<Object> cache(String cacheName) {
+		ReferenceCache<Object> cache = caches.get(cacheName);
+		if (cache == null) {
+			throw new IllegalArgumentException("unknown cache: " + cacheName);
+		}
+		return cache;
+	}
+}
@@ -1,41 +1,75 @@
 package com.example.service;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.example.model.Shop;
 import com.example.repository.ShopRepository;
+import com.example.utils.Pageables;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
 public class ShopService {
 
+	private static final Set<String> SORTABLE = Set.of("name", "address", "contact");
+
 	@Autowired
 	private ShopRepository shopRepository;
 
+	@Autowired
+	private ReferenceCacheService referenceCacheService;
+
 	public List<Shop> findAll() {
 		return shopRepository.findAll();
 	}
 
-	public List<Shop> findAll(Shop probe) {
-		return shopRepository.findAll(Example.of(probe));
+	/**
+	 * 一覧画面用に probe の条件に一致するものを1ページ分取得する
+	 */
+	public Page<Shop> findPage(Shop probe, Pageable pageable) {
+		return shopRepository.findAll(Example.of(probe), Pageables.restrictSort(pageable, SORTABLE));
 	}
 
+	/**
+	 * ショップを取得する(参照データキャッシュを経由する)
+	 * 表示用。キャッシュしたエンティティは他のリクエストと共有するため、呼び出し元にはコピーを返す
+	 * コピーは商品を持たないため、更新・削除には findOneForUpdate を使う
+	 */
 	public Optional<Shop> findOne(Long id) {
+		return referenceCacheService.get(ReferenceCacheService.SHOPS, id, () -> shopRepository.findById(id))
+				.map(this::copyOf);
+	}
+
+	/**
+	 * 更新・削除用にショップをDBから取得する(キャッシュを経由しない)
+	 */
+	public Optional<Shop> findOneForUpdate(Long id) {
 		return shopRepository.findById(id);
 	}
 
 	@Transactional(readOnly = false)
 	public Shop save(Shop entity) {
-		return shopRepository.save(entity);
+		Shop shop = shopRepository.save(entity);
+		referenceCacheService.evict(ReferenceCacheService.SHOPS, shop.getId());
+		return shop;
 	}
 
 	@Transactional(readOnly = false)
 	public void delete(Shop entity) {
 		shopRepository.delete(entity);
+		referenceCacheService.evict(ReferenceCacheService.SHOPS, entity.getId());
 	}
 
+	private Shop copyOf(Shop shop) {
+		Shop copy = new Shop();
+		BeanUtils.copyProperties(shop, copy);
+		return copy;
+	}
 }
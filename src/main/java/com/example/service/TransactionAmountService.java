@@ -2,9 +2,18 @@ package com.example.service;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
 import com.example.constants.Validate;
+import com.example.entity.KeysetPage;
+import com.example.entity.TransactionAmountRow;
+import com.example.entity.TransactionAmountSummary;
 import com.example.enums.FileImportStatus;
 import com.example.enums.ServiceType;
 import com.example.model.Company;
@@ -12,14 +21,25 @@ import com.example.model.FileImportInfo;
 import com.example.model.TransactionAmount;
 import com.example.repository.FileImportInfoRepository;
 import com.example.repository.TransactionAmountRepository;
+import com.example.utils.CsvReader;
+
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -28,12 +48,30 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class TransactionAmountService {
 
+	// 取引先詳細の取引金額一覧の1ページの件数
+	private static final int LEDGER_PAGE_SIZE = 50;
+
 	@Autowired
 	private TransactionAmountRepository transactionAmountRepository;
 
 	@Autowired
 	private FileImportInfoRepository fileImportInfoRepository;
 
+	@Autowired
+	private FileImportJobService fileImportJobService;
+
+	@Autowired
+	private CompanyBalanceService companyBalanceService;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${import.chunk-size:1000}")
+	private int importChunkSize;
+
 	public List<TransactionAmount> findAll() {
 		return transactionAmountRepository.findAll();
 	}
@@ -46,14 +84,45 @@ public class TransactionAmountService {
 		return transactionAmountRepository.findByCompany(company);
 	}
 
+	/**
+	 * 取引先詳細の取引金額一覧を1ページ分取得する(IDの降順のキーセット方式)
+	 * 取引件数に関わらず、ページ件数+1件だけを読み込む
+	 *
+	 * @param companyId
+	 * @param afterId   前ページの最終行のID(先頭ページの場合はnull)
+	 * @return KeysetPage
+	 */
+	public KeysetPage<TransactionAmountRow> findPageByCompany(Long companyId, Long afterId) {
+		return KeysetPage.of(transactionAmountRepository.findRowsByCompanyId(companyId, afterId,
+				PageRequest.of(0, LEDGER_PAGE_SIZE + 1)), LEDGER_PAGE_SIZE);
+	}
+
+	/**
+	 * 取引金額を登録・更新し、取引先の残高に差分を反映する
+	 *
+	 * @param entity
+	 * @return TransactionAmount
+	 */
 	@Transactional(readOnly = false)
 	public TransactionAmount save(TransactionAmount entity) {
-		return transactionAmountRepository.save(entity);
+		if (entity.getId() != null) {
+			// 更新の場合は更新前の金額を残高から差し引く
+			transactionAmountRepository.findById(entity.getId()).ifPresent(companyBalanceService::subtract);
+		}
+		TransactionAmount tAmount = transactionAmountRepository.save(entity);
+		companyBalanceService.add(tAmount);
+		return tAmount;
 	}
 
+	/**
+	 * 取引金額を削除し、取引先の残高から差し引く
+	 *
+	 * @param entity
+	 */
 	@Transactional(readOnly = false)
 	public void delete(TransactionAmount entity) {
 		transactionAmountRepository.delete(entity);
+		companyBalanceService.subtract(entity);
 	}
 
 	/**
@@ -94,125 +163,165 @@ public class TransactionAmountService {
 	}
 
 	/**
-	 * TransactionalAmountの収支合計を取得する
+	 * 取引先の収支を取得する
+	 * 取引金額を集計せず、差分更新している残高テーブルから1件で取得する
 	 *
 	 * @param company
-	 * @return Integer
+	 * @return TransactionAmountSummary
 	 */
-	public Integer getSumTransactionalAmounts(Company company) {
-		List<TransactionAmount> tAmountList = this.findByCompany(company);
-
-		// 収入の場合は加算、支出の場合は減算
-		Integer sum = 0;
-		for (TransactionAmount tAmount : tAmountList) {
-			if (tAmount.getPlusMinus()) {
-				sum += tAmount.getPrice();
-			} else {
-				sum -= tAmount.getPrice();
-			}
-		}
+	public TransactionAmountSummary getSummary(Company company) {
+		return companyBalanceService.findOne(company.getId()).toSummary();
+	}
 
-		// 表示はXXX千円とするので、1000で割って余りは切り捨てて丸める
-		sum = (int)Math.round((double)sum / 1000);
+	/**
+	 * 非同期で取引金額のCSVファイルを取り込む
+	 *
+	 * アップロードファイルを退避して取込中の FileImportInfo を登録した時点で返し、取込はバックグラウンドで行う。
+	 * 進捗・結果は FileImportInfo のステータスと件数で確認する。
+	 *
+	 * @param file
+	 * @param companyId
+	 * @throws Exception
+	 * @return FileImportInfo 取込中で登録したCSV取込親テーブル
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public FileImportInfo importCSV(MultipartFile file, Long companyId) throws Exception {
+		return fileImportJobService.submit(file, ServiceType.COMPANY, companyId, this::importCSV);
+	}
 
-		return sum;
+	/**
+	 * 取引先の取引金額CSVの取込を取得する(他の取引先・他の取込は取得しない)
+	 *
+	 * @param importId  CSV取込親テーブルID
+	 * @param companyId
+	 * @return Optional<FileImportInfo>
+	 */
+	public Optional<FileImportInfo> findImport(Long importId, Long companyId) {
+		return fileImportJobService.findOne(importId, ServiceType.COMPANY, companyId);
 	}
 
 	/**
-	 * 収支比率を計算する
+	 * CSVをチャンク単位で取り込む
+	 *
+	 * ファイルはストリームで読み込み、import.chunk-size 件ごとにJDBCバッチでINSERTしてチャンク単位でコミットする。
+	 * 不正な行は取込対象から除外してエラー件数に計上し、取込は継続する。
+	 * 進捗(読込件数・登録件数・エラー件数)はチャンクごとに FileImportInfo へ記録する。
+	 *
+	 * @param file 退避済みのCSVファイル
+	 * @param imp  CSV取込親テーブル
+	 * @throws IOException
 	 */
-	public Integer getRatioTransactionalAmounts(Company company) {
-		// 現在の取得を行う
-		List<TransactionAmount> tAmountList = this.findByCompany(company);
-
-		// 収入と支出の比率を計算する
-		Integer incomSum = 0;
-		Integer expenseSum = 0;
-		for (TransactionAmount tAmount : tAmountList) {
-			if (tAmount.getPlusMinus()) {
-				incomSum += tAmount.getPrice();
-			} else {
-				expenseSum += tAmount.getPrice();
+	private void importCSV(Path file, FileImportInfo imp) throws IOException {
+		List<TransactionAmount> chunk = new ArrayList<>(importChunkSize);
+		try (CsvReader reader = new CsvReader(
+				new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+			// 1行目はヘッダーなので読み飛ばす
+			reader.readRecord();
+
+			String[] record;
+			while ((record = reader.readRecord()) != null) {
+				imp.setReadCount(imp.getReadCount() + 1);
+
+				TransactionAmount tAmount = this.parseRecord(record, imp.getRelationId());
+				if (tAmount == null) {
+					// 不正な行は登録せずエラー件数に計上する
+					imp.setErrorCount(imp.getErrorCount() + 1);
+				} else {
+					chunk.add(tAmount);
+				}
+
+				if (imp.getReadCount() % importChunkSize == 0) {
+					this.writeChunk(chunk, imp);
+					chunk.clear();
+				}
 			}
+			this.writeChunk(chunk, imp);
+			imp.setStatus(FileImportStatus.COMPLETE);
+		} catch (IOException | RuntimeException e) {
+			// 失敗の場合、ステータスをエラーにする(コミット済みのチャンクはそのまま残す)
+			imp.setStatus(FileImportStatus.ERROR);
+			// エラーはジョブ実行側で処理
+			throw e;
+		} finally {
+			// 取込完了日時をセットして処理終了
+			imp.setEndDatetime(LocalDateTime.now());
+			fileImportInfoRepository.save(imp);
 		}
-		double ratio = incomSum / (expenseSum + incomSum);
-		return (int)Math.round(ratio * 100);
 	}
 
 	/**
-	 * 非同期で取引金額のCSVファイルを取り込む
+	 * CSVの1レコードを取引金額に変換する
 	 *
-	 * @param file
+	 * @param record
 	 * @param companyId
-	 * @throws Exception
-	 * @return void
-	 * @todo 非同期化
+	 * @return TransactionAmount 不正なレコードの場合はnull
 	 */
-	@Transactional
-	public void importCSV(MultipartFile file, Long companyId) throws Exception {
-		// アップデート後のインスタンス
-		FileImportInfo updatedImp;
-		SimpleDateFormat sdFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-		// CSV取込親テーブルに取込中でデータを登録する
+	private TransactionAmount parseRecord(String[] record, Long companyId) {
+		if (record.length < 5) {
+			return null;
+		}
 		try {
-			// CSV取込親テーブルのインスタンスを生成
-			FileImportInfo imp = new FileImportInfo();
-			// CSV取込親テーブルのインスタンスにデータをセットする
-			imp.setStartDatetime(LocalDateTime.now());
-			imp.setStatus(FileImportStatus.IMPORTING);
-			imp.setRelationId(companyId);
-			imp.setType(ServiceType.COMPANY);
-			// CSV取込親テーブルにデータを登録する
-			updatedImp = fileImportInfoRepository.save(imp);
-		} catch (Exception e) {
-			// エラーはコントローラーで処理
-			e.printStackTrace();
-			throw e;
+			TransactionAmount tAmount = new TransactionAmount();
+			tAmount.setCompanyId(companyId);
+			tAmount.setPlusMinus(BooleanUtils.toBoolean(record[0].trim()));
+			tAmount.setPrice(Integer.parseInt(record[1].trim()));
+			tAmount.setDueDate(Date.valueOf(LocalDate.parse(record[2].trim())));
+			tAmount.setHasPaid(BooleanUtils.toBoolean(record[3].trim()));
+			tAmount.setMemo(record[4]);
+			return this.validate(tAmount) ? tAmount : null;
+		} catch (NumberFormatException | DateTimeParseException e) {
+			return null;
 		}
+	}
 
-		// CSVファイルの読み込み
-		try (BufferedReader br = new BufferedReader(
-				new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-			String line;
-			int lineCouter = 0;
-			while ((line = br.readLine()) != null) {
-				// 行数カウントアップ
-				lineCouter++;
-
-				// 1行目はヘッダーなので読み飛ばす
-				if (lineCouter == 1) {
-					continue;
+	/**
+	 * チャンクを1トランザクションで登録し、進捗を記録する
+	 * 登録に失敗した場合はチャンク内の行をエラー件数に計上して取込を継続する
+	 *
+	 * @param chunk
+	 * @param imp
+	 */
+	private void writeChunk(List<TransactionAmount> chunk, FileImportInfo imp) {
+		final int writeCount = imp.getWriteCount();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				if (!chunk.isEmpty()) {
+					this.batchInsert(chunk);
+					companyBalanceService.addAll(chunk);
 				}
-
-				// csvなのでカンマ区切りで分割する
-				final String[] split = line.replace("\"", "").split(",");
-
-				// 取引金額のインスタンスを生成
-				TransactionAmount transactionAmount = new TransactionAmount();
-				transactionAmount.setCompanyId(companyId);
-
-				// 取引金額のインスタンスにCSVファイルから読み取ったデータをセットする
-				transactionAmount.setPlusMinus(BooleanUtils.toBoolean(split[0]));
-				transactionAmount.setPrice(Integer.parseInt(split[1]));
-				transactionAmount.setDueDate(sdFormat.parse(split[2]));
-				transactionAmount.setHasPaid(Boolean.parseBoolean(split[3]));
-				transactionAmount.setMemo(split[4]);
-
-				// 取引金額を保存する
-				transactionAmountRepository.save(transactionAmount);
-			}
-			updatedImp.setStatus(FileImportStatus.COMPLETE);
-		} catch (Exception e) {
-			// 失敗の場合、ステータスをエラーにする
-			updatedImp.setStatus(FileImportStatus.ERROR);
-			// エラーはコントローラーで処理
+				imp.setWriteCount(writeCount + chunk.size());
+				fileImportInfoRepository.save(imp);
+			});
+		} catch (DataAccessException e) {
 			e.printStackTrace();
-			throw e;
-		} finally {
-			// 取込完了日時をセットして処理終了
-			updatedImp.setEndDatetime(LocalDateTime.now());
-			fileImportInfoRepository.save(updatedImp);
+			imp.setWriteCount(writeCount);
+			imp.setErrorCount(imp.getErrorCount() + chunk.size());
+			fileImportInfoRepository.save(imp);
 		}
 	}
+
+	/**
+	 * 取引金額の一括登録処理
+	 * rewriteBatchedStatements=true の接続では複数行INSERTに書き換えて送信される
+	 *
+	 * @param tAmounts
+	 * @return int[]
+	 */
+	private int[] batchInsert(List<TransactionAmount> tAmounts) {
+		String sql = "INSERT INTO transaction_amounts (company_id, plus_minus, price, due_date, has_paid, memo, create_at, update_at)"
+				+ " VALUES(:company_id, :plus_minus, :price, :due_date, :has_paid, :memo, :create_at, :update_at)";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		return jdbcTemplate.batchUpdate(sql,
+				tAmounts.stream()
+						.map(t -> new MapSqlParameterSource()
+								.addValue("company_id", t.getCompanyId(), Types.BIGINT)
+								.addValue("plus_minus", t.getPlusMinus(), Types.BOOLEAN)
+								.addValue("price", t.getPrice(), Types.INTEGER)
+								.addValue("due_date", t.getDueDate(), Types.DATE)
+								.addValue("has_paid", t.getHasPaid(), Types.BOOLEAN)
+								.addValue("memo", t.getMemo(), Types.VARCHAR)
+								.addValue("create_at", now, Types.TIMESTAMP)
+								.addValue("update_at", now, Types.TIMESTAMP))
+						.toArray(SqlParameterSource[]::new));
+	}
 }
@@ -1,8 +1,13 @@
 package com.example.service;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.example.form.UserSearchForm;
@@ -10,19 +15,18 @@ import com.example.model.DeletedUser;
 import com.example.model.User;
 import com.example.repository.DeletedUserRepository;
 import com.example.repository.UserRepository;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import com.example.utils.Pageables;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
 public class UserService {
 
-	@PersistenceContext
-	private EntityManager entityManager;
+	private static final Set<String> SORTABLE = Set.of("name", "email", "role");
 
 	@Autowired
 	private UserRepository userRepository;
@@ -30,6 +34,12 @@ public class UserService {
 	@Autowired
 	private DeletedUserRepository deletedUserRepository;
 
+	@Autowired
+	private ReferenceCacheService referenceCacheService;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
 	public List<User> findAll() {
 		return userRepository.findAll();
 	}
@@ -44,9 +54,19 @@ public class UserService {
 	@Transactional(readOnly = false)
 	public User save(User entity) {
 		/**
-		 * パスワードをjavaの暗号化方式を付与する
+		 * パスワードをハッシュ化する
+		 * 編集画面でパスワードが空欄の場合は、登録済みのパスワードを変更しない
 		 */
-		entity.setPassword("{noop}" + entity.getPassword());
+		Optional<String> current = entity.getId() != null && StringUtils.isEmpty(entity.getPassword())
+				? userRepository.findById(entity.getId()).map(User::getPassword)
+				: Optional.empty();
+		if (current.isPresent()) {
+			entity.setPassword(current.get());
+		} else {
+			entity.setPassword(passwordEncoder.encode(entity.getPassword()));
+		}
+		// メールアドレスが変更された場合は変更前のキーが分からないため、全体を無効化する
+		referenceCacheService.evictAll(ReferenceCacheService.USERS);
 		return userRepository.save(entity);
 	}
 
@@ -64,28 +84,49 @@ public class UserService {
 		deletedUserRepository.save(deletedUser);
 
 		userRepository.delete(entity);
+		referenceCacheService.evictAll(ReferenceCacheService.USERS);
 	}
 
 	public Optional<User> findByEmail(String email) {
 		return userRepository.findByEmail(email);
 	}
 
-	@SuppressWarnings("unchecked")
-	public List<User> search(UserSearchForm form, boolean isAdmin) {
-		String role = isAdmin ? "ADMIN" : "USER";
-		if (form.getName() != null && form.getName() != "") {
-			String sql = "SELECT * FROM users WHERE name = '" + form.getName() + "'";
-			if (!isAdmin) {
-				sql += " AND role = '" + role + "'";
-			}
-			return entityManager.createNativeQuery(sql, User.class)
-					.getResultList();
+	/**
+	 * ログイン時にハッシュ化し直したパスワードを保存する
+	 *
+	 * @param email
+	 * @param encodedPassword ハッシュ化済みのパスワード
+	 * @return boolean ユーザーが存在した場合は true
+	 */
+	@Transactional(readOnly = false)
+	public boolean upgradePassword(String email, String encodedPassword) {
+		Optional<User> user = userRepository.findByEmail(email);
+		if (user.isEmpty()) {
+			return false;
+		}
+		user.get().setPassword(encodedPassword);
+		referenceCacheService.evict(ReferenceCacheService.USERS, email);
+		return true;
+	}
+
+	/**
+	 * 一覧画面用に検索条件に一致するユーザーを1ページ分取得する
+	 * 名前は完全一致で検索し、管理者以外は一般ユーザーだけを対象とする
+	 *
+	 * @param form
+	 * @param isAdmin
+	 * @param pageable
+	 * @return Page<User>
+	 */
+	public Page<User> search(UserSearchForm form, boolean isAdmin, Pageable pageable) {
+		User probe = new User();
+		if (form.getName() != null && !form.getName().isEmpty()) {
+			probe.setName(form.getName());
 		}
 		if (!isAdmin) {
-			return userRepository.findByRole(role);
-		} else {
-			return userRepository.findAll();
+			probe.setRole("USER");
 		}
+		return userRepository.findAll(Example.of(probe), Pageables.restrictSort(pageable, SORTABLE));
 	}
 
 	public boolean isAdmin(Authentication authentication) {
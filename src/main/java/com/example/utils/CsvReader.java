@@ -0,0 +1,138 @@
+package com.example.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSVを1レコードずつ読み込むリーダー
+ *
+ * RFC 4180 に従い、ダブルクォートで囲まれたフィールド内のカンマ・改行・エスケープされたダブルクォート("")を扱う。
+ * ファイル全体をメモリに載せずにストリームで読み込む。
+ */
+public class CsvReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Reader reader;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position = 0;
+
+	private int limit = 0;
+
+	// フィールド値の組み立て用(レコード間で使い回す)
+	private final StringBuilder field = new StringBuilder();
+
+	// 読み込んだレコード数
+	private long recordNumber = 0;
+
+	public CsvReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * 次のレコードを読み込む
+	 *
+	 * @return フィールドの配列 ファイル終端の場合はnull
+	 * @throws IOException
+	 */
+	public String[] readRecord() throws IOException {
+		List<String> fields = new ArrayList<>();
+		field.setLength(0);
+		boolean inQuotes = false;
+		boolean hasData = false;
+
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				if (!hasData) {
+					return null;
+				}
+				fields.add(field.toString());
+				break;
+			}
+			// 先頭レコードのBOMは読み飛ばす
+			if (c == '\uFEFF' && recordNumber == 0 && !hasData) {
+				continue;
+			}
+
+			if (inQuotes) {
+				if (c == '"') {
+					int next = read();
+					if (next == '"') {
+						// エスケープされたダブルクォート
+						field.append('"');
+					} else {
+						inQuotes = false;
+						unread(next);
+					}
+				} else {
+					field.append((char)c);
+				}
+				continue;
+			}
+
+			if (c == '\r' || c == '\n') {
+				if (c == '\r') {
+					int next = read();
+					if (next != '\n') {
+						unread(next);
+					}
+				}
+				// 空行は読み飛ばす
+				if (!hasData) {
+					continue;
+				}
+				fields.add(field.toString());
+				break;
+			}
+
+			hasData = true;
+			if (c == '"') {
+				inQuotes = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append((char)c);
+			}
+		}
+
+		recordNumber++;
+		return fields.toArray(new String[fields.size()]);
+	}
+
+	/**
+	 * これまでに読み込んだレコード数を返す
+	 */
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private int read() throws IOException {
+		if (position >= limit) {
+			limit = reader.read(buffer, 0, BUFFER_SIZE);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+
+	private void unread(int c) {
+		if (c != -1) {
+			position--;
+		}
+	}
+}
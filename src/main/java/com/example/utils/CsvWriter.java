@@ -0,0 +1,64 @@
+package com.example.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSVを1レコードずつ書き込むライター
+ *
+ * カンマ・ダブルクォート・改行を含むフィールドは RFC 4180 に従いダブルクォートで囲む。
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+	private final Writer writer;
+
+	public CsvWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * 1レコードを書き込む(nullは空文字)
+	 *
+	 * @param fields
+	 * @throws IOException
+	 */
+	public void writeRecord(String... fields) throws IOException {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			this.writeField(fields[i]);
+		}
+		writer.write("\r\n");
+	}
+
+	private void writeField(String value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+		}
+		if (!quote) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
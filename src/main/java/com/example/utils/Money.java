@@ -0,0 +1,115 @@
+package com.example.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金額計算
+ *
+ * 金額は銭単位(1円 = 100)の long で扱い、計算途中で浮動小数点を使わない。
+ * 画面・エンティティ・DB との受け渡しは DECIMAL と同じ scale の BigDecimal で行う。
+ * 計算メソッドはオブジェクトを生成しない。
+ */
+public final class Money {
+
+	/**
+	 * 小数点以下の桁数(DB の DECIMAL の scale と合わせる)
+	 */
+	public static final int SCALE = 2;
+
+	/**
+	 * 1円あたりの単位数
+	 */
+	public static final long ONE = 100;
+
+	private Money() {}
+
+	/**
+	 * 円単位の BigDecimal を銭単位に変換する(null は0、銭未満は四捨五入)
+	 *
+	 * @param value
+	 * @return long
+	 */
+	public static long of(BigDecimal value) {
+		if (value == null) {
+			return 0;
+		}
+		return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	/**
+	 * 円単位の整数を銭単位に変換する
+	 *
+	 * @param yen
+	 * @return long
+	 */
+	public static long ofYen(long yen) {
+		return Math.multiplyExact(yen, ONE);
+	}
+
+	/**
+	 * 銭単位の金額を DECIMAL カラムにバインドする値に変換する
+	 *
+	 * @param amount
+	 * @return BigDecimal
+	 */
+	public static BigDecimal toBigDecimal(long amount) {
+		return BigDecimal.valueOf(amount, SCALE);
+	}
+
+	/**
+	 * 金額に数量を掛ける
+	 *
+	 * @param amount
+	 * @param quantity
+	 * @return long
+	 */
+	public static long multiply(long amount, int quantity) {
+		return Math.multiplyExact(amount, quantity);
+	}
+
+	/**
+	 * 税額を計算する(円未満を端数処理する)
+	 *
+	 * @param amount      単価×数量
+	 * @param rate        税率(%)
+	 * @param taxIncluded 金額が税込みか
+	 * @param mode        端数処理
+	 * @return long 税額
+	 */
+	public static long tax(long amount, int rate, boolean taxIncluded, RoundingMode mode) {
+		long divisor = (taxIncluded ? 100 + rate : 100) * ONE;
+		return divide(Math.multiplyExact(amount, rate), divisor, mode) * ONE;
+	}
+
+	/**
+	 * 割り算を指定の端数処理で行う
+	 *
+	 * @param dividend
+	 * @param divisor  正の数
+	 * @param mode     FLOOR / CEILING / HALF_UP / DOWN / UP
+	 * @return long
+	 */
+	public static long divide(long dividend, long divisor, RoundingMode mode) {
+		if (divisor <= 0) {
+			throw new ArithmeticException("divisor must be positive: " + divisor);
+		}
+		long quotient = Math.floorDiv(dividend, divisor);
+		long remainder = Math.floorMod(dividend, divisor);
+		if (remainder == 0) {
+			return quotient;
+		}
+		return switch (mode) {
+		case FLOOR -> quotient;
+		case CEILING -> quotient + 1;
+		case DOWN -> dividend < 0 ? quotient + 1 : quotient;
+		case UP -> dividend < 0 ? quotient : quotient + 1;
+		case HALF_UP -> {
+			// 0から遠い方へ丸める(負数の .5 は切り下げ)
+			long twice = remainder * 2;
+			yield twice > divisor || (twice == divisor && dividend > 0) ? quotient + 1 : quotient;
+		}
+		default -> throw new ArithmeticException("unsupported rounding mode: " + mode);
+		};
+	}
+}
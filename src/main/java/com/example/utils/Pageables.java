@@ -0,0 +1,36 @@
+package com.example.utils;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * 一覧画面のページング条件の補正
+ */
+public class Pageables {
+
+	private Pageables() {
+	}
+
+	/**
+	 * 並び順を並び替え可能な項目だけに絞り、最後にIDを加えて並び順を一意にする
+	 * 画面から任意の項目名が指定されてもクエリがエラーにならないようにする
+	 *
+	 * @param pageable
+	 * @param sortable 並び替え可能な項目名
+	 * @return Pageable
+	 */
+	public static Pageable restrictSort(Pageable pageable, Collection<String> sortable) {
+		List<Sort.Order> orders = pageable.getSort().stream()
+				.filter(order -> sortable.contains(order.getProperty()))
+				.toList();
+		Sort sort = Sort.by(orders);
+		if (sort.getOrderFor("id") == null) {
+			sort = sort.and(Sort.by("id"));
+		}
+		return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+	}
+}
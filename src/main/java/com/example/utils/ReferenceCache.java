@@ -0,0 +1,128 @@
+package com.example.utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 件数と有効期限で破棄する読み込み用キャッシュ(マスタ系の参照データ向け)
+ *
+ * 上限件数を超えた場合は最も長く参照されていないものから破棄し、有効期限を過ぎたものは次の参照時に読み直す。
+ * 読み込み中に無効化された場合は、無効化前の値を保持しないよう読み込んだ値をキャッシュしない。
+ */
+public class ReferenceCache<V> {
+
+	private final int maxSize;
+
+	private final long ttlNanos;
+
+	private final LongSupplier clock;
+
+	private final LinkedHashMap<String, CachedValue<V>> entries;
+
+	// 無効化のたびに進める(読み込み中に無効化されたかの判定用)
+	private long version;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	private static class CachedValue<V> {
+		final V value;
+		final long expiresAt;
+
+		CachedValue(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	public ReferenceCache(int maxSize, Duration ttl) {
+		this(maxSize, ttl, System::nanoTime);
+	}
+
+	ReferenceCache(int maxSize, Duration ttl, LongSupplier clock) {
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.clock = clock;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedValue<V>> eldest) {
+				if (size() > ReferenceCache.this.maxSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * キャッシュから取得する。存在しないか有効期限切れの場合は loader で読み込んで保持する
+	 * loader はロックの外で実行するため、同じキーを同時に読み込む場合がある
+	 *
+	 * @param key
+	 * @param loader
+	 * @return V
+	 */
+	public V get(String key, Function<String, V> loader) {
+		long loadVersion;
+		synchronized (this) {
+			CachedValue<V> cached = entries.get(key);
+			if (cached != null) {
+				if (clock.getAsLong() - cached.expiresAt < 0) {
+					hits++;
+					return cached.value;
+				}
+				entries.remove(key);
+				evictions++;
+			}
+			misses++;
+			loadVersion = version;
+		}
+
+		V value = loader.apply(key);
+		synchronized (this) {
+			if (loadVersion == version) {
+				entries.put(key, new CachedValue<>(value, clock.getAsLong() + ttlNanos));
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 指定したキーを破棄する
+	 */
+	public synchronized void invalidate(String key) {
+		version++;
+		entries.remove(key);
+	}
+
+	/**
+	 * すべて破棄する
+	 */
+	public synchronized void invalidateAll() {
+		version++;
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long hitCount() {
+		return hits;
+	}
+
+	public synchronized long missCount() {
+		return misses;
+	}
+
+	public synchronized long evictionCount() {
+		return evictions;
+	}
+}
@@ -0,0 +1,46 @@
+package com.example.utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * 退避ファイル(アップロードしたCSV・取込結果)の後始末
+ */
+public class SpoolFiles {
+
+	private SpoolFiles() {
+	}
+
+	/**
+	 * ディレクトリ内のファイル名が一致するファイルのうち、指定した日時より前に更新されたものを削除する
+	 * 削除できなかったファイルは次回に削除する
+	 *
+	 * @param dir
+	 * @param glob   ファイル名のパターン(例: shipping-*.csv)
+	 * @param before
+	 * @return int 削除した件数
+	 * @throws IOException ディレクトリを読み込めない場合
+	 */
+	public static int deleteModifiedBefore(Path dir, String glob, Instant before) throws IOException {
+		if (!Files.isDirectory(dir)) {
+			return 0;
+		}
+		int count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+			for (Path file : files) {
+				try {
+					if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(before)
+							&& Files.deleteIfExists(file)) {
+						count++;
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -3,15 +3,15 @@ $(document).ready(function () {
   let action = document.getElementById("action").getAttribute("val");
 
   $.ajax({
-    url: "/api/category/" + categoryId,
+    url: "/api/categories/" + categoryId + "/productIds",
     type: "GET",
     dataType: "json",
   })
     .done(function (data) {
-      var categoryProducts = data;
+      var productIds = data;
       // チェックボックスにチェックを入れる処理
-      categoryProducts.forEach(function (categoryProduct) {
-        $("#checkbox-" + categoryProduct.productId).prop("checked", true);
+      productIds.forEach(function (productId) {
+        $("#checkbox-" + productId).prop("checked", true);
       });
     })
     .fail(function () {
@@ -42,10 +42,14 @@ $(document).ready(function () {
       type: "POST",
       dataType: "text",
       contentType: "application/json",
-      data: postData,
-    }).done(function (data) {
-      $("#success-message").text(data).show().fadeOut(3000);
-    });
+      data: JSON.stringify(postData),
+    })
+      .done(function (data) {
+        $("#success-message").text(data).show().fadeOut(3000);
+      })
+      .fail(function (xhr) {
+        $("#error-message").text(xhr.responseText).show().fadeOut(3000);
+      });
   });
 
   validation = function (checkedIds) {
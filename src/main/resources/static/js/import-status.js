@@ -0,0 +1,23 @@
+$(document).ready(function () {
+  var $status = $("#import_status");
+  if ($status.length === 0) {
+    return;
+  }
+
+  // 取込中(status: 0)の間、進捗を定期的に取得して表示を更新する
+  var poll = function () {
+    $.getJSON($status.data("url"), function (data) {
+      $status.find(".import-status-name").text(data.statusName);
+      $status.find(".import-read-count").text(data.readCount);
+      $status.find(".import-write-count").text(data.writeCount);
+      $status.find(".import-error-count").text(data.errorCount);
+      if (data.status === 0) {
+        setTimeout(poll, 2000);
+      } else {
+        $status.removeClass("alert-info").addClass(data.status === 1 ? "alert-success" : "alert-danger");
+        $status.find(".import-result").removeClass("d-none");
+      }
+    });
+  };
+  poll();
+});
@@ -16,4 +16,25 @@ $(document).ready(function () {
       $("#all_check").prop("checked", false);
     }
   });
+
+  // 送信時はチェックした行番号のみをまとめて送る
+  $("#shipping_form").on("submit", function () {
+    var checked = $(".row_check:checked");
+    if (checked.length === 0) {
+      alert("更新する行を選択してください。");
+      return false;
+    }
+    if (checked.length === $(".row_check").length) {
+      $("#selected_rows").val("all");
+    } else {
+      $("#selected_rows").val(
+        checked
+          .map(function () {
+            return this.value;
+          })
+          .get()
+          .join(",")
+      );
+    }
+  });
 });
@@ -0,0 +1,59 @@
+package com.example.constants;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TaxTypeの検索でのメモリ確保の計測
+ *
+ * 通常のテストでは実行しない(mvn test -Pbenchmark で実行する)。
+ */
+@Tag("benchmark")
+public class TaxTypeBenchmarkTests {
+
+	/**
+	 * 検索でメモリを確保しないことのテスト
+	 */
+	@Test
+	public void getDoesNotAllocateTest() {
+		var threadBean = ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		var bean = (com.sun.management.ThreadMXBean)threadBean;
+		Assumptions.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+		Integer[] ids = new Integer[18];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i + 1;
+		}
+		Integer rate = TaxType.RATE_10;
+		Boolean taxIncluded = Boolean.TRUE;
+		// ウォームアップ
+		lookup(ids, rate, taxIncluded, 100_000);
+
+		long threadId = Thread.currentThread().getId();
+		long before = bean.getThreadAllocatedBytes(threadId);
+		int found = lookup(ids, rate, taxIncluded, 1_000_000);
+		long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+
+		Assertions.assertEquals(2_000_000, found);
+		// 計測処理自体の確保分を許容する
+		Assertions.assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+	}
+
+	private static int lookup(Integer[] ids, Integer rate, Boolean taxIncluded, int times) {
+		int found = 0;
+		for (int i = 0; i < times; i++) {
+			if (TaxType.get(ids[i % ids.length]) != null) {
+				found++;
+			}
+			if (TaxType.get(rate, taxIncluded, TaxType.CEIL) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.constants;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TaxTypeのテストクラス
+ */
+public class TaxTypeTests {
+
+	/**
+	 * IDと税率・税込み・端数処理のどちらで引いても同じインスタンスが返ることのテスト
+	 */
+	@Test
+	public void getTest() {
+		Assertions.assertEquals(18, TaxType.get().size());
+		for (TaxType.Tax tax : TaxType.get()) {
+			Assertions.assertSame(tax, TaxType.get(tax.id));
+			Assertions.assertSame(tax, TaxType.get(tax.rate, tax.taxIncluded, tax.rounding));
+		}
+	}
+
+	/**
+	 * 存在しない税区分のテスト
+	 */
+	@Test
+	public void getNotFoundTest() {
+		Assertions.assertNull(TaxType.get(0));
+		Assertions.assertNull(TaxType.get(19));
+		Assertions.assertNull(TaxType.get((Integer)null));
+		Assertions.assertNull(TaxType.get(5, false, TaxType.ROUND));
+		Assertions.assertNull(TaxType.get(100, false, TaxType.ROUND));
+		Assertions.assertNull(TaxType.get(TaxType.RATE_10, false, "half"));
+	}
+}
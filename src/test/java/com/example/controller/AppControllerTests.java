@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
@@ -14,10 +16,14 @@ import jakarta.servlet.ServletException;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.Base64;
 import java.util.Optional;
 
+import org.hamcrest.Matchers;
 import org.hamcrest.beans.SamePropertyValuesAs;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
@@ -48,6 +54,86 @@ public class AppControllerTests {
 				.andExpect(model().attributeExists("listApp"));
 	}
 
+	/**
+	 * get index ページング・並び替えのテスト
+	 * 件数は上限に丸められ、並び替えできない項目の指定は無視されること
+	 */
+	@Test
+	public void getIndexPageTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/apps").param("size", "1").param("sort", "name,desc"))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("listApp", Matchers.hasSize(Matchers.lessThanOrEqualTo(1))))
+				.andExpect(model().attribute("page", Matchers.hasProperty("size", Matchers.is(1))));
+		mvc.perform(MockMvcRequestBuilders.get("/apps").param("size", "100000").param("sort", "image"))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("page", Matchers.hasProperty("size", Matchers.is(100))));
+	}
+
+	/**
+	 * get imageのテスト
+	 * 画像ストアの画像はキャッシュ可能なヘッダー付きで返し、ETag が一致する場合は 304 を返すこと
+	 */
+	@Test
+	public void getImageTest(@Autowired MockMvc mvc) throws Exception {
+		App app = new App();
+		app.setName("test");
+		app.setUrl("test");
+		app.setDeveloper("test");
+		app.setDescription("test");
+		app.setImage(TEST_IMAGE);
+		app.setActive(true);
+		appService.save(app);
+		Assertions.assertNotNull(app.getImageKey());
+		Assertions.assertEquals("", app.getImage());
+
+		mvc.perform(MockMvcRequestBuilders.get("/apps/" + app.getId() + "/image"))
+				.andExpect(status().isFound())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+				.andExpect(redirectedUrlPattern("**/apps/images/" + app.getImageKey()));
+		String etag = mvc.perform(MockMvcRequestBuilders.get("/apps/images/" + app.getImageKey()).param("size", "100"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("image/gif"))
+				.andExpect(content().bytes(Base64.getDecoder().decode(TEST_IMAGE.substring(TEST_IMAGE.indexOf(',') + 1))))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, Matchers.containsString("immutable")))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mvc.perform(MockMvcRequestBuilders.get("/apps/images/" + app.getImageKey()).param("size", "100")
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+		mvc.perform(MockMvcRequestBuilders.get("/apps/images/" + app.getImageKey()).param("size", "300"))
+				.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * post create 画像ファイル テスト
+	 * 同じ画像は同じキーで保存されること
+	 */
+	@Test
+	public void postCreateImageFileTest(@Autowired MockMvc mvc) throws Exception {
+		MockMultipartFile file = new MockMultipartFile("imageFile", "test.gif", "image/gif",
+				Base64.getDecoder().decode(TEST_IMAGE.substring(TEST_IMAGE.indexOf(',') + 1)));
+		String location = mvc.perform(MockMvcRequestBuilders.multipart("/apps").file(file)
+				.with(SecurityMockMvcRequestPostProcessors.csrf())
+				.param("name", "test")
+				.param("url", "test")
+				.param("developer", "test")
+				.param("description", "test")
+				.param("active", "true"))
+				.andExpect(status().isFound())
+				.andExpect(flash().attribute("success", Message.MSG_SUCESS_INSERT))
+				.andReturn().getResponse().getRedirectedUrl();
+
+		App app = appService.findOne(Long.valueOf(location.substring(location.lastIndexOf('/') + 1))).get();
+		App other = new App();
+		other.setName("test");
+		other.setUrl("test");
+		other.setDeveloper("test");
+		other.setDescription("test");
+		other.setImage(TEST_IMAGE);
+		other.setActive(true);
+		appService.save(other);
+		Assertions.assertEquals(app.getImageKey(), other.getImageKey());
+	}
+
 	/**
 	 * get showのテスト
 	 */
@@ -169,7 +255,8 @@ public class AppControllerTests {
 		Assertions.assertEquals("test2", app2.get().getUrl());
 		Assertions.assertEquals("test2", app2.get().getDeveloper());
 		Assertions.assertEquals("test2", app2.get().getDescription());
-		Assertions.assertEquals(TEST_IMAGE, app2.get().getImage());
+		Assertions.assertEquals(app.getImageKey(), app2.get().getImageKey());
+		Assertions.assertEquals("", app2.get().getImage());
 		Assertions.assertEquals(false, app2.get().getActive());
 	}
 
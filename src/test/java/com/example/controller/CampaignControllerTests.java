@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
@@ -14,7 +15,9 @@ import jakarta.servlet.ServletException;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.hamcrest.beans.SamePropertyValuesAs;
 
@@ -24,6 +27,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
 
 import com.example.constants.Message;
+import com.example.entity.ImportResult;
 import com.example.enums.DiscountType;
 import com.example.model.Campaign;
 import com.example.service.CampaignService;
@@ -224,4 +228,25 @@ public class CampaignControllerTests {
 		Assertions.assertFalse(campaign2.isPresent());
 	}
 
+	/**
+	 * CSV取込 登録失敗 テスト
+	 * 登録に失敗したチャンクは中断せず、行ごとのエラーとして結果に含めること
+	 */
+	@Test
+	public void importCSVInsertErrorTest() throws Exception {
+		String code = UUID.randomUUID().toString();
+		String csv = "name,code,from_date,to_date,discount_type,status,description\n"
+				+ "test," + code + ",2021-01-01,2021-01-31,1,0,test\n"
+				+ "test," + "x".repeat(300) + ",2021-01-01,2021-01-31,1,0,test\n";
+		MockMultipartFile file = new MockMultipartFile("file", "campaigns.csv", "text/csv",
+				csv.getBytes(StandardCharsets.UTF_8));
+
+		ImportResult result = campaignService.importCSV(file);
+		Assertions.assertEquals(2, result.getReadCount());
+		Assertions.assertEquals(0, result.getWriteCount());
+		Assertions.assertEquals(2, result.getErrorCount());
+		Assertions.assertTrue(result.getErrors().get(0).contains("登録に失敗しました。"));
+		Assertions.assertFalse(campaignService.findByCode(code).isPresent());
+	}
+
 }
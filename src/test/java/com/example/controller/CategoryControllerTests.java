@@ -5,15 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import jakarta.servlet.ServletException;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.hamcrest.beans.SamePropertyValuesAs;
@@ -24,8 +28,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
 
 import com.example.constants.Message;
+import com.example.entity.RelinkResult;
 import com.example.model.Category;
+import com.example.model.Product;
+import com.example.model.Shop;
 import com.example.service.CategoryService;
+import com.example.service.ProductService;
+import com.example.service.ShopService;
 
 /**
  * CategoryControllerのテストクラス
@@ -37,6 +46,12 @@ public class CategoryControllerTests {
 	@Autowired
 	private CategoryService categoryService;
 
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ShopService shopService;
+
 	/**
 	 * get indexのテスト
 	 */
@@ -174,4 +189,69 @@ public class CategoryControllerTests {
 		Optional<Category> category2 = categoryService.findOne(category.getId());
 		Assertions.assertFalse(category2.isPresent());
 	}
+
+	/**
+	 * 商品の紐付けの差分更新のテスト
+	 */
+	@Test
+	public void relinkProductsTest(@Autowired MockMvc mvc) throws Exception {
+		Category category = new Category();
+		category.setName("test");
+		category.setCode("42");
+		category.setDisplayOrder(1);
+		categoryService.save(category);
+
+		Shop shop = new Shop();
+		shop.setName("test");
+		shop.setAddress("42");
+		shop.setContact("42");
+		shopService.save(shop);
+		Long[] productIds = new Long[2];
+		for (int i = 0; i < productIds.length; i++) {
+			Product product = new Product();
+			product.setShopId(shop.getId());
+			product.setName("test" + i);
+			product.setCode("42");
+			product.setWeight(42);
+			product.setHeight(42);
+			product.setPrice(42);
+			product.setTaxType(1);
+			productIds[i] = productService.save(product).getId();
+		}
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/categories/" + category.getId() + "/updateCategoryProduct")
+				.with(SecurityMockMvcRequestPostProcessors.csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"productIds\": [" + productIds[0] + ", " + productIds[1] + "]}"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(String.format(Message.MSG_SUCESS_CATEGORY_PRODUCT_RELINK, 2, 0)));
+
+		RelinkResult result = categoryService.relinkProducts(category.getId(), List.of(productIds[1]));
+		Assertions.assertEquals(0, result.getAdded());
+		Assertions.assertEquals(1, result.getRemoved());
+		Assertions.assertEquals(1, result.getUnchanged());
+
+		// 存在しない商品を含む場合は紐付けを変更しない
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> categoryService.relinkProducts(category.getId(), List.of(productIds[1], Long.MAX_VALUE)));
+		Assertions.assertFalse(categoryService.relinkProducts(category.getId(), List.of(productIds[1])).isChanged());
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/categories/" + category.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.productCount").value(1))
+				.andExpect(jsonPath("$.categoryProducts").doesNotExist());
+		mvc.perform(MockMvcRequestBuilders.get("/api/categories/" + category.getId() + "/productIds"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0]").value(productIds[1]));
+	}
+
+	/**
+	 * get api allのテスト(紐付けや商品を含まないこと)
+	 */
+	@Test
+	public void getApiAllTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/api/categories/all"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].categoryProducts").isEmpty());
+	}
 }
@@ -8,15 +8,18 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import jakarta.servlet.ServletException;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.hamcrest.Matchers;
 import org.hamcrest.beans.SamePropertyValuesAs;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -25,8 +28,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
 
 import com.example.constants.Message;
+import com.example.entity.KeysetPage;
+import com.example.entity.TransactionAmountRow;
 import com.example.model.Company;
+import com.example.model.TransactionAmount;
 import com.example.service.CompanyService;
+import com.example.service.TransactionAmountService;
 
 /**
  * CompanyControllerのテストクラス
@@ -38,13 +45,17 @@ public class CompanyControllerTests {
 	@Autowired
 	private CompanyService companyService;
 
+	@Autowired
+	private TransactionAmountService transactionAmountService;
+
 	/**
 	 * get indexのテスト
 	 */
 	@Test
 	public void getIndexTest(@Autowired MockMvc mvc) throws Exception {
 		mvc.perform(MockMvcRequestBuilders.get("/companies")).andExpect(status().isOk())
-				.andExpect(view().name("company/index")).andExpect(model().attributeExists("listCompany"));
+				.andExpect(view().name("company/index")).andExpect(model().attributeExists("listCompany"))
+				.andExpect(model().attributeExists("balances"));
 	}
 
 	/**
@@ -63,6 +74,44 @@ public class CompanyControllerTests {
 				.andExpect(view().name("company/show")).andExpect(model().attributeExists("company"));
 	}
 
+	/**
+	 * get show 取引金額一覧のページングのテスト
+	 */
+	@Test
+	public void getShowPageTest(@Autowired MockMvc mvc) throws Exception {
+		Company company = new Company();
+		company.setName("test");
+		company.setEmail(UUID.randomUUID().toString() + "@example.com");
+		company.setAddress("test");
+		company.setPhone("test");
+		company.setZipCode("100000");
+		companyService.save(company);
+		for (int i = 0; i < 51; i++) {
+			TransactionAmount tAmount = new TransactionAmount();
+			tAmount.setCompanyId(company.getId());
+			tAmount.setPlusMinus(true);
+			tAmount.setPrice(100);
+			tAmount.setDueDate(new Date());
+			tAmount.setHasPaid(false);
+			tAmount.setMemo("test" + i);
+			transactionAmountService.save(tAmount);
+		}
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/companies/" + company.getId()))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("listTAmount", Matchers.hasSize(50)))
+				.andExpect(model().attribute("page", Matchers.hasProperty("hasNext", Matchers.is(true))))
+				.andReturn();
+		TransactionAmountRow last = (TransactionAmountRow)((KeysetPage<?>)result.getModelAndView().getModel().get("page"))
+				.getLast();
+		Assertions.assertEquals("test1", last.getMemo());
+
+		mvc.perform(MockMvcRequestBuilders.get("/companies/" + company.getId()).param("after", last.getId().toString()))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("listTAmount", Matchers.contains(Matchers.hasProperty("memo", Matchers.is("test0")))))
+				.andExpect(model().attribute("page", Matchers.hasProperty("hasNext", Matchers.is(false))));
+	}
+
 	/**
 	 * get creteのテスト
 	 */
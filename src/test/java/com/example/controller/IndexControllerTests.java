@@ -0,0 +1,50 @@
+package com.example.controller;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+/**
+ * IndexControllerのテストクラス
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class IndexControllerTests {
+
+	/**
+	 * get indexのテスト
+	 */
+	@Test
+	public void getIndexTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/"))
+				.andExpect(status().isOk())
+				.andExpect(view().name("index"))
+				.andExpect(model().attribute("endpoints", Matchers.hasItem(Matchers.allOf(
+						Matchers.hasProperty("path", Matchers.is("/shops")),
+						Matchers.hasProperty("method", Matchers.is("GET"))))))
+				.andExpect(model().attribute("endpoints", Matchers.not(Matchers.hasItem(
+						Matchers.hasProperty("path", Matchers.is("/"))))));
+	}
+
+	/**
+	 * get endpointsのテスト
+	 */
+	@Test
+	public void getEndpointsTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/endpoints"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.path == '/shops/{id}' && @.method == 'GET')].handler")
+						.value(Matchers.hasItem("ShopController#show")));
+	}
+}
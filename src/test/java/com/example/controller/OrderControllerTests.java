@@ -7,14 +7,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import jakarta.servlet.ServletException;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Optional;
 
@@ -27,14 +32,18 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.example.constants.Message;
 import com.example.constants.PaymentType;
+import com.example.enums.FileImportStatus;
 import com.example.enums.OrderStatus;
 import com.example.enums.PaymentMethod;
 import com.example.enums.PaymentStatus;
+import com.example.enums.ServiceType;
 import com.example.form.OrderForm;
+import com.example.model.FileImportInfo;
 import com.example.model.Order;
 import com.example.model.OrderPayment;
 import com.example.model.OrderProduct;
 import com.example.model.Product;
+import com.example.repository.FileImportInfoRepository;
 import com.example.service.OrderService;
 import com.example.service.ProductService;
 
@@ -53,6 +62,9 @@ public class OrderControllerTests {
 	@Autowired
 	private ProductService productService;
 
+	@Autowired
+	private FileImportInfoRepository fileImportInfoRepository;
+
 	/**
 	 * get indexのテスト
 	 */
@@ -63,6 +75,21 @@ public class OrderControllerTests {
 				.andExpect(model().attributeExists("listOrder"));
 	}
 
+	/**
+	 * get index 絞り込み・次ページのテスト
+	 */
+	@Test
+	public void getIndexWithCursorTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/orders")
+				.param("status", OrderStatus.ORDERED)
+				.param("paymentStatus", PaymentStatus.UNPAID)
+				.param("size", "1")
+				.param("afterCreateAt", String.valueOf(System.currentTimeMillis()))
+				.param("afterId", String.valueOf(Long.MAX_VALUE)))
+				.andExpect(status().isOk()).andExpect(view().name("order/index"))
+				.andExpect(model().attributeExists("listOrder", "page"));
+	}
+
 	/**
 	 * get showのテスト
 	 */
@@ -70,15 +97,15 @@ public class OrderControllerTests {
 	public void getShowTest(@Autowired MockMvc mvc) throws Exception {
 		Order order = new Order();
 		order.setCustomerId(42);
-		order.setDiscount(42.0);
-		order.setShipping(42.0);
-		order.setTax(42.0);
-		order.setTotal(42.0);
-		order.setGrandTotal(42.0 * 2);
+		order.setDiscount(new BigDecimal("42.0"));
+		order.setShipping(new BigDecimal("42.0"));
+		order.setTax(new BigDecimal("42.0"));
+		order.setTotal(new BigDecimal("42.0"));
+		order.setGrandTotal(new BigDecimal("84.0"));
 		order.setStatus(OrderStatus.ORDERED);
 		order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
 		order.setPaymentStatus(PaymentStatus.UNPAID);
-		order.setPaid(0.0);
+		order.setPaid(new BigDecimal("0.0"));
 		order.setNote("test");
 		order.setOrderPayments(new ArrayList<OrderPayment>());
 		order.setOrderProducts(new ArrayList<OrderProduct>());
@@ -113,6 +140,26 @@ public class OrderControllerTests {
 				.andExpect(flash().attribute("error", Message.MSG_ERROR));
 	}
 
+	/**
+	 * post create 存在しない商品 テスト
+	 */
+	@Test
+	public void postCreateMissingProductTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(
+				MockMvcRequestBuilders.post("/orders")
+						.with(SecurityMockMvcRequestPostProcessors.csrf())
+						.param("customerId", "1")
+						.param("shipping", "0.0")
+						.param("paymentMethod", PaymentMethod.CREDIT_CARD)
+						.param("note", "test")
+						.param("orderProducts[0].productId", String.valueOf(Long.MAX_VALUE))
+						.param("orderProducts[0].discount", "0.0")
+						.param("orderProducts[0].quantity", "1"))
+				.andExpect(status().isFound())
+				.andExpect(redirectedUrl("/orders/new"))
+				.andExpect(flash().attributeExists("error"));
+	}
+
 	/**
 	 * post create 成功 テスト
 	 */
@@ -157,15 +204,15 @@ public class OrderControllerTests {
 	public void getUpdateValidTest(@Autowired MockMvc mvc) throws Exception {
 		Order order = new Order();
 		order.setCustomerId(42);
-		order.setDiscount(42.0);
-		order.setShipping(42.0);
-		order.setTax(42.0);
-		order.setTotal(42.0);
-		order.setGrandTotal(42.0 * 2);
+		order.setDiscount(new BigDecimal("42.0"));
+		order.setShipping(new BigDecimal("42.0"));
+		order.setTax(new BigDecimal("42.0"));
+		order.setTotal(new BigDecimal("42.0"));
+		order.setGrandTotal(new BigDecimal("84.0"));
 		order.setStatus(OrderStatus.ORDERED);
 		order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
 		order.setPaymentStatus(PaymentStatus.UNPAID);
-		order.setPaid(0.0);
+		order.setPaid(new BigDecimal("0.0"));
 		order.setNote("test");
 		order.setOrderPayments(new ArrayList<OrderPayment>());
 		order.setOrderProducts(new ArrayList<OrderProduct>());
@@ -197,15 +244,15 @@ public class OrderControllerTests {
 	public void putUpdateValidTest(@Autowired MockMvc mvc) throws Exception {
 		Order order = new Order();
 		order.setCustomerId(42);
-		order.setDiscount(42.0);
-		order.setShipping(42.0);
-		order.setTax(42.0);
-		order.setTotal(42.0);
-		order.setGrandTotal(168.0);
+		order.setDiscount(new BigDecimal("42.0"));
+		order.setShipping(new BigDecimal("42.0"));
+		order.setTax(new BigDecimal("42.0"));
+		order.setTotal(new BigDecimal("42.0"));
+		order.setGrandTotal(new BigDecimal("168.0"));
 		order.setStatus(OrderStatus.ORDERED);
 		order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
 		order.setPaymentStatus(PaymentStatus.UNPAID);
-		order.setPaid(0.0);
+		order.setPaid(new BigDecimal("0.0"));
 		order.setNote("test");
 
 		orderService.save(order);
@@ -231,7 +278,7 @@ public class OrderControllerTests {
 
 		Optional<Order> order2 = orderService.findOne(order.getId());
 		Assertions.assertEquals(OrderStatus.SHIPPED, order2.get().getStatus());
-		Assertions.assertEquals(168.0, order2.get().getPaid());
+		Assertions.assertEquals(0, new BigDecimal("168.0").compareTo(order2.get().getPaid()));
 		Assertions.assertEquals(PaymentStatus.PAID, order2.get().getPaymentStatus());
 
 	}
@@ -252,15 +299,15 @@ public class OrderControllerTests {
 	public void deleteValidTest(@Autowired MockMvc mvc) throws Exception {
 		Order order = new Order();
 		order.setCustomerId(42);
-		order.setDiscount(42.0);
-		order.setShipping(42.0);
-		order.setTax(42.0);
-		order.setTotal(42.0);
-		order.setGrandTotal(42.0 * 2);
+		order.setDiscount(new BigDecimal("42.0"));
+		order.setShipping(new BigDecimal("42.0"));
+		order.setTax(new BigDecimal("42.0"));
+		order.setTotal(new BigDecimal("42.0"));
+		order.setGrandTotal(new BigDecimal("84.0"));
 		order.setStatus(OrderStatus.ORDERED);
 		order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
 		order.setPaymentStatus(PaymentStatus.UNPAID);
-		order.setPaid(0.0);
+		order.setPaid(new BigDecimal("0.0"));
 		order.setNote("test");
 
 		orderService.save(order);
@@ -282,15 +329,15 @@ public class OrderControllerTests {
 	public void createPaymentValidTest(@Autowired MockMvc mvc) throws Exception {
 		Order order = new Order();
 		order.setCustomerId(42);
-		order.setDiscount(42.0);
-		order.setShipping(42.0);
-		order.setTax(42.0);
-		order.setTotal(42.0);
-		order.setGrandTotal(42.0 * 2);
+		order.setDiscount(new BigDecimal("42.0"));
+		order.setShipping(new BigDecimal("42.0"));
+		order.setTax(new BigDecimal("42.0"));
+		order.setTotal(new BigDecimal("42.0"));
+		order.setGrandTotal(new BigDecimal("84.0"));
 		order.setStatus(OrderStatus.ORDERED);
 		order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
 		order.setPaymentStatus(PaymentStatus.UNPAID);
-		order.setPaid(0.0);
+		order.setPaid(new BigDecimal("0.0"));
 		order.setNote("test");
 		order.setOrderPayments(new ArrayList<OrderPayment>());
 		order.setOrderProducts(new ArrayList<OrderProduct>());
@@ -299,7 +346,7 @@ public class OrderControllerTests {
 
 		var params = new OrderForm.CreatePayment();
 		params.setOrderId(order.getId());
-		params.setPaid(42.0);
+		params.setPaid(new BigDecimal("42.0"));
 		params.setType(PaymentType.COMPLETED);
 		params.setMethod(PaymentMethod.CREDIT_CARD);
 		params.setPaidAt(new Timestamp(System.currentTimeMillis()));
@@ -312,7 +359,142 @@ public class OrderControllerTests {
 				.andExpect(flash().attribute("success", "支払い情報を更新しました"));
 
 		Optional<Order> order2 = orderService.findOne(order.getId());
-		Assertions.assertEquals(42.0, order2.get().getPaid());
+		Assertions.assertEquals(0, new BigDecimal("42.0").compareTo(order2.get().getPaid()));
 		Assertions.assertEquals(PaymentStatus.PARTIALLY_PAID, order2.get().getPaymentStatus());
 	}
+
+	/**
+	 * createPayment 分割払いで入金済みになるテスト
+	 */
+	@Test
+	public void createPaymentInstallmentsTest() throws Exception {
+		Order order = new Order();
+		order.setCustomerId(42);
+		order.setDiscount(new BigDecimal("0.0"));
+		order.setShipping(new BigDecimal("0.0"));
+		order.setTax(new BigDecimal("0.0"));
+		order.setTotal(new BigDecimal("0.3"));
+		order.setGrandTotal(new BigDecimal("0.3"));
+		order.setStatus(OrderStatus.ORDERED);
+		order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+		order.setPaymentStatus(PaymentStatus.UNPAID);
+		order.setPaid(new BigDecimal("0.0"));
+		order.setNote("test");
+		orderService.save(order);
+
+		for (String paid : new String[] { "0.1", "0.2" }) {
+			var params = new OrderForm.CreatePayment();
+			params.setOrderId(order.getId());
+			params.setPaid(new BigDecimal(paid));
+			params.setType(PaymentType.COMPLETED);
+			params.setMethod(PaymentMethod.CREDIT_CARD);
+			params.setPaidAt(new Timestamp(System.currentTimeMillis()));
+			orderService.createPayment(params);
+		}
+
+		Optional<Order> order2 = orderService.findOne(order.getId());
+		Assertions.assertEquals(0, new BigDecimal("0.3").compareTo(order2.get().getPaid()));
+		Assertions.assertEquals(PaymentStatus.PAID, order2.get().getPaymentStatus());
+	}
+
+	/**
+	 * 支払いCSVインポート CSV以外のファイル テスト
+	 */
+	@Test
+	public void uploadPaymentCSVInValidTest(@Autowired MockMvc mvc) throws Exception {
+		MockMultipartFile file = new MockMultipartFile("csv_file", "payments.txt", "text/plain", "test".getBytes());
+		mvc.perform(MockMvcRequestBuilders.multipart("/orders/payments/upload_csv").file(file)
+				.with(SecurityMockMvcRequestPostProcessors.csrf()))
+				.andExpect(status().isFound())
+				.andExpect(redirectedUrl("/orders"))
+				.andExpect(flash().attribute("error", "CSVファイルを選択してください。"));
+	}
+
+	/**
+	 * 支払いCSVインポート 存在しない取込の進捗取得 テスト
+	 */
+	@Test
+	public void paymentImportStatusNotFoundTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/orders/payments/imports/" + Long.MAX_VALUE))
+				.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * 支払いCSVインポートの進捗取得 テスト
+	 * 取引金額CSVの取込は取得できないこと
+	 */
+	@Test
+	public void paymentImportStatusTest(@Autowired MockMvc mvc) throws Exception {
+		FileImportInfo payment = this.saveImport(ServiceType.ORDER, 0L);
+		FileImportInfo other = this.saveImport(ServiceType.COMPANY, 42L);
+
+		mvc.perform(MockMvcRequestBuilders.get("/orders/payments/imports/" + payment.getId()))
+				.andExpect(status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get("/orders/payments/imports/" + other.getId()))
+				.andExpect(status().isNotFound());
+	}
+
+	private FileImportInfo saveImport(ServiceType type, Long relationId) {
+		FileImportInfo imp = new FileImportInfo();
+		imp.setStartDatetime(LocalDateTime.now());
+		imp.setEndDatetime(LocalDateTime.now());
+		imp.setStatus(FileImportStatus.COMPLETE);
+		imp.setType(type);
+		imp.setRelationId(relationId);
+		return fileImportInfoRepository.save(imp);
+	}
+
+	/**
+	 * get shippingのテスト
+	 */
+	@Test
+	public void getShippingTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/orders/shipping"))
+				.andExpect(status().isOk()).andExpect(view().name("order/shipping"));
+	}
+
+	/**
+	 * put shippingの異常系テスト(読込済みのCSVがない)
+	 */
+	@Test
+	public void putShippingInvalidTokenTest(@Autowired MockMvc mvc) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.put("/orders/shipping").with(SecurityMockMvcRequestPostProcessors.csrf())
+				.param("token", "../invalid")
+				.param("selectedRows", "all"))
+				.andExpect(status().isOk()).andExpect(view().name("order/shipping"))
+				.andExpect(model().attributeExists("error"))
+				.andExpect(model().attributeDoesNotExist("orderShippingData"));
+	}
+
+	/**
+	 * put shippingの異常系テスト(別のセッションで読み込んだCSV)
+	 */
+	@Test
+	public void putShippingOtherSessionTest(@Autowired MockMvc mvc) throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MockMultipartFile file = new MockMultipartFile("file", "shipping.csv", "text/csv",
+				("orderId,shippingCode,shippingDate,deliveryDate,deliveryTimezone\n"
+						+ Long.MAX_VALUE + ",SC-1,2023-08-01,,\n").getBytes());
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.multipart("/orders/shipping").file(file)
+				.session(session).with(SecurityMockMvcRequestPostProcessors.csrf()))
+				.andExpect(status().isOk()).andExpect(model().attributeExists("orderShippingData"))
+				.andReturn();
+		String token = ((OrderForm.OrderShippingData)result.getModelAndView().getModel().get("orderShippingData"))
+				.getToken();
+
+		mvc.perform(MockMvcRequestBuilders.put("/orders/shipping").with(SecurityMockMvcRequestPostProcessors.csrf())
+				.session(new MockHttpSession())
+				.param("token", token)
+				.param("selectedRows", "all"))
+				.andExpect(status().isOk()).andExpect(view().name("order/shipping"))
+				.andExpect(model().attributeExists("error"))
+				.andExpect(model().attributeDoesNotExist("orderShippingData"));
+
+		mvc.perform(MockMvcRequestBuilders.put("/orders/shipping").with(SecurityMockMvcRequestPostProcessors.csrf())
+				.session(session)
+				.param("token", token)
+				.param("selectedRows", "all"))
+				.andExpect(status().isOk()).andExpect(view().name("order/shipping"))
+				.andExpect(model().attributeExists("orderShippingData"));
+	}
 }
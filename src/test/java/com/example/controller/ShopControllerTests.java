@@ -14,8 +14,11 @@ import jakarta.servlet.ServletException;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.hamcrest.Matchers;
 import org.hamcrest.beans.SamePropertyValuesAs;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -24,9 +27,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
 
 import com.example.constants.Message;
+import com.example.model.Product;
 import com.example.model.Shop;
+import com.example.service.CacheInvalidationBus;
+import com.example.service.ProductService;
+import com.example.service.ReferenceCacheService;
 import com.example.service.ShopService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * ShopControllerのテストクラス
  */
@@ -37,6 +46,9 @@ public class ShopControllerTests {
 	@Autowired
 	private ShopService shopService;
 
+	@Autowired
+	private ProductService productService;
+
 	/**
 	 * get indexのテスト
 	 */
@@ -64,6 +76,45 @@ public class ShopControllerTests {
 				.andExpect(model().attributeExists("shop"));
 	}
 
+	/**
+	 * get show キャッシュのテスト
+	 * 2回目以降はキャッシュから取得し、更新時は無効化が配信されて更新後の内容を表示すること
+	 */
+	@Test
+	public void getShowCacheTest(@Autowired MockMvc mvc, @Autowired MeterRegistry meterRegistry,
+			@Autowired CacheInvalidationBus cacheInvalidationBus) throws Exception {
+		Shop shop = new Shop();
+		shop.setName("test");
+		shop.setAddress("42");
+		shop.setContact("42");
+		shopService.save(shop);
+
+		// 他ノードの代わりに無効化の配信を受け取る
+		List<String> received = new CopyOnWriteArrayList<>();
+		cacheInvalidationBus.subscribe((cacheName, key) -> received.add(cacheName + ":" + key));
+
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId()))
+				.andExpect(status().isOk());
+		double hits = meterRegistry.get("cache.gets")
+				.tags("cache", ReferenceCacheService.SHOPS, "result", "hit").functionCounter().count();
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId()))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("shop", Matchers.hasProperty("name", Matchers.is("test"))));
+		Assertions.assertEquals(hits + 1, meterRegistry.get("cache.gets")
+				.tags("cache", ReferenceCacheService.SHOPS, "result", "hit").functionCounter().count());
+
+		// 取得したエンティティを変更してもキャッシュには残らないこと
+		shopService.findOne(shop.getId()).get().setName("changed");
+		Assertions.assertEquals("test", shopService.findOne(shop.getId()).get().getName());
+
+		shop.setName("test2");
+		shopService.save(shop);
+		Assertions.assertTrue(received.contains(ReferenceCacheService.SHOPS + ":" + shop.getId()));
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId()))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("shop", Matchers.hasProperty("name", Matchers.is("test2"))));
+	}
+
 	/**
 	 * get creteのテスト
 	 */
@@ -205,4 +256,40 @@ public class ShopControllerTests {
 		Optional<Shop> shop2 = shopService.findOne(shop.getId());
 		Assertions.assertFalse(shop2.isPresent());
 	}
+
+	/**
+	 * delete 商品を持つショップの削除 テスト
+	 * 表示用のキャッシュを経由していても、商品ごと削除されること
+	 */
+	@Test
+	public void deleteWithProductsTest(@Autowired MockMvc mvc) throws Exception {
+		Shop shop = new Shop();
+		shop.setName("test");
+		shop.setAddress("42");
+		shop.setContact("42");
+		shopService.save(shop);
+
+		Product product = new Product();
+		product.setShopId(shop.getId());
+		product.setName("test");
+		product.setCode("42");
+		product.setWeight(42);
+		product.setHeight(42);
+		product.setPrice(42);
+		product.setTaxType(1);
+		productService.save(product);
+
+		// 表示でキャッシュに載せておく
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId()))
+				.andExpect(status().isOk());
+
+		mvc.perform(
+				MockMvcRequestBuilders.delete("/shops/" + shop.getId()).with(SecurityMockMvcRequestPostProcessors.csrf()))
+				.andExpect(status().isFound())
+				.andExpect(redirectedUrl("/shops"))
+				.andExpect(flash().attribute("success", Message.MSG_SUCESS_DELETE));
+
+		Assertions.assertFalse(shopService.findOne(shop.getId()).isPresent());
+		Assertions.assertFalse(productService.findOne(product.getId()).isPresent());
+	}
 }
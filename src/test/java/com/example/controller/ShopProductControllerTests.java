@@ -16,6 +16,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.Optional;
 
+import org.hamcrest.Matchers;
 import org.hamcrest.beans.SamePropertyValuesAs;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -60,6 +61,83 @@ public class ShopProductControllerTests {
 				.andExpect(model().attributeExists("listProduct"));
 	}
 
+	/**
+	 * get indexの検索条件のテスト
+	 * 大文字小文字を区別せず、カテゴリー未設定の商品も1行で返す
+	 */
+	@Test
+	public void getIndexSearchTest(@Autowired MockMvc mvc) throws Exception {
+		Shop shop = new Shop();
+		shop.setName("test");
+		shop.setAddress("42");
+		shop.setContact("42");
+		shopService.save(shop);
+
+		Product product = new Product();
+		product.setShopId(shop.getId());
+		product.setName("Search Target");
+		product.setCode("ABC-42");
+		product.setWeight(42);
+		product.setHeight(42);
+		product.setPrice(42);
+		product.setTaxType(1);
+		productService.save(product);
+
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId() + "/products")
+				.param("name", "search target")
+				.param("code", "abc-")
+				.param("weight1", "42")
+				.param("price2", "42.5"))
+				.andExpect(status().isOk())
+				.andExpect(view().name("shop_product/index"))
+				.andExpect(model().attribute("listProduct", Matchers.hasSize(1)))
+				.andExpect(model().attributeExists("page"));
+
+		// 後続の条件で前の条件が上書きされないこと
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId() + "/products")
+				.param("name", "search target")
+				.param("code", "xyz"))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("listProduct", Matchers.hasSize(0)));
+	}
+
+	/**
+	 * get indexの検索結果に商品の更新・削除が反映されることのテスト
+	 */
+	@Test
+	public void getIndexSearchAfterUpdateTest(@Autowired MockMvc mvc) throws Exception {
+		Shop shop = new Shop();
+		shop.setName("test");
+		shop.setAddress("42");
+		shop.setContact("42");
+		shopService.save(shop);
+
+		Product product = new Product();
+		product.setShopId(shop.getId());
+		product.setName("Before Rename");
+		product.setCode("42");
+		product.setWeight(42);
+		product.setHeight(42);
+		product.setPrice(42);
+		product.setTaxType(1);
+		productService.save(product);
+
+		// 1回目の検索でインデックスを作成する
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId() + "/products").param("name", "before"))
+				.andExpect(model().attribute("listProduct", Matchers.hasSize(1)));
+
+		product.setName("After Rename");
+		productService.save(product);
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId() + "/products").param("name", "before"))
+				.andExpect(model().attribute("listProduct", Matchers.hasSize(0)));
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId() + "/products").param("name", "after"))
+				.andExpect(model().attribute("listProduct", Matchers.hasSize(1)));
+
+		productService.delete(product);
+		mvc.perform(MockMvcRequestBuilders.get("/shops/" + shop.getId() + "/products").param("name", "after"))
+				.andExpect(model().attribute("listProduct", Matchers.hasSize(0)));
+	}
+
 	/**
 	 * get showのテスト
 	 */
@@ -0,0 +1,57 @@
+package com.example.controller;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.enums.FileImportStatus;
+import com.example.enums.ServiceType;
+import com.example.model.FileImportInfo;
+import com.example.repository.FileImportInfoRepository;
+
+/**
+ * TransactionAmountControllerのテストクラス
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class TransactionAmountControllerTests {
+
+	@Autowired
+	private FileImportInfoRepository fileImportInfoRepository;
+
+	/**
+	 * 取引金額CSVインポートの進捗取得 テスト
+	 * 他の取引先の取込・支払いCSVの取込は取得できないこと
+	 */
+	@Test
+	public void importStatusTest(@Autowired MockMvc mvc) throws Exception {
+		FileImportInfo imp = this.saveImport(ServiceType.COMPANY, 42L);
+		FileImportInfo payment = this.saveImport(ServiceType.ORDER, 0L);
+
+		mvc.perform(MockMvcRequestBuilders.get("/transactionAmounts/42/imports/" + imp.getId()))
+				.andExpect(status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get("/transactionAmounts/43/imports/" + imp.getId()))
+				.andExpect(status().isNotFound());
+		mvc.perform(MockMvcRequestBuilders.get("/transactionAmounts/0/imports/" + payment.getId()))
+				.andExpect(status().isNotFound());
+	}
+
+	private FileImportInfo saveImport(ServiceType type, Long relationId) {
+		FileImportInfo imp = new FileImportInfo();
+		imp.setStartDatetime(LocalDateTime.now());
+		imp.setEndDatetime(LocalDateTime.now());
+		imp.setStatus(FileImportStatus.COMPLETE);
+		imp.setType(type);
+		imp.setRelationId(relationId);
+		return fileImportInfoRepository.save(imp);
+	}
+}
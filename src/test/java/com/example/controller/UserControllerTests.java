@@ -5,8 +5,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import jakarta.servlet.ServletException;
@@ -26,6 +29,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.example.constants.Message;
 import com.example.model.User;
+import com.example.repository.UserRepository;
 import com.example.service.UserService;
 
 /**
@@ -38,6 +42,9 @@ public class UserControllerTests {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private UserRepository userRepository;
+
 	/**
 	 * get indexのテスト
 	 */
@@ -203,4 +210,65 @@ public class UserControllerTests {
 		Optional<User> user2 = userService.findOne(user.getId());
 		Assertions.assertFalse(user2.isPresent());
 	}
+
+	/**
+	 * ログインのテスト
+	 * 2回目以降のログインもでき、保存後は変更したパスワードでログインできること
+	 * パスワードを空欄で保存した場合はパスワードが変わらないこと
+	 */
+	@Test
+	@WithAnonymousUser
+	public void loginTest(@Autowired MockMvc mvc) throws Exception {
+		User user = new User();
+		user.setName("test");
+		user.setEmail(UUID.randomUUID().toString() + "@example.com");
+		user.setPassword("test");
+		user.setRole("ADMIN");
+		userService.save(user);
+		for (int i = 0; i < 2; i++) {
+			mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("test"))
+					.andExpect(SecurityMockMvcResultMatchers.authenticated().withUsername(user.getEmail()));
+		}
+
+		user.setPassword("changed");
+		userService.save(user);
+		mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("test"))
+				.andExpect(SecurityMockMvcResultMatchers.unauthenticated());
+		mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("changed"))
+				.andExpect(SecurityMockMvcResultMatchers.authenticated().withUsername(user.getEmail()));
+
+		user.setPassword("");
+		userService.save(user);
+		mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("changed"))
+				.andExpect(SecurityMockMvcResultMatchers.authenticated().withUsername(user.getEmail()));
+
+		userService.delete(user);
+		mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("changed"))
+				.andExpect(SecurityMockMvcResultMatchers.unauthenticated());
+	}
+
+	/**
+	 * 平文のパスワードのログインのテスト
+	 * ログインでき、ログイン後はハッシュ化したパスワードに移行されること
+	 */
+	@Test
+	@WithAnonymousUser
+	public void loginUpgradePasswordTest(@Autowired MockMvc mvc) throws Exception {
+		User user = new User();
+		user.setName("test");
+		user.setEmail(UUID.randomUUID().toString() + "@example.com");
+		user.setPassword("test");
+		user.setRole("USER");
+		userService.save(user);
+		Assertions.assertTrue(user.getPassword().startsWith("{bcrypt}"));
+
+		// 以前の平文のパスワード
+		user.setPassword("legacy");
+		userRepository.save(user);
+		mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("legacy"))
+				.andExpect(SecurityMockMvcResultMatchers.authenticated().withUsername(user.getEmail()));
+		Assertions.assertTrue(userRepository.findById(user.getId()).get().getPassword().startsWith("{bcrypt}"));
+		mvc.perform(SecurityMockMvcRequestBuilders.formLogin("/auth/login").user(user.getEmail()).password("legacy"))
+				.andExpect(SecurityMockMvcResultMatchers.authenticated().withUsername(user.getEmail()));
+	}
 }
@@ -1,9 +1,13 @@
 package com.example.controller.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
@@ -12,6 +16,8 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import com.example.json.api.Authenticate;
 import com.example.model.User;
@@ -28,6 +34,10 @@ public class AuthenticateControllerTests {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	@Qualifier("passwordTaskExecutor")
+	private ThreadPoolTaskExecutor passwordTaskExecutor;
+
 	/**
 	 * post authenticateのテスト
 	 */
@@ -113,4 +123,82 @@ public class AuthenticateControllerTests {
 
 	}
 
+	/**
+	 * パスワードの照合が混み合っている場合は503になることのテスト
+	 */
+	@Test
+	public void postAuthenticateBusyTest(@Autowired MockMvc mvc) throws Exception {
+		User user = new User();
+		user.setName("test");
+		user.setEmail(UUID.randomUUID().toString() + "@example.com");
+		user.setPassword("test");
+		userService.save(user);
+
+		var objectMapper = new ObjectMapper();
+		var requestParam = new Authenticate.RequestBody();
+		requestParam.setEmail(user.getEmail());
+		requestParam.setPassword("test");
+
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// 照合用のスレッドと待ち行列を埋める
+			boolean full = false;
+			for (int i = 0; i < 1000 && !full; i++) {
+				try {
+					passwordTaskExecutor.submit(() -> {
+						release.await(10, TimeUnit.SECONDS);
+						return null;
+					});
+				} catch (TaskRejectedException e) {
+					full = true;
+				}
+			}
+			Assertions.assertTrue(full);
+
+			mvc.perform(MockMvcRequestBuilders.post("/api/authenticate").content(objectMapper.writeValueAsString(requestParam))
+					.contentType(MediaType.APPLICATION_JSON).with(SecurityMockMvcRequestPostProcessors.csrf()))
+					.andExpect(status().isServiceUnavailable());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	/**
+	 * Bearerトークンでの API 呼び出しのテスト
+	 * セッションを作成せずに認証し、不正・失効済みのトークンは401になること
+	 */
+	@Test
+	@WithAnonymousUser
+	public void bearerTokenTest(@Autowired MockMvc mvc) throws Exception {
+		User user = new User();
+		user.setName("test");
+		user.setEmail(UUID.randomUUID().toString() + "@example.com");
+		user.setPassword("test");
+		user.setRole("USER");
+		userService.save(user);
+
+		var objectMapper = new ObjectMapper();
+		var requestParam = new Authenticate.RequestBody();
+		requestParam.setEmail(user.getEmail());
+		requestParam.setPassword("test");
+		var result = mvc.perform(MockMvcRequestBuilders.post("/api/authenticate")
+				.content(objectMapper.writeValueAsString(requestParam)).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andReturn();
+		Assertions.assertNull(result.getRequest().getSession(false));
+		String authorization = "Bearer " + objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+
+		for (int i = 0; i < 2; i++) {
+			var response = mvc.perform(MockMvcRequestBuilders.get("/api/categories/all").header("Authorization", authorization))
+					.andExpect(status().isOk()).andReturn();
+			Assertions.assertNull(response.getRequest().getSession(false));
+		}
+		mvc.perform(MockMvcRequestBuilders.get("/api/categories/all").header("Authorization", authorization + "x"))
+				.andExpect(status().isUnauthorized());
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/authenticate/revoke").header("Authorization", authorization))
+				.andExpect(status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get("/api/categories/all").header("Authorization", authorization))
+				.andExpect(status().isUnauthorized());
+	}
+
 }
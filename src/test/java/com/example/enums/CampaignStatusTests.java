@@ -0,0 +1,41 @@
+package com.example.enums;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CampaignStatusのテストクラス
+ */
+public class CampaignStatusTests {
+
+	/**
+	 * 同じステータスへは遷移できないことのテスト
+	 */
+	@Test
+	public void canTransitionToSameStatusTest() {
+		for (CampaignStatus status : CampaignStatus.values()) {
+			Assertions.assertFalse(status.canTransitionTo(status));
+		}
+	}
+
+	/**
+	 * 遷移表のテスト
+	 */
+	@Test
+	public void canTransitionToTest() {
+		Assertions.assertTrue(CampaignStatus.Eligible.canTransitionTo(CampaignStatus.Paused));
+		Assertions.assertTrue(CampaignStatus.Paused.canTransitionTo(CampaignStatus.Eligible));
+		Assertions.assertFalse(CampaignStatus.Ended.canTransitionTo(CampaignStatus.Eligible));
+	}
+
+	/**
+	 * 遷移元ステータスの逆引きのテスト
+	 */
+	@Test
+	public void transitionSourcesOfTest() {
+		Assertions.assertEquals(EnumSet.of(CampaignStatus.Pending, CampaignStatus.Eligible),
+				CampaignStatus.transitionSourcesOf(CampaignStatus.Paused));
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.security;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * BoundedPasswordEncoderのテストクラス
+ */
+public class BoundedPasswordEncoderTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final Counter rejected = new SimpleMeterRegistry().counter("password.executor.rejected");
+
+	private ThreadPoolTaskExecutor executor;
+
+	private BoundedPasswordEncoder encoder;
+
+	@BeforeEach
+	public void setUp() {
+		// スレッド1つ・待ち行列なし
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(0);
+		executor.initialize();
+		encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(release), executor, Duration.ofMillis(200),
+				rejected);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	/**
+	 * 照合をスレッドプールで実行して結果を返すことのテスト
+	 */
+	@Test
+	public void matchesTest() {
+		release.countDown();
+		Assertions.assertTrue(encoder.matches("test", "test"));
+		Assertions.assertFalse(encoder.matches("test", "test2"));
+		Assertions.assertEquals("test", encoder.encode("test"));
+		Assertions.assertEquals(0, rejected.count());
+	}
+
+	/**
+	 * スレッドが塞がっている場合は受付を断り、件数を計上することのテスト
+	 */
+	@Test
+	public void rejectedTest() {
+		executor.submit(() -> {
+			release.await(10, TimeUnit.SECONDS);
+			return null;
+		});
+		Assertions.assertThrows(AuthenticationServiceException.class, () -> encoder.matches("test", "test"));
+		Assertions.assertEquals(1, rejected.count());
+	}
+
+	/**
+	 * 待ち時間の上限を超えた場合は照合を打ち切り、件数を計上することのテスト
+	 */
+	@Test
+	public void timeoutTest() {
+		Assertions.assertThrows(AuthenticationServiceException.class, () -> encoder.matches("test", "test"));
+		Assertions.assertEquals(1, rejected.count());
+	}
+
+	/**
+	 * release が開くまで照合・ハッシュ化を待たせる PasswordEncoder
+	 */
+	private static class BlockingPasswordEncoder implements PasswordEncoder {
+
+		private final CountDownLatch release;
+
+		BlockingPasswordEncoder(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			this.await();
+			return rawPassword.toString();
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			this.await();
+			return rawPassword.toString().equals(encodedPassword);
+		}
+
+		private void await() {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.security;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import jakarta.servlet.FilterChain;
+
+/**
+ * UrlRecordingFilterの処理時間の計測
+ *
+ * 通常のテストでは実行しない(mvn test -Pbenchmark で実行する)。
+ */
+@Tag("benchmark")
+public class UrlRecordingFilterBenchmarkTests {
+
+	private static final FilterChain NOOP_CHAIN = (request, response) -> {
+	};
+
+	private final UrlRecordingFilter filter = new UrlRecordingFilter();
+
+	/**
+	 * 履歴が変わらないリクエスト(同じページの再表示)と変わるリクエストの1件あたりの時間を出力する
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		MockHttpServletRequest same = this.request("/shops");
+		same.setSession(session);
+		MockHttpServletRequest[] changing = new MockHttpServletRequest[16];
+		for (int i = 0; i < changing.length; i++) {
+			changing[i] = this.request("/shops/" + i);
+			changing[i].setSession(session);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		int iterations = 200000;
+		for (int round = 0; round < 2; round++) {
+			// 1回目はウォームアップ
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				filter.doFilter(same, response, NOOP_CHAIN);
+			}
+			long unchanged = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				filter.doFilter(changing[i % changing.length], response, NOOP_CHAIN);
+			}
+			long changed = System.nanoTime() - start;
+			if (round == 1) {
+				System.out.printf("UrlRecordingFilter: unchanged %d ns/op, changed %d ns/op%n",
+						unchanged / iterations, changed / iterations);
+			}
+		}
+	}
+
+	private MockHttpServletRequest request(String uri) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.addHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+		return request;
+	}
+}
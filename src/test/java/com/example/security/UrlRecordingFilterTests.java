@@ -0,0 +1,126 @@
+package com.example.security;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.example.security.UrlRecordingFilter.UrlRecording;
+
+import jakarta.servlet.FilterChain;
+
+/**
+ * UrlRecordingFilterのテストクラス
+ */
+public class UrlRecordingFilterTests {
+
+	private static final FilterChain NOOP_CHAIN = (request, response) -> {
+	};
+
+	private final UrlRecordingFilter filter = new UrlRecordingFilter();
+
+	/**
+	 * 最大件数・重複のテスト
+	 */
+	@Test
+	public void addTest() {
+		UrlRecording urlRecording = new UrlRecording();
+		for (int i = 0; i < 15; i++) {
+			Assertions.assertTrue(urlRecording.add("/shops/" + i));
+		}
+		Assertions.assertFalse(urlRecording.add("/shops/14"));
+		Assertions.assertEquals(List.of("/shops/5", "/shops/6", "/shops/7", "/shops/8", "/shops/9", "/shops/10",
+				"/shops/11", "/shops/12", "/shops/13", "/shops/14"), urlRecording.getUrls());
+
+		Assertions.assertTrue(urlRecording.delete("/shops/1"));
+		Assertions.assertEquals(List.of("/shops/5", "/shops/6", "/shops/7", "/shops/8", "/shops/9"),
+				urlRecording.getUrls());
+		Assertions.assertFalse(urlRecording.delete("/apps"));
+	}
+
+	/**
+	 * 同じセッションから同時に追加された場合のテスト
+	 */
+	@Test
+	public void concurrentAddTest() throws Exception {
+		UrlRecording urlRecording = new UrlRecording();
+		AtomicInteger added = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			int thread = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					if (urlRecording.add("/shops/" + thread + "/" + i)) {
+						added.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assertions.assertEquals(threads.length * 10000, added.get());
+		Assertions.assertEquals(UrlRecording.CAPACITY, urlRecording.getUrls().size());
+	}
+
+	/**
+	 * セッションを作成しないこと、HTML・API 以外は記録しないことのテスト
+	 */
+	@Test
+	public void doFilterTest() throws Exception {
+		MockHttpServletRequest request = this.request("/shops");
+		filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+		Assertions.assertNull(request.getSession(false));
+
+		MockHttpSession session = new MockHttpSession();
+		request = this.request("/shops");
+		request.setSession(session);
+		filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+		UrlRecording urlRecording = (UrlRecording)session.getAttribute(UrlRecordingFilter.SESSION_ATTRIBUTE);
+		Assertions.assertEquals(List.of("/shops"), urlRecording.getUrls());
+
+		for (String uri : List.of("/api/categories/all", "/", "/css/style.css")) {
+			request = this.request(uri);
+			request.setSession(session);
+			filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+		}
+		request = new MockHttpServletRequest("GET", "/apps/images/test.png");
+		request.addHeader("Accept", "image/avif,image/webp,*/*");
+		request.setSession(session);
+		filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+		Assertions.assertEquals(List.of("/shops"), urlRecording.getUrls());
+	}
+
+	/**
+	 * 最大件数を超えた場合は古いURLから消え、同じURLの再表示では履歴が変わらないことのテスト
+	 */
+	@Test
+	public void doFilterCapacityTest() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		for (int i = 0; i < 16; i++) {
+			MockHttpServletRequest request = this.request("/shops/" + i);
+			request.setSession(session);
+			filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+		}
+		UrlRecording urlRecording = (UrlRecording)session.getAttribute(UrlRecordingFilter.SESSION_ATTRIBUTE);
+		Assertions.assertEquals(UrlRecording.CAPACITY, urlRecording.getUrls().size());
+		Assertions.assertEquals("/shops/6", urlRecording.getUrls().get(0));
+
+		MockHttpServletRequest same = this.request("/shops/15");
+		same.setSession(session);
+		filter.doFilter(same, new MockHttpServletResponse(), NOOP_CHAIN);
+		Assertions.assertEquals(UrlRecording.CAPACITY, urlRecording.getUrls().size());
+		Assertions.assertEquals("/shops/6", urlRecording.getUrls().get(0));
+	}
+
+	private MockHttpServletRequest request(String uri) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.addHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+		return request;
+	}
+}
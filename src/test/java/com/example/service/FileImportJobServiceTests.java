@@ -0,0 +1,146 @@
+package com.example.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.enums.FileImportStatus;
+import com.example.enums.ServiceType;
+import com.example.model.FileImportInfo;
+import com.example.repository.FileImportInfoRepository;
+
+/**
+ * FileImportJobServiceのテストクラス
+ */
+@SpringBootTest
+public class FileImportJobServiceTests {
+
+	@Autowired
+	private FileImportJobService fileImportJobService;
+
+	@Autowired
+	private FileImportInfoRepository fileImportInfoRepository;
+
+	/**
+	 * 同じ取込先の同時実行を断り、ジョブの終了後は取込先の実行枠が残らないことのテスト
+	 */
+	@Test
+	public void submitPerRelationTest() throws Exception {
+		Long relationId = System.nanoTime();
+		CountDownLatch release = new CountDownLatch(1);
+		FileImportInfo imp = fileImportJobService.submit(this.csv(), ServiceType.COMPANY, relationId,
+				(file, info) -> this.complete(release, info));
+		try {
+			Assertions.assertTrue(fileImportJobService.isRunning(ServiceType.COMPANY, relationId));
+			Assertions.assertThrows(IllegalStateException.class, () -> fileImportJobService.submit(this.csv(),
+					ServiceType.COMPANY, relationId, (file, info) -> this.complete(release, info)));
+		} finally {
+			release.countDown();
+		}
+		this.awaitReleased(ServiceType.COMPANY, relationId);
+		Assertions.assertEquals(FileImportStatus.COMPLETE, fileImportJobService.findOne(imp.getId()).get().getStatus());
+
+		// 終了後は同じ取込先で再度実行できる
+		FileImportInfo imp2 = fileImportJobService.submit(this.csv(), ServiceType.COMPANY, relationId,
+				(file, info) -> this.complete(new CountDownLatch(0), info));
+		this.awaitReleased(ServiceType.COMPANY, relationId);
+		Assertions.assertEquals(FileImportStatus.COMPLETE,
+				fileImportJobService.findOne(imp2.getId()).get().getStatus());
+	}
+
+	/**
+	 * アップロードファイルを退避してジョブに渡し、ジョブが失敗した場合は取込失敗にして退避ファイルを削除することのテスト
+	 */
+	@Test
+	public void runErrorTest() throws Exception {
+		Long relationId = System.nanoTime();
+		AtomicReference<Path> spooled = new AtomicReference<>();
+		AtomicReference<String> content = new AtomicReference<>();
+		FileImportInfo imp = fileImportJobService.submit(this.csv(), ServiceType.COMPANY, relationId,
+				(file, info) -> {
+					spooled.set(file);
+					content.set(Files.readString(file));
+					throw new IllegalStateException("test");
+				});
+		Assertions.assertEquals(FileImportStatus.IMPORTING, imp.getStatus());
+		this.awaitReleased(ServiceType.COMPANY, relationId);
+
+		Assertions.assertEquals("header\n", content.get());
+		Assertions.assertFalse(Files.exists(spooled.get()));
+		FileImportInfo found = fileImportJobService.findOne(imp.getId()).get();
+		Assertions.assertEquals(FileImportStatus.ERROR, found.getStatus());
+		Assertions.assertNotNull(found.getEndDatetime());
+	}
+
+	/**
+	 * スレッドプールの待ち行列が溢れた場合は受付を断り、登録した取込を取込失敗にすることのテスト
+	 */
+	@Test
+	public void submitRejectedTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Long> relationIds = new ArrayList<>();
+		Long rejected = null;
+		try {
+			// 取込先を変えてスレッドと待ち行列が埋まるまで受け付ける
+			for (int i = 0; i < 1000 && rejected == null; i++) {
+				Long relationId = System.nanoTime();
+				try {
+					fileImportJobService.submit(this.csv(), ServiceType.COMPANY, relationId,
+							(file, info) -> this.complete(release, info));
+					relationIds.add(relationId);
+				} catch (IllegalStateException e) {
+					rejected = relationId;
+				}
+			}
+		} finally {
+			release.countDown();
+		}
+		Assertions.assertNotNull(rejected);
+		Assertions.assertFalse(fileImportJobService.isRunning(ServiceType.COMPANY, rejected));
+		Long rejectedId = rejected;
+		List<FileImportInfo> rejectedImports = fileImportInfoRepository.findAll().stream()
+				.filter(imp -> rejectedId.equals(imp.getRelationId()))
+				.toList();
+		Assertions.assertEquals(1, rejectedImports.size());
+		Assertions.assertEquals(FileImportStatus.ERROR, rejectedImports.get(0).getStatus());
+
+		for (Long relationId : relationIds) {
+			this.awaitReleased(ServiceType.COMPANY, relationId);
+		}
+	}
+
+	private MockMultipartFile csv() {
+		return new MockMultipartFile("file", "test.csv", "text/csv", "header\n".getBytes());
+	}
+
+	/**
+	 * release が開くまで待って取込完了にするジョブ
+	 */
+	private void complete(CountDownLatch release, FileImportInfo info) throws InterruptedException {
+		release.await(10, TimeUnit.SECONDS);
+		info.setStatus(FileImportStatus.COMPLETE);
+		info.setEndDatetime(LocalDateTime.now());
+		fileImportInfoRepository.save(info);
+	}
+
+	/**
+	 * ジョブが終了して取込先の実行枠が返却されるまで待つ
+	 */
+	private void awaitReleased(ServiceType type, Long relationId) throws InterruptedException {
+		for (int i = 0; i < 100 && fileImportJobService.isRunning(type, relationId); i++) {
+			Thread.sleep(100);
+		}
+		Assertions.assertFalse(fileImportJobService.isRunning(type, relationId));
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.enums.FileImportStatus;
+import com.example.model.Company;
+import com.example.model.FileImportInfo;
+import com.example.repository.TransactionAmountRepository;
+
+/**
+ * TransactionAmountServiceのテストクラス
+ */
+@SpringBootTest(properties = "import.chunk-size=2")
+public class TransactionAmountServiceTests {
+
+	@Autowired
+	private TransactionAmountService transactionAmountService;
+
+	@Autowired
+	private CompanyService companyService;
+
+	@Autowired
+	private TransactionAmountRepository transactionAmountRepository;
+
+	/**
+	 * CSVをチャンク単位で取り込み、不正な行はエラー件数に計上して他のチャンクは登録することのテスト
+	 */
+	@Test
+	public void importCSVTest() throws Exception {
+		Company company = new Company();
+		company.setName("test");
+		company.setEmail(UUID.randomUUID().toString() + "@example.com");
+		company.setAddress("test");
+		company.setPhone("test");
+		company.setZipCode("100000");
+		companyService.save(company);
+
+		// チャンク1: 正常2行 / チャンク2: 不正1行(金額が数値でない)・正常1行 / チャンク3: 正常1行
+		String csv = "plus_minus,price,due_date,has_paid,memo\n"
+				+ "true,100,2023-01-01,false,a\n"
+				+ "false,200,2023-01-02,true,\"b,\"\"quoted\"\"\"\n"
+				+ "true,abc,2023-01-03,false,c\n"
+				+ "true,300,2023-01-04,false,\"multi\nline\"\n"
+				+ "false,400,2023-01-05,false,e\n";
+		MockMultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv",
+				csv.getBytes(StandardCharsets.UTF_8));
+		FileImportInfo imp = transactionAmountService.importCSV(file, company.getId());
+
+		FileImportInfo found = this.awaitFinished(imp.getId(), company.getId());
+		Assertions.assertEquals(FileImportStatus.COMPLETE, found.getStatus());
+		Assertions.assertEquals(5, found.getReadCount());
+		Assertions.assertEquals(4, found.getWriteCount());
+		Assertions.assertEquals(1, found.getErrorCount());
+		Assertions.assertEquals(4, transactionAmountRepository.findByCompany(company).size());
+	}
+
+	/**
+	 * 取込が終わるまで待って取込結果を返す
+	 */
+	private FileImportInfo awaitFinished(Long importId, Long companyId) throws InterruptedException {
+		FileImportInfo imp = transactionAmountService.findImport(importId, companyId).get();
+		for (int i = 0; i < 100 && imp.getStatus() == FileImportStatus.IMPORTING; i++) {
+			Thread.sleep(100);
+			imp = transactionAmountService.findImport(importId, companyId).get();
+		}
+		return imp;
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.utils;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CsvReaderのテストクラス
+ */
+public class CsvReaderTests {
+
+	/**
+	 * ダブルクォートで囲まれたフィールドのテスト
+	 */
+	@Test
+	public void readQuotedTest() throws Exception {
+		try (CsvReader reader = this.reader("\"a,b\",c,\"\"\n")) {
+			Assertions.assertArrayEquals(new String[] { "a,b", "c", "" }, reader.readRecord());
+			Assertions.assertNull(reader.readRecord());
+		}
+	}
+
+	/**
+	 * エスケープされたダブルクォートのテスト
+	 */
+	@Test
+	public void readEscapedQuoteTest() throws Exception {
+		try (CsvReader reader = this.reader("\"say \"\"hello\"\"\",\"\"\"\"\n")) {
+			Assertions.assertArrayEquals(new String[] { "say \"hello\"", "\"" }, reader.readRecord());
+			Assertions.assertNull(reader.readRecord());
+		}
+	}
+
+	/**
+	 * フィールド内の改行とCRLFの改行のテスト
+	 */
+	@Test
+	public void readNewlineTest() throws Exception {
+		try (CsvReader reader = this.reader("\"1\r\n2\",x\r\n\"3\n4\",y\r\nz,w")) {
+			Assertions.assertArrayEquals(new String[] { "1\r\n2", "x" }, reader.readRecord());
+			Assertions.assertArrayEquals(new String[] { "3\n4", "y" }, reader.readRecord());
+			Assertions.assertArrayEquals(new String[] { "z", "w" }, reader.readRecord());
+			Assertions.assertNull(reader.readRecord());
+			Assertions.assertEquals(3, reader.getRecordNumber());
+		}
+	}
+
+	/**
+	 * 末尾の空フィールドのテスト
+	 */
+	@Test
+	public void readTrailingEmptyFieldTest() throws Exception {
+		try (CsvReader reader = this.reader("a,\r\nb,c,\n,")) {
+			Assertions.assertArrayEquals(new String[] { "a", "" }, reader.readRecord());
+			Assertions.assertArrayEquals(new String[] { "b", "c", "" }, reader.readRecord());
+			Assertions.assertArrayEquals(new String[] { "", "" }, reader.readRecord());
+			Assertions.assertNull(reader.readRecord());
+		}
+	}
+
+	/**
+	 * BOMと空行を読み飛ばすことのテスト
+	 */
+	@Test
+	public void readBomAndBlankLineTest() throws Exception {
+		try (CsvReader reader = this.reader("\uFEFFa,b\n\r\n\nc,d\n")) {
+			Assertions.assertArrayEquals(new String[] { "a", "b" }, reader.readRecord());
+			Assertions.assertArrayEquals(new String[] { "c", "d" }, reader.readRecord());
+			Assertions.assertNull(reader.readRecord());
+		}
+	}
+
+	private CsvReader reader(String csv) {
+		return new CsvReader(new StringReader(csv));
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Moneyのテストクラス
+ */
+public class MoneyTests {
+
+	/**
+	 * BigDecimalとの変換で誤差が出ないことのテスト
+	 */
+	@Test
+	public void ofTest() {
+		Assertions.assertEquals(30, Money.of(new BigDecimal("0.1").add(new BigDecimal("0.2"))));
+		Assertions.assertEquals(4200, Money.of(new BigDecimal("42")));
+		Assertions.assertEquals(13, Money.of(new BigDecimal("0.125")));
+		Assertions.assertEquals(0, Money.of(null));
+		Assertions.assertEquals(new BigDecimal("0.30"), Money.toBigDecimal(Money.of(new BigDecimal("0.1"))
+				+ Money.of(new BigDecimal("0.2"))));
+	}
+
+	/**
+	 * 税額の端数処理のテスト
+	 */
+	@Test
+	public void taxTest() {
+		long amount = Money.ofYen(105);
+		// 税抜き10%: 10.5円
+		Assertions.assertEquals(Money.ofYen(10), Money.tax(amount, 10, false, RoundingMode.FLOOR));
+		Assertions.assertEquals(Money.ofYen(11), Money.tax(amount, 10, false, RoundingMode.HALF_UP));
+		Assertions.assertEquals(Money.ofYen(11), Money.tax(amount, 10, false, RoundingMode.CEILING));
+		// 税込み8%: 42 * 8 / 108 = 3.11円
+		Assertions.assertEquals(Money.ofYen(3), Money.tax(Money.ofYen(42), 8, true, RoundingMode.HALF_UP));
+		Assertions.assertEquals(Money.ofYen(4), Money.tax(Money.ofYen(42), 8, true, RoundingMode.CEILING));
+		Assertions.assertEquals(0, Money.tax(amount, 0, false, RoundingMode.CEILING));
+	}
+
+	/**
+	 * 負数の割り算の端数処理のテスト
+	 */
+	@Test
+	public void divideNegativeTest() {
+		Assertions.assertEquals(-3, Money.divide(-5, 2, RoundingMode.FLOOR));
+		Assertions.assertEquals(-2, Money.divide(-5, 2, RoundingMode.CEILING));
+		Assertions.assertEquals(-3, Money.divide(-5, 2, RoundingMode.HALF_UP));
+		Assertions.assertEquals(-2, Money.divide(-5, 2, RoundingMode.DOWN));
+	}
+}
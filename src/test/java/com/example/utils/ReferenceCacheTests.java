@@ -0,0 +1,80 @@
+package com.example.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ReferenceCacheのテストクラス
+ */
+public class ReferenceCacheTests {
+
+	/**
+	 * 2回目はキャッシュから取得し、無効化後は読み直すことのテスト
+	 */
+	@Test
+	public void getTest() {
+		ReferenceCache<String> cache = new ReferenceCache<>(10, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+
+		Assertions.assertEquals("a1", cache.get("a", key -> key + loads.incrementAndGet()));
+		Assertions.assertEquals("a1", cache.get("a", key -> key + loads.incrementAndGet()));
+		Assertions.assertEquals(1, cache.hitCount());
+		Assertions.assertEquals(1, cache.missCount());
+
+		cache.invalidate("a");
+		Assertions.assertEquals("a2", cache.get("a", key -> key + loads.incrementAndGet()));
+		cache.invalidateAll();
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertEquals("a3", cache.get("a", key -> key + loads.incrementAndGet()));
+	}
+
+	/**
+	 * 有効期限を過ぎたら読み直すことのテスト
+	 */
+	@Test
+	public void ttlTest() {
+		AtomicLong now = new AtomicLong();
+		ReferenceCache<Integer> cache = new ReferenceCache<>(10, Duration.ofSeconds(10), now::get);
+
+		Assertions.assertEquals(1, cache.get("a", key -> 1));
+		now.addAndGet(Duration.ofSeconds(9).toNanos());
+		Assertions.assertEquals(1, cache.get("a", key -> 2));
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		Assertions.assertEquals(3, cache.get("a", key -> 3));
+		Assertions.assertEquals(1, cache.evictionCount());
+	}
+
+	/**
+	 * 上限件数を超えたら最も長く参照されていないものから破棄することのテスト
+	 */
+	@Test
+	public void maxSizeTest() {
+		ReferenceCache<String> cache = new ReferenceCache<>(2, Duration.ofMinutes(1));
+		cache.get("a", key -> key);
+		cache.get("b", key -> key);
+		cache.get("a", key -> "x");
+		cache.get("c", key -> key);
+
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(1, cache.evictionCount());
+		Assertions.assertEquals("a", cache.get("a", key -> "x"));
+		Assertions.assertEquals("y", cache.get("b", key -> "y"));
+	}
+
+	/**
+	 * 読み込み中に無効化された場合は読み込んだ値を保持しないことのテスト
+	 */
+	@Test
+	public void invalidateWhileLoadingTest() {
+		ReferenceCache<String> cache = new ReferenceCache<>(10, Duration.ofMinutes(1));
+		Assertions.assertEquals("old", cache.get("a", key -> {
+			cache.invalidate("a");
+			return "old";
+		}));
+		Assertions.assertEquals("new", cache.get("a", key -> "new"));
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * SpoolFilesのテストクラス
+ */
+public class SpoolFilesTests {
+
+	/**
+	 * 期限切れでファイル名が一致するファイルだけを削除することのテスト
+	 */
+	@Test
+	public void deleteModifiedBeforeTest(@TempDir Path dir) throws Exception {
+		Instant now = Instant.now();
+		Path expired = Files.createFile(dir.resolve("shipping-1.csv"));
+		Files.setLastModifiedTime(expired, FileTime.from(now.minus(Duration.ofDays(2))));
+		Path recent = Files.createFile(dir.resolve("shipping-2.csv"));
+		Path other = Files.createFile(dir.resolve("import-1.csv"));
+		Files.setLastModifiedTime(other, FileTime.from(now.minus(Duration.ofDays(2))));
+
+		Assertions.assertEquals(1, SpoolFiles.deleteModifiedBefore(dir, "shipping-*.csv", now.minus(Duration.ofDays(1))));
+		Assertions.assertFalse(Files.exists(expired));
+		Assertions.assertTrue(Files.exists(recent));
+		Assertions.assertTrue(Files.exists(other));
+
+		Assertions.assertEquals(0, SpoolFiles.deleteModifiedBefore(dir.resolve("none"), "*.csv", now));
+	}
+}